@@ -2,12 +2,18 @@ package com.chessonline.controller;
 
 import com.chessonline.dto.AnalysisRequest;
 import com.chessonline.dto.AnalysisResponse;
-import com.chessonline.service.AnalysisService;
+import com.chessonline.dto.PositionAnalysisRequest;
+import com.chessonline.dto.PositionAnalysisResponse;
+import com.chessonline.service.AnalysisJob;
+import com.chessonline.service.AnalysisJobService;
+import com.chessonline.service.SearchOptions;
+import com.chessonline.service.StockfishService;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.security.core.Authentication;
 import org.springframework.web.bind.annotation.*;
 
 @RestController
@@ -15,10 +21,51 @@ import org.springframework.web.bind.annotation.*;
 public class AnalysisController {
     private static final Logger logger = LoggerFactory.getLogger(AnalysisController.class);
     
-    private final AnalysisService analysisService;
+    private static final int DEFAULT_POSITION_DEPTH = 20;
+    private static final int MAX_POSITION_DEPTH = 30;
 
-    public AnalysisController(AnalysisService analysisService) {
-        this.analysisService = analysisService;
+    private final AnalysisJobService analysisJobService;
+    private final StockfishService stockfishService;
+
+    public AnalysisController(AnalysisJobService analysisJobService, StockfishService stockfishService) {
+        this.analysisJobService = analysisJobService;
+        this.stockfishService = stockfishService;
+    }
+
+    /**
+     * Start a background analysis; progress is pushed to the user on /user/queue/analysis
+     * POST /api/games/{gameId}/analysis-jobs
+     */
+    @PostMapping("/{gameId}/analysis-jobs")
+    @PreAuthorize("isAuthenticated()")
+    public ResponseEntity<?> submitAnalysis(@PathVariable String gameId, @RequestBody AnalysisRequest request,
+                                            Authentication authentication) {
+        if (request.getMoves() == null || request.getMoves().isEmpty()) {
+            return ResponseEntity.badRequest().body("Moves list cannot be empty");
+        }
+        request.setGameId(gameId);
+        try {
+            AnalysisJob job = analysisJobService.submit(request, authentication.getName());
+            return ResponseEntity.status(HttpStatus.ACCEPTED).body(analysisJobService.toResponse(job));
+        } catch (RuntimeException e) {
+            logger.warn("Could not queue analysis for game {}: {}", gameId, e.getMessage());
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).body(e.getMessage());
+        }
+    }
+
+    /**
+     * Status of an analysis job submitted by the user, with the moves analysed so far or the full result
+     * GET /api/games/analysis-jobs/{jobId}
+     */
+    @GetMapping("/analysis-jobs/{jobId}")
+    @PreAuthorize("isAuthenticated()")
+    public ResponseEntity<?> getAnalysisJob(@PathVariable String jobId, Authentication authentication) {
+        try {
+            AnalysisJob job = analysisJobService.getJob(jobId, authentication.getName());
+            return ResponseEntity.ok(analysisJobService.toResponse(job));
+        } catch (RuntimeException e) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).body(e.getMessage());
+        }
     }
 
     /**
@@ -36,22 +83,60 @@ public class AnalysisController {
                 return ResponseEntity.badRequest().body("Moves list cannot be empty");
             }
             
-            // Set gameId from path if not in request body
+            // Set gameId from path if not in request body; depth is clamped to the supported range
             request.setGameId(gameId);
             
-            // Perform analysis
-            AnalysisResponse response = analysisService.analyzeGame(request);
+            // Served from storage or shared with identical in-flight requests when possible
+            AnalysisResponse response = analysisJobService.analyze(request);
             
             return ResponseEntity.ok(response);
             
-        } catch (IllegalArgumentException e) {
-            logger.error("Invalid request for game {}: {}", gameId, e.getMessage());
-            return ResponseEntity.badRequest().body(e.getMessage());
-            
         } catch (Exception e) {
             logger.error("Error analyzing game {}", gameId, e);
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
                     .body("Analysis failed: " + e.getMessage());
         }
     }
+
+    /**
+     * Top lines of a single position, limited by depth, movetime and/or nodes
+     * POST /api/games/analysis/position
+     */
+    @PostMapping("/analysis/position")
+    @PreAuthorize("isAuthenticated()")
+    public ResponseEntity<?> analyzePosition(@RequestBody PositionAnalysisRequest request) {
+        if (request.getFen() == null || request.getFen().isBlank()) {
+            return ResponseEntity.badRequest().body("FEN is required");
+        }
+        if (request.getDepth() != null && (request.getDepth() < 1 || request.getDepth() > MAX_POSITION_DEPTH)) {
+            return ResponseEntity.badRequest().body("Depth must be between 1 and " + MAX_POSITION_DEPTH);
+        }
+        if ((request.getMoveTimeMs() != null && request.getMoveTimeMs() <= 0)
+                || (request.getNodes() != null && request.getNodes() <= 0)) {
+            return ResponseEntity.badRequest().body("Time and node budgets must be positive");
+        }
+
+        SearchOptions options = new SearchOptions()
+                .withDepth(request.getDepth())
+                .withMoveTime(request.getMoveTimeMs())
+                .withNodes(request.getNodes())
+                .withMultiPv(request.getMultiPv() != null ? request.getMultiPv() : 1)
+                .withHashMb(request.getHashMb())
+                .withThreads(request.getThreads());
+        if (request.getDepth() == null && request.getMoveTimeMs() == null && request.getNodes() == null) {
+            options.withDepth(DEFAULT_POSITION_DEPTH);
+        }
+
+        try {
+            return ResponseEntity.ok(new PositionAnalysisResponse(request.getFen(),
+                    stockfishService.analyzeLines(request.getFen(), options)));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).body("Analysis interrupted");
+        } catch (Exception e) {
+            logger.error("Error analyzing position {}", request.getFen(), e);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .body("Analysis failed: " + e.getMessage());
+        }
+    }
 }
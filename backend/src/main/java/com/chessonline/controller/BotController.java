@@ -5,10 +5,12 @@ import com.chessonline.dto.GameResponse;
 import com.chessonline.model.BotDifficulty;
 import com.chessonline.model.Game;
 import com.chessonline.model.User;
+import com.chessonline.service.BotMoveScheduler;
 import com.chessonline.service.BotService;
 import com.chessonline.service.GameService;
 import com.chessonline.repository.UserRepository;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.Authentication;
 import org.springframework.web.bind.annotation.*;
@@ -30,7 +32,7 @@ public class BotController {
     private GameService gameService;
     
     @Autowired
-    private BotService botService;
+    private BotMoveScheduler botMoveScheduler;
 
     @Autowired
     private UserRepository userRepository;
@@ -143,7 +145,7 @@ public class BotController {
             
             System.out.println("⚪ White: " + whiteId + ", ⚫ Black: " + blackId);
             
-            Game game = gameService.createGame(whiteId, blackId, request.getTimeControl(), null, false);
+            Game game = gameService.createBotGame(whiteId, blackId, request.getTimeControl(), request.getDifficulty());
             GameResponse response = mapToResponse(game, 0);
             
             return ResponseEntity.ok(response);
@@ -159,7 +161,9 @@ public class BotController {
     }
 
     /**
-     * Get bot's next move
+     * Ask the bot to reply; the move arrives on /topic/game/{gameId}/updates.
+     * Bot games reply on their own, this is for games created without a difficulty
+     * or a reply that was lost.
      * @param gameId Game ID
      * @param difficulty Bot difficulty for analysis
      */
@@ -176,21 +180,18 @@ public class BotController {
             if (game.isEmpty()) {
                 return ResponseEntity.status(403).body(Map.of("error", "Not authorized to view this game"));
             }
+
+            // The level chosen when the game was created wins over the request
+            if (game.get().getBotDifficulty() != null) {
+                difficulty = game.get().getBotDifficulty();
+            }
             
-            // Get bot move
-            String botMoveUci = botService.getBotMove(gameId, difficulty);
-            
-            // Apply bot move to game
-            UUID botId = UUID.fromString(BotService.getBotPlayerId());
-            var move = gameService.makeMove(gameId, botId, botMoveUci);
-            
-            // Get updated game state
-            Game updatedGame = gameService.getGame(gameId, userId).get();
-            GameResponse gameResponse = mapToResponse(updatedGame, 0);
+            // Search and move happen in the background; a repeated request joins the pending one
+            boolean scheduled = botMoveScheduler.schedule(gameId, difficulty);
             
-            return ResponseEntity.ok(Map.of(
-                "move", botMoveUci,
-                "game", gameResponse
+            return ResponseEntity.status(HttpStatus.ACCEPTED).body(Map.of(
+                "gameId", gameId,
+                "status", scheduled ? "scheduled" : "pending"
             ));
         } catch (Exception e) {
             return ResponseEntity.status(400).body(Map.of("error", e.getMessage()));
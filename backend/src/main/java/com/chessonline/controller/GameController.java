@@ -82,8 +82,7 @@ public class GameController {
             }
 
             Game game = gameOpt.get();
-            List<Move> moves = gameService.getGameMoves(gameId);
-            GameResponse response = mapToResponse(game, moves.size());
+            GameResponse response = mapToResponse(game, game.getPlyCount());
             return ResponseEntity.ok(response);
         } catch (Exception e) {
             return ResponseEntity.status(HttpStatus.BAD_REQUEST)
@@ -118,8 +117,7 @@ public class GameController {
             }
 
             Game game = gameOpt.get();
-            List<Move> moves = gameService.getGameMoves(gameId);
-            GameResponse response = mapToResponse(game, moves.size());
+            GameResponse response = mapToResponse(game, game.getPlyCount());
             return ResponseEntity.ok(response);
         } catch (Exception e) {
             return ResponseEntity.status(HttpStatus.BAD_REQUEST)
@@ -176,8 +174,26 @@ public class GameController {
             UUID userId = UUID.fromString(authentication.getName());
             Game game = gameService.resign(gameId, userId);
 
-            List<Move> moves = gameService.getGameMoves(gameId);
-            GameResponse response = mapToResponse(game, moves.size());
+            GameResponse response = mapToResponse(game, game.getPlyCount());
+            return ResponseEntity.ok(response);
+        } catch (Exception e) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                    .body(Map.of("error", e.getMessage()));
+        }
+    }
+
+    /**
+     * Claim a draw (threefold repetition or 50-move rule)
+     */
+    @PostMapping("/{gameId}/claim-draw")
+    public ResponseEntity<?> claimDraw(
+            @PathVariable String gameId,
+            Authentication authentication) {
+        try {
+            UUID userId = UUID.fromString(authentication.getName());
+            Game game = gameService.claimDraw(gameId, userId);
+
+            GameResponse response = mapToResponse(game, game.getPlyCount());
             return ResponseEntity.ok(response);
         } catch (Exception e) {
             return ResponseEntity.status(HttpStatus.BAD_REQUEST)
@@ -196,8 +212,7 @@ public class GameController {
             UUID userId = UUID.fromString(authentication.getName());
             Game game = gameService.abandon(gameId, userId);
 
-            List<Move> moves = gameService.getGameMoves(gameId);
-            GameResponse response = mapToResponse(game, moves.size());
+            GameResponse response = mapToResponse(game, game.getPlyCount());
             return ResponseEntity.ok(response);
         } catch (Exception e) {
             return ResponseEntity.status(HttpStatus.BAD_REQUEST)
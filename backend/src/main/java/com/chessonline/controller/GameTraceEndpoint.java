@@ -0,0 +1,31 @@
+package com.chessonline.controller;
+
+import com.chessonline.service.GameEventTrace;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Actuator endpoint with the recent game engine trace (/actuator/gametrace).
+ * Not exposed unless added to management.endpoints.web.exposure.include.
+ */
+@Component
+@Endpoint(id = "gametrace")
+public class GameTraceEndpoint {
+
+    private static final int MAX_EVENTS = 500;
+
+    private final GameEventTrace gameEventTrace;
+
+    public GameTraceEndpoint(GameEventTrace gameEventTrace) {
+        this.gameEventTrace = gameEventTrace;
+    }
+
+    @ReadOperation
+    public List<Map<String, Object>> recentEvents() {
+        return gameEventTrace.snapshot(MAX_EVENTS);
+    }
+}
@@ -1,9 +1,12 @@
 package com.chessonline.controller;
 
+import com.chessonline.dto.ClockSyncMessage;
 import com.chessonline.dto.GameResponse;
 import com.chessonline.dto.MakeMoveRequest;
 import com.chessonline.model.Game;
 import com.chessonline.service.GameService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.messaging.handler.annotation.DestinationVariable;
 import org.springframework.messaging.handler.annotation.MessageMapping;
@@ -16,6 +19,7 @@ import java.util.UUID;
 
 @Controller
 public class GameWebSocketController {
+    private static final Logger logger = LoggerFactory.getLogger(GameWebSocketController.class);
 
     @Autowired
     private GameService gameService;
@@ -39,13 +43,15 @@ public class GameWebSocketController {
             }
             UUID userId = UUID.fromString(principal.getName());
             
-            System.out.println("🎮 Received move: " + request.getMove() + " from user: " + userId + " in game: " + gameId);
-            
+            if (logger.isDebugEnabled()) {
+                logger.debug("Received move {} from user {} in game {}", request.getMove(), userId, gameId);
+            }
+
             // Execute move - makeMove() already sends WebSocket update internally
             gameService.makeMove(gameId, userId, request.getMove());
             
         } catch (Exception e) {
-            System.err.println("❌ Error processing move: " + e.getMessage());
+            logger.debug("Move rejected in game {}: {}", gameId, e.getMessage());
             // Send error only to current user
             if (principal != null && principal.getName() != null) {
                 messagingTemplate.convertAndSendToUser(
@@ -57,6 +63,28 @@ public class GameWebSocketController {
         }
     }
 
+    /**
+     * Request an authoritative clock snapshot (e.g. after reconnecting or returning to the tab)
+     * Client sends: /app/game/{gameId}/clock-sync
+     * Server replies to the requesting user only: /user/queue/clock
+     */
+    @MessageMapping("/game/{gameId}/clock-sync")
+    public void clockSync(@DestinationVariable String gameId, Principal principal) {
+        if (principal == null || principal.getName() == null) {
+            return;
+        }
+        try {
+            ClockSyncMessage snapshot = gameService.getClockSnapshot(gameId);
+            messagingTemplate.convertAndSendToUser(principal.getName(), "/queue/clock", snapshot);
+        } catch (Exception e) {
+            messagingTemplate.convertAndSendToUser(
+                principal.getName(),
+                "/queue/errors",
+                new ErrorMessage(e.getMessage())
+            );
+        }
+    }
+
     /**
      * Game subscription (client subscribes automatically to /topic/game/{gameId}/updates)
      */
@@ -6,7 +6,6 @@ import com.chessonline.model.Invite;
 import com.chessonline.model.Puzzle;
 import com.chessonline.repository.GameRepository;
 import com.chessonline.repository.InviteRepository;
-import com.chessonline.repository.MoveRepository;
 import com.chessonline.repository.PuzzleRepository;
 import com.chessonline.service.PuzzleService;
 import jakarta.servlet.http.HttpServletRequest;
@@ -55,9 +54,6 @@ public class MetaPreviewController {
     @Autowired
     private PuzzleService puzzleService;
 
-    @Autowired
-    private MoveRepository moveRepository;
-
     @GetMapping(value = "/invite/{inviteId}", produces = "text/html;charset=UTF-8")
     public ResponseEntity<String> inviteMeta(@PathVariable String inviteId, HttpServletRequest request) {
         String normalizedId = inviteId.toUpperCase();
@@ -105,7 +101,7 @@ public class MetaPreviewController {
             String speed = inferSpeed(game.getTimeControl());
             String tc = safe(game.getTimeControl(), "10+0");
             String ratedLabel = game.isRated() ? "rated" : "casual";
-            int plies = moveRepository.findByGameIdOrderByMoveNumber(game.getId()).size();
+            int plies = game.getPlyCount();
             int moves = (plies + 1) / 2;
             String result = safe(game.getResult(), "*");
             String reason = humanResultReason(game.getResultReason());
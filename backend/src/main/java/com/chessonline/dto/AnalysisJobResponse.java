@@ -0,0 +1,44 @@
+package com.chessonline.dto;
+
+import java.util.List;
+
+/**
+ * Snapshot of an analysis job. Moves analysed so far are included so a client
+ * that subscribes late can render them before live updates arrive.
+ */
+public class AnalysisJobResponse {
+    private String jobId;
+    private String gameId;
+    private String status;
+    private int completedMoves;
+    private int totalMoves;
+    private List<AnalysisResponse.MoveAnalysis> moves;
+    private AnalysisResponse result;
+    private String error;
+
+    public AnalysisJobResponse() {}
+
+    public String getJobId() { return jobId; }
+    public void setJobId(String jobId) { this.jobId = jobId; }
+
+    public String getGameId() { return gameId; }
+    public void setGameId(String gameId) { this.gameId = gameId; }
+
+    public String getStatus() { return status; }
+    public void setStatus(String status) { this.status = status; }
+
+    public int getCompletedMoves() { return completedMoves; }
+    public void setCompletedMoves(int completedMoves) { this.completedMoves = completedMoves; }
+
+    public int getTotalMoves() { return totalMoves; }
+    public void setTotalMoves(int totalMoves) { this.totalMoves = totalMoves; }
+
+    public List<AnalysisResponse.MoveAnalysis> getMoves() { return moves; }
+    public void setMoves(List<AnalysisResponse.MoveAnalysis> moves) { this.moves = moves; }
+
+    public AnalysisResponse getResult() { return result; }
+    public void setResult(AnalysisResponse result) { this.result = result; }
+
+    public String getError() { return error; }
+    public void setError(String error) { this.error = error; }
+}
@@ -0,0 +1,38 @@
+package com.chessonline.dto;
+
+/**
+ * Pushed to each submitting user on /user/queue/analysis: one "move" message per analysed move
+ * in game order, then a single "completed" (with the full result) or "failed" message.
+ */
+public class AnalysisProgressMessage {
+    private String jobId;
+    private String type;
+    private int index;
+    private int totalMoves;
+    private AnalysisResponse.MoveAnalysis move;
+    private AnalysisResponse result;
+    private String error;
+
+    public AnalysisProgressMessage() {}
+
+    public String getJobId() { return jobId; }
+    public void setJobId(String jobId) { this.jobId = jobId; }
+
+    public String getType() { return type; }
+    public void setType(String type) { this.type = type; }
+
+    public int getIndex() { return index; }
+    public void setIndex(int index) { this.index = index; }
+
+    public int getTotalMoves() { return totalMoves; }
+    public void setTotalMoves(int totalMoves) { this.totalMoves = totalMoves; }
+
+    public AnalysisResponse.MoveAnalysis getMove() { return move; }
+    public void setMove(AnalysisResponse.MoveAnalysis move) { this.move = move; }
+
+    public AnalysisResponse getResult() { return result; }
+    public void setResult(AnalysisResponse result) { this.result = result; }
+
+    public String getError() { return error; }
+    public void setError(String error) { this.error = error; }
+}
@@ -12,6 +12,9 @@ public class AnalysisResponse {
     private int whiteBlunders;
     private int blackBlunders;
     private List<MoveAnalysis> moves;
+    private boolean adaptive;        // Shallow scan, deep search only around critical moves
+    private int deepenedMoves;       // Moves re-searched at full depth in an adaptive analysis
+    private String opening;          // Opening family from the book, e.g. "Ruy_Lopez"
 
     public static class MoveAnalysis {
         private int moveNumber;
@@ -23,6 +26,9 @@ public class AnalysisResponse {
         private boolean isMistake;
         private boolean isInaccuracy;
         private boolean isBlunder;
+        private boolean deepened;     // Re-searched at full depth (adaptive analysis)
+        private boolean book;         // Opening book move, not evaluated by the engine
+        private String opening;       // Opening family of the book move, if known
 
         public MoveAnalysis() {}
 
@@ -62,6 +68,15 @@ public class AnalysisResponse {
 
         public boolean isBlunder() { return isBlunder; }
         public void setBlunder(boolean blunder) { isBlunder = blunder; }
+
+        public boolean isDeepened() { return deepened; }
+        public void setDeepened(boolean deepened) { this.deepened = deepened; }
+
+        public boolean isBook() { return book; }
+        public void setBook(boolean book) { this.book = book; }
+
+        public String getOpening() { return opening; }
+        public void setOpening(String opening) { this.opening = opening; }
     }
 
     public AnalysisResponse() {}
@@ -93,4 +108,13 @@ public class AnalysisResponse {
 
     public List<MoveAnalysis> getMoves() { return moves; }
     public void setMoves(List<MoveAnalysis> moves) { this.moves = moves; }
+
+    public boolean isAdaptive() { return adaptive; }
+    public void setAdaptive(boolean adaptive) { this.adaptive = adaptive; }
+
+    public int getDeepenedMoves() { return deepenedMoves; }
+    public void setDeepenedMoves(int deepenedMoves) { this.deepenedMoves = deepenedMoves; }
+
+    public String getOpening() { return opening; }
+    public void setOpening(String opening) { this.opening = opening; }
 }
@@ -0,0 +1,74 @@
+package com.chessonline.dto;
+
+/**
+ * Authoritative clock snapshot. Clients project the running clock locally
+ * from serverTimestamp until the next snapshot arrives.
+ */
+public class ClockSyncMessage {
+
+    private String gameId;
+    private String status;
+    private String sideToMove; // "w" or "b"
+    private boolean clockRunning;
+    private long whiteTimeLeftMs;
+    private long blackTimeLeftMs;
+    private long serverTimestamp; // epoch millis when the snapshot was taken
+
+    public ClockSyncMessage() {}
+
+    public String getGameId() {
+        return gameId;
+    }
+
+    public void setGameId(String gameId) {
+        this.gameId = gameId;
+    }
+
+    public String getStatus() {
+        return status;
+    }
+
+    public void setStatus(String status) {
+        this.status = status;
+    }
+
+    public String getSideToMove() {
+        return sideToMove;
+    }
+
+    public void setSideToMove(String sideToMove) {
+        this.sideToMove = sideToMove;
+    }
+
+    public boolean isClockRunning() {
+        return clockRunning;
+    }
+
+    public void setClockRunning(boolean clockRunning) {
+        this.clockRunning = clockRunning;
+    }
+
+    public long getWhiteTimeLeftMs() {
+        return whiteTimeLeftMs;
+    }
+
+    public void setWhiteTimeLeftMs(long whiteTimeLeftMs) {
+        this.whiteTimeLeftMs = whiteTimeLeftMs;
+    }
+
+    public long getBlackTimeLeftMs() {
+        return blackTimeLeftMs;
+    }
+
+    public void setBlackTimeLeftMs(long blackTimeLeftMs) {
+        this.blackTimeLeftMs = blackTimeLeftMs;
+    }
+
+    public long getServerTimestamp() {
+        return serverTimestamp;
+    }
+
+    public void setServerTimestamp(long serverTimestamp) {
+        this.serverTimestamp = serverTimestamp;
+    }
+}
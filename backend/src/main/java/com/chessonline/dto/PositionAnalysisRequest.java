@@ -0,0 +1,69 @@
+package com.chessonline.dto;
+
+public class PositionAnalysisRequest {
+    private String fen;
+    private Integer depth;       // Target depth (default 20 when no other limit is given)
+    private Long moveTimeMs;     // Time budget per search
+    private Long nodes;          // Node budget per search
+    private Integer multiPv;     // Number of top lines (default 1)
+    private Integer hashMb;      // Engine hash size for this search
+    private Integer threads;     // Engine threads for this search
+
+    public PositionAnalysisRequest() {}
+
+    public String getFen() {
+        return fen;
+    }
+
+    public void setFen(String fen) {
+        this.fen = fen;
+    }
+
+    public Integer getDepth() {
+        return depth;
+    }
+
+    public void setDepth(Integer depth) {
+        this.depth = depth;
+    }
+
+    public Long getMoveTimeMs() {
+        return moveTimeMs;
+    }
+
+    public void setMoveTimeMs(Long moveTimeMs) {
+        this.moveTimeMs = moveTimeMs;
+    }
+
+    public Long getNodes() {
+        return nodes;
+    }
+
+    public void setNodes(Long nodes) {
+        this.nodes = nodes;
+    }
+
+    public Integer getMultiPv() {
+        return multiPv;
+    }
+
+    public void setMultiPv(Integer multiPv) {
+        this.multiPv = multiPv;
+    }
+
+    public Integer getHashMb() {
+        return hashMb;
+    }
+
+    public void setHashMb(Integer hashMb) {
+        this.hashMb = hashMb;
+    }
+
+    public Integer getThreads() {
+        return threads;
+    }
+
+    public void setThreads(Integer threads) {
+        this.threads = threads;
+    }
+}
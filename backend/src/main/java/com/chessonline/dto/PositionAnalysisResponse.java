@@ -0,0 +1,33 @@
+package com.chessonline.dto;
+
+import com.chessonline.service.StockfishService;
+
+import java.util.List;
+
+public class PositionAnalysisResponse {
+    private String fen;
+    private List<StockfishService.PositionLine> lines; // Best line first
+
+    public PositionAnalysisResponse() {}
+
+    public PositionAnalysisResponse(String fen, List<StockfishService.PositionLine> lines) {
+        this.fen = fen;
+        this.lines = lines;
+    }
+
+    public String getFen() {
+        return fen;
+    }
+
+    public void setFen(String fen) {
+        this.fen = fen;
+    }
+
+    public List<StockfishService.PositionLine> getLines() {
+        return lines;
+    }
+
+    public void setLines(List<StockfishService.PositionLine> lines) {
+        this.lines = lines;
+    }
+}
@@ -55,6 +55,9 @@ public class Game {
     @Column(name = "last_move_at")
     private LocalDateTime lastMoveAt;
 
+    @Column(name = "ply_count", nullable = false)
+    private int plyCount; // Half-moves played, maintained by MoveJournalWriter together with move_codes
+
     @Column(name = "created_at", nullable = false, updatable = false)
     private LocalDateTime createdAt;
 
@@ -65,6 +68,10 @@ public class Game {
     @JoinColumn(name = "draw_offered_by_id")
     private User drawOfferedBy;
 
+    @Enumerated(EnumType.STRING)
+    @Column(name = "bot_difficulty", length = 16)
+    private BotDifficulty botDifficulty; // Set for games against the bot, which then replies on its own
+
     @PrePersist
     protected void onCreate() {
         if (id == null) {
@@ -199,6 +206,14 @@ public class Game {
         this.lastMoveAt = lastMoveAt;
     }
 
+    public int getPlyCount() {
+        return plyCount;
+    }
+
+    public void setPlyCount(int plyCount) {
+        this.plyCount = plyCount;
+    }
+
     public LocalDateTime getCreatedAt() {
         return createdAt;
     }
@@ -223,6 +238,14 @@ public class Game {
         this.drawOfferedBy = drawOfferedBy;
     }
 
+    public BotDifficulty getBotDifficulty() {
+        return botDifficulty;
+    }
+
+    public void setBotDifficulty(BotDifficulty botDifficulty) {
+        this.botDifficulty = botDifficulty;
+    }
+
     // Helper methods
     public boolean isActive() {
         return "active".equals(status);
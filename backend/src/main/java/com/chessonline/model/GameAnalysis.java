@@ -0,0 +1,83 @@
+package com.chessonline.model;
+
+import jakarta.persistence.*;
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+/**
+ * Stored engine analysis of a move sequence, so repeated requests do not recompute it
+ */
+@Entity
+@Table(name = "game_analyses", uniqueConstraints = {
+    @UniqueConstraint(columnNames = {"game_id", "moves_hash", "settings", "depth"})
+})
+public class GameAnalysis {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.AUTO)
+    private UUID id;
+
+    @Column(name = "game_id", nullable = false, length = 64)
+    private String gameId;
+
+    @Column(nullable = false)
+    private Integer depth;
+
+    // SHA-256 of the start position and move list
+    @Column(name = "moves_hash", nullable = false, length = 64)
+    private String movesHash;
+
+    // Analysis version and mode, see AnalysisService.settingsTag
+    @Column(nullable = false, length = 32)
+    private String settings;
+
+    // AnalysisResponse as JSON
+    @Column(nullable = false, columnDefinition = "TEXT")
+    private String result;
+
+    @Column(name = "created_at", nullable = false, updatable = false)
+    private LocalDateTime createdAt;
+
+    @PrePersist
+    protected void onCreate() {
+        createdAt = LocalDateTime.now();
+    }
+
+    public GameAnalysis() {}
+
+    public GameAnalysis(String gameId, int depth, String movesHash, String settings, String result) {
+        this.gameId = gameId;
+        this.depth = depth;
+        this.movesHash = movesHash;
+        this.settings = settings;
+        this.result = result;
+    }
+
+    public UUID getId() {
+        return id;
+    }
+
+    public String getGameId() {
+        return gameId;
+    }
+
+    public Integer getDepth() {
+        return depth;
+    }
+
+    public String getMovesHash() {
+        return movesHash;
+    }
+
+    public String getSettings() {
+        return settings;
+    }
+
+    public String getResult() {
+        return result;
+    }
+
+    public LocalDateTime getCreatedAt() {
+        return createdAt;
+    }
+}
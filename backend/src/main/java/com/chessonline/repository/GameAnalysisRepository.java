@@ -0,0 +1,18 @@
+package com.chessonline.repository;
+
+import com.chessonline.model.GameAnalysis;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.Optional;
+import java.util.UUID;
+
+@Repository
+public interface GameAnalysisRepository extends JpaRepository<GameAnalysis, UUID> {
+
+    /**
+     * Shallowest stored analysis of these moves searched at least as deep as requested
+     */
+    Optional<GameAnalysis> findFirstByGameIdAndMovesHashAndSettingsAndDepthGreaterThanEqualOrderByDepthAsc(
+            String gameId, String movesHash, String settings, Integer depth);
+}
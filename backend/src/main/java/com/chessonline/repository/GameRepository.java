@@ -1,7 +1,9 @@
 package com.chessonline.repository;
 
 import com.chessonline.model.Game;
+import com.chessonline.model.User;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
@@ -24,4 +26,8 @@ public interface GameRepository extends JpaRepository<Game, String> {
 
     @Query("SELECT g FROM Game g WHERE g.status = :status AND (g.playerWhite.id = :userId OR g.playerBlack.id = :userId) ORDER BY g.finishedAt DESC")
     List<Game> findFinishedGamesByUserId(@Param("status") String status, @Param("userId") UUID userId);
+
+    @Modifying
+    @Query("UPDATE Game g SET g.drawOfferedBy = :user WHERE g.id = :gameId")
+    int updateDrawOfferedBy(@Param("gameId") String gameId, @Param("user") User user);
 }
@@ -0,0 +1,109 @@
+package com.chessonline.service;
+
+import com.chessonline.dto.AnalysisRequest;
+import com.chessonline.dto.AnalysisResponse;
+import com.chessonline.dto.AnalysisResponse.MoveAnalysis;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * State of one asynchronous game analysis, shared by every request for the same game and settings
+ */
+public class AnalysisJob {
+
+    public enum Status {
+        QUEUED, RUNNING, COMPLETED, FAILED
+    }
+
+    private final String jobId;
+    private final String dedupeKey;
+    private final AnalysisRequest request;
+    private final long createdAt = System.currentTimeMillis();
+
+    private volatile Status status = Status.QUEUED;
+    private volatile int totalMoves;
+    private final List<MoveAnalysis> moves = new ArrayList<>();
+    private volatile AnalysisResponse result;
+    private volatile String error;
+    private volatile long finishedAt;
+    private final CompletableFuture<AnalysisResponse> completion = new CompletableFuture<>();
+    private final Set<String> viewers = ConcurrentHashMap.newKeySet();
+
+    public AnalysisJob(String jobId, String dedupeKey, AnalysisRequest request) {
+        this.jobId = jobId;
+        this.dedupeKey = dedupeKey;
+        this.request = request;
+    }
+
+    public String getJobId() { return jobId; }
+    public String getDedupeKey() { return dedupeKey; }
+    public AnalysisRequest getRequest() { return request; }
+    public String getGameId() { return request.getGameId(); }
+    public long getCreatedAt() { return createdAt; }
+    public Status getStatus() { return status; }
+    public int getTotalMoves() { return totalMoves; }
+    public AnalysisResponse getResult() { return result; }
+    public String getError() { return error; }
+    public long getFinishedAt() { return finishedAt; }
+
+    /**
+     * Completes with the result, or exceptionally with the job's error
+     */
+    public CompletableFuture<AnalysisResponse> getCompletion() {
+        return completion;
+    }
+
+    /**
+     * Users who submitted this job; only they may read it or receive its progress
+     */
+    public Set<String> getViewers() {
+        return viewers;
+    }
+
+    void addViewer(String userId) {
+        viewers.add(userId);
+    }
+
+    public boolean isFinished() {
+        return status == Status.COMPLETED || status == Status.FAILED;
+    }
+
+    void markRunning() {
+        status = Status.RUNNING;
+    }
+
+    synchronized void addMove(int totalMoves, MoveAnalysis analysis) {
+        this.totalMoves = totalMoves;
+        moves.add(analysis);
+    }
+
+    /**
+     * Moves analysed so far, in game order
+     */
+    public synchronized List<MoveAnalysis> getMoves() {
+        return new ArrayList<>(moves);
+    }
+
+    public synchronized int getCompletedMoves() {
+        return moves.size();
+    }
+
+    void complete(AnalysisResponse result) {
+        this.result = result;
+        this.totalMoves = result.getTotalMoves();
+        this.finishedAt = System.currentTimeMillis();
+        this.status = Status.COMPLETED;
+        completion.complete(result);
+    }
+
+    void fail(String error) {
+        this.error = error;
+        this.finishedAt = System.currentTimeMillis();
+        this.status = Status.FAILED;
+        completion.completeExceptionally(new RuntimeException(error));
+    }
+}
@@ -0,0 +1,235 @@
+package com.chessonline.service;
+
+import com.chessonline.dto.AnalysisJobResponse;
+import com.chessonline.dto.AnalysisProgressMessage;
+import com.chessonline.dto.AnalysisRequest;
+import com.chessonline.dto.AnalysisResponse;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Runs game analyses in the background.
+ * Submitting returns a job immediately; analysed moves are pushed to each submitting user
+ * on /user/queue/analysis in game order as they finish, followed by the full result.
+ * A job is only visible to the users who submitted it.
+ * Requests for the same game, moves, start position and depth share one job
+ * while it is running or retained (app.analysis.job-retention-minutes), and
+ * finished results are stored, so a repeated request is answered without the engine.
+ */
+@Service
+public class AnalysisJobService {
+    private static final Logger logger = LoggerFactory.getLogger(AnalysisJobService.class);
+
+    @Value("${app.analysis.job-threads:2}")
+    private int jobThreads;
+
+    @Value("${app.analysis.max-queued-jobs:100}")
+    private int maxQueuedJobs;
+
+    @Value("${app.analysis.job-retention-minutes:30}")
+    private long retentionMinutes;
+
+    @Autowired(required = false)
+    private SimpMessagingTemplate messagingTemplate;
+
+    private final AnalysisService analysisService;
+    private final AnalysisResultStore analysisResultStore;
+    private final Map<String, AnalysisJob> jobs = new ConcurrentHashMap<>();
+    private final Map<String, AnalysisJob> jobsByKey = new ConcurrentHashMap<>();
+    private ThreadPoolExecutor executor;
+
+    public AnalysisJobService(AnalysisService analysisService, AnalysisResultStore analysisResultStore) {
+        this.analysisService = analysisService;
+        this.analysisResultStore = analysisResultStore;
+    }
+
+    @PostConstruct
+    public void start() {
+        AtomicInteger threadIndex = new AtomicInteger();
+        executor = new ThreadPoolExecutor(jobThreads, jobThreads, 0L, TimeUnit.MILLISECONDS,
+                new LinkedBlockingQueue<>(maxQueuedJobs), r -> {
+                    Thread thread = new Thread(r, "analysis-job-" + threadIndex.getAndIncrement());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+    }
+
+    @PreDestroy
+    public void stop() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * Start an analysis for the user, or join the existing job for an identical request.
+     * A stored result comes back as an already completed job.
+     */
+    public AnalysisJob submit(AnalysisRequest request, String userId) {
+        int depth = analysisService.validateDepth(request.getDepth());
+        String settings = analysisService.settingsTag(depth);
+        String key = dedupeKey(request, depth, settings);
+        AnalysisJob existing = jobsByKey.get(key);
+        if (existing != null && existing.getStatus() != AnalysisJob.Status.FAILED) {
+            addViewer(existing, userId);
+            return existing;
+        }
+
+        AnalysisJob created = new AnalysisJob(UUID.randomUUID().toString(), key, request);
+        addViewer(created, userId);
+        AnalysisResponse stored = analysisResultStore.find(request, depth, settings);
+        if (stored != null) {
+            created.complete(stored);
+        }
+
+        AnalysisJob job = jobsByKey.compute(key, (k, current) ->
+                current != null && current.getStatus() != AnalysisJob.Status.FAILED ? current : created);
+        if (job != created) {
+            addViewer(job, userId);
+            logger.debug("Analysis for game {} joined existing job {}", request.getGameId(), job.getJobId());
+            return job;
+        }
+
+        jobs.put(created.getJobId(), created);
+        if (stored != null) {
+            logger.debug("Analysis for game {} served from storage", request.getGameId());
+            return created;
+        }
+        try {
+            executor.execute(() -> run(created, depth, settings));
+        } catch (RejectedExecutionException e) {
+            jobs.remove(created.getJobId());
+            jobsByKey.remove(key, created);
+            throw new RuntimeException("Too many analyses in progress, try again later");
+        }
+        logger.info("Queued analysis job {} for game {}", created.getJobId(), request.getGameId());
+        return created;
+    }
+
+    /**
+     * Analyse and wait for the result, sharing work with identical requests
+     */
+    public AnalysisResponse analyze(AnalysisRequest request) throws InterruptedException {
+        try {
+            return submit(request, null).getCompletion().get();
+        } catch (ExecutionException e) {
+            throw new RuntimeException(e.getCause().getMessage(), e.getCause());
+        }
+    }
+
+    /**
+     * The job, if the user submitted it; other users' jobs are reported as not found
+     */
+    public AnalysisJob getJob(String jobId, String userId) {
+        AnalysisJob job = jobs.get(jobId);
+        if (job == null || !job.getViewers().contains(userId)) {
+            throw new RuntimeException("Analysis job not found");
+        }
+        return job;
+    }
+
+    public AnalysisJobResponse toResponse(AnalysisJob job) {
+        AnalysisJobResponse response = new AnalysisJobResponse();
+        response.setJobId(job.getJobId());
+        response.setGameId(job.getGameId());
+        response.setStatus(job.getStatus().name());
+        response.setCompletedMoves(job.getCompletedMoves());
+        response.setTotalMoves(job.getTotalMoves());
+        response.setResult(job.getResult());
+        response.setError(job.getError());
+        if (job.getResult() == null) {
+            response.setMoves(job.getMoves());
+        }
+        return response;
+    }
+
+    /**
+     * Forget finished jobs after the retention period
+     */
+    @Scheduled(fixedDelay = 60000)
+    public void evictFinishedJobs() {
+        long cutoff = System.currentTimeMillis() - TimeUnit.MINUTES.toMillis(retentionMinutes);
+        jobs.values().removeIf(job -> {
+            if (job.isFinished() && job.getFinishedAt() < cutoff) {
+                jobsByKey.remove(job.getDedupeKey(), job);
+                return true;
+            }
+            return false;
+        });
+    }
+
+    private void run(AnalysisJob job, int depth, String settings) {
+        job.markRunning();
+        try {
+            AnalysisResponse result = analysisService.analyzeGame(job.getRequest(), (index, totalMoves, analysis) -> {
+                job.addMove(totalMoves, analysis);
+                AnalysisProgressMessage message = newMessage(job, "move");
+                message.setIndex(index);
+                message.setTotalMoves(totalMoves);
+                message.setMove(analysis);
+                publish(job, message);
+            });
+            job.complete(result);
+            analysisResultStore.save(job.getRequest(), depth, settings, result);
+            AnalysisProgressMessage message = newMessage(job, "completed");
+            message.setTotalMoves(result.getTotalMoves());
+            message.setResult(result);
+            publish(job, message);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            failJob(job, "Analysis interrupted");
+        } catch (Exception e) {
+            logger.error("Analysis job {} for game {} failed", job.getJobId(), job.getGameId(), e);
+            failJob(job, e.getMessage() != null ? e.getMessage() : "Analysis failed");
+        }
+    }
+
+    private void addViewer(AnalysisJob job, String userId) {
+        if (userId != null) {
+            job.addViewer(userId);
+        }
+    }
+
+    private void failJob(AnalysisJob job, String error) {
+        job.fail(error);
+        // A failed job is not reused; the next identical request starts over
+        jobsByKey.remove(job.getDedupeKey(), job);
+        AnalysisProgressMessage message = newMessage(job, "failed");
+        message.setError(error);
+        publish(job, message);
+    }
+
+    private AnalysisProgressMessage newMessage(AnalysisJob job, String type) {
+        AnalysisProgressMessage message = new AnalysisProgressMessage();
+        message.setJobId(job.getJobId());
+        message.setType(type);
+        return message;
+    }
+
+    private void publish(AnalysisJob job, AnalysisProgressMessage message) {
+        if (messagingTemplate != null) {
+            for (String userId : job.getViewers()) {
+                messagingTemplate.convertAndSendToUser(userId, "/queue/analysis", message);
+            }
+        }
+    }
+
+    private String dedupeKey(AnalysisRequest request, int depth, String settings) {
+        return request.getGameId() + ":" + depth + ":" + settings + ":" + AnalysisResultStore.movesHash(request);
+    }
+}
@@ -0,0 +1,82 @@
+package com.chessonline.service;
+
+import com.chessonline.dto.AnalysisRequest;
+import com.chessonline.dto.AnalysisResponse;
+import com.chessonline.model.GameAnalysis;
+import com.chessonline.repository.GameAnalysisRepository;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.dao.DataAccessException;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+
+/**
+ * Finished analyses in game_analyses, keyed by game id, depth, a hash of the
+ * start position and moves (so ad-hoc move lists under the same id never collide)
+ * and the settings tag of the analysis (so results of another mode or version are not served).
+ */
+@Component
+public class AnalysisResultStore {
+    private static final Logger logger = LoggerFactory.getLogger(AnalysisResultStore.class);
+
+    private final GameAnalysisRepository gameAnalysisRepository;
+    private final ObjectMapper objectMapper;
+
+    public AnalysisResultStore(GameAnalysisRepository gameAnalysisRepository, ObjectMapper objectMapper) {
+        this.gameAnalysisRepository = gameAnalysisRepository;
+        this.objectMapper = objectMapper;
+    }
+
+    /**
+     * Stored analysis at the given depth or deeper, or null
+     */
+    public AnalysisResponse find(AnalysisRequest request, int depth, String settings) {
+        return gameAnalysisRepository
+                .findFirstByGameIdAndMovesHashAndSettingsAndDepthGreaterThanEqualOrderByDepthAsc(
+                        request.getGameId(), movesHash(request), settings, depth)
+                .map(stored -> {
+                    try {
+                        return objectMapper.readValue(stored.getResult(), AnalysisResponse.class);
+                    } catch (JsonProcessingException e) {
+                        logger.warn("Unreadable stored analysis {}: {}", stored.getId(), e.getMessage());
+                        return null;
+                    }
+                })
+                .orElse(null);
+    }
+
+    public void save(AnalysisRequest request, int depth, String settings, AnalysisResponse result) {
+        try {
+            gameAnalysisRepository.save(new GameAnalysis(
+                    request.getGameId(), depth, movesHash(request), settings, objectMapper.writeValueAsString(result)));
+        } catch (DataIntegrityViolationException e) {
+            logger.debug("Analysis of game {} at depth {} already stored", request.getGameId(), depth);
+        } catch (DataAccessException e) {
+            // Storage is an optimisation; the computed result is still returned
+            logger.warn("Could not store analysis of game {}: {}", request.getGameId(), e.getMessage());
+        } catch (JsonProcessingException e) {
+            logger.warn("Could not serialize analysis of game {}: {}", request.getGameId(), e.getMessage());
+        }
+    }
+
+    /**
+     * SHA-256 (hex) of the start position and move list
+     */
+    public static String movesHash(AnalysisRequest request) {
+        String startFen = request.getStartFen() != null ? request.getStartFen() : "";
+        String content = startFen + "\n" + String.join(" ", request.getMoves());
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(digest.digest(content.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+}
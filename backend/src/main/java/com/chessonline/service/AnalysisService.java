@@ -4,21 +4,31 @@ import com.chessonline.dto.AnalysisRequest;
 import com.chessonline.dto.AnalysisResponse;
 import com.chessonline.dto.AnalysisResponse.MoveAnalysis;
 import com.github.bhlangonijr.chesslib.Board;
+import com.github.bhlangonijr.chesslib.Piece;
+import com.github.bhlangonijr.chesslib.PieceType;
 import com.github.bhlangonijr.chesslib.move.Move;
 import com.github.bhlangonijr.chesslib.move.MoveGeneratorException;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
 import java.io.IOException;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
 
 @Service
 public class AnalysisService {
     private static final Logger logger = LoggerFactory.getLogger(AnalysisService.class);
     
     private final StockfishService stockfishService;
+    private final StockfishEnginePool enginePool;
+    private final OpeningBook openingBook;
 
     // Threshold values in centipawns
     private static final int BLUNDER_THRESHOLD = 300;      // 3.0 pawns - gross error
@@ -30,9 +40,28 @@ public class AnalysisService {
     private static final int MIN_DEPTH = 5;
     private static final int MAX_DEPTH = 15;
     private static final int MAX_GAME_LENGTH_FOR_ANALYSIS = 200; // No hard limit, allow full games
+    private static final int SCAN_DEPTH = 6; // First pass of an adaptive analysis
+    private static final int ANALYSIS_VERSION = 1; // Bump when search or classification changes stored results
 
-    public AnalysisService(StockfishService stockfishService) {
+    // Engines one game analysis may use at once (0 = the whole pool)
+    @Value("${app.analysis.max-engines:0}")
+    private int maxEngines;
+
+    // Scan every position shallow and search deep only around critical moves
+    @Value("${app.analysis.adaptive:true}")
+    private boolean adaptiveEnabled;
+
+    public AnalysisService(StockfishService stockfishService, StockfishEnginePool enginePool, OpeningBook openingBook) {
         this.stockfishService = stockfishService;
+        this.enginePool = enginePool;
+        this.openingBook = openingBook;
+    }
+
+    /**
+     * Receives move analyses in game order as soon as both positions around a move are evaluated
+     */
+    public interface ProgressListener {
+        void onMoveAnalyzed(int index, int totalMoves, MoveAnalysis analysis);
     }
 
     /**
@@ -41,6 +70,10 @@ public class AnalysisService {
      * @return Complete game analysis with move evaluations and accuracy metrics
      */
     public AnalysisResponse analyzeGame(AnalysisRequest request) throws IOException, InterruptedException, MoveGeneratorException {
+        return analyzeGame(request, null);
+    }
+
+    public AnalysisResponse analyzeGame(AnalysisRequest request, ProgressListener listener) throws IOException, InterruptedException, MoveGeneratorException {
         long startTime = System.currentTimeMillis();
         logger.info("Starting analysis for game: {} with {} moves", request.getGameId(), request.getMoves().size());
         
@@ -55,180 +88,488 @@ public class AnalysisService {
             moves = moves.subList(0, MAX_GAME_LENGTH_FOR_ANALYSIS);
         }
 
-        // Start persistent Stockfish engine
-        stockfishService.startEngine();
+        // Replay the game once, then evaluate every distinct position exactly once
+        Board board = new Board();
+        if (request.getStartFen() != null && !request.getStartFen().isEmpty()) {
+            board.loadFromFen(request.getStartFen());
+        }
+        List<PlayedMove> plies = replayMoves(board, moves);
+
+        // fens[0] is the starting position, fens[i + 1] the position after ply i;
+        // finished positions (mate/stalemate) and positions with only book moves
+        // around them are null and not sent to the engine
+        String[] fens = new String[plies.size() + 1];
+        fens[0] = plies.isEmpty() || plies.get(0).bookMove != null ? null : plies.get(0).fenBefore;
+        for (int i = 0; i < plies.size(); i++) {
+            PlayedMove ply = plies.get(i);
+            boolean needed = ply.bookMove == null || (i + 1 < plies.size() && plies.get(i + 1).bookMove == null);
+            fens[i + 1] = ply.mated || ply.stalemate || !needed ? null : ply.fenAfter;
+        }
+
+        MoveEmitter emitter = new MoveEmitter(plies, fens, listener);
+        emitter.drain();
+        boolean adaptive = isAdaptive(depth);
+        int deepenedMoves = evaluatePositions(plies, fens, depth, adaptive, emitter);
+        List<MoveAnalysis> moveAnalyses = emitter.results();
+
+        int whiteMistakes = 0, whiteBlunders = 0, whiteInaccuracies = 0;
+        int blackMistakes = 0, blackBlunders = 0, blackInaccuracies = 0;
+        for (MoveAnalysis analysis : moveAnalyses) {
+            if (analysis.isWhiteMove()) {
+                if (analysis.isBlunder()) whiteBlunders++;
+                if (analysis.isMistake()) whiteMistakes++;
+                if (analysis.isInaccuracy()) whiteInaccuracies++;
+            } else {
+                if (analysis.isBlunder()) blackBlunders++;
+                if (analysis.isMistake()) blackMistakes++;
+                if (analysis.isInaccuracy()) blackInaccuracies++;
+            }
+        }
+
+        // Calculate accuracies
+        int whiteMovesCount = (int) moveAnalyses.stream().filter(MoveAnalysis::isWhiteMove).count();
+        int blackMovesCount = (int) moveAnalyses.stream().filter(m -> !m.isWhiteMove()).count();
+
+        double whiteAccuracy = calculateAccuracy(whiteMovesCount, whiteInaccuracies, whiteMistakes, whiteBlunders);
+        double blackAccuracy = calculateAccuracy(blackMovesCount, blackInaccuracies, blackMistakes, blackBlunders);
+
+        // Build response
+        AnalysisResponse response = new AnalysisResponse();
+        response.setGameId(request.getGameId());
+        response.setTotalMoves(moveAnalyses.size());
+        response.setWhiteAccuracy(whiteAccuracy);
+        response.setBlackAccuracy(blackAccuracy);
+        response.setWhiteMistakes(whiteMistakes);
+        response.setBlackMistakes(blackMistakes);
+        response.setWhiteBlunders(whiteBlunders);
+        response.setBlackBlunders(blackBlunders);
+        response.setMoves(moveAnalyses);
+        response.setAdaptive(adaptive);
+        response.setDeepenedMoves(deepenedMoves);
+        response.setOpening(openingName(plies));
+
+        long totalTime = System.currentTimeMillis() - startTime;
+        logger.info("Analysis completed for game: {} (White: {}%, Black: {}%, deepened: {}/{}, time: {}ms)", 
+                   request.getGameId(), (int) whiteAccuracy, (int) blackAccuracy,
+                   deepenedMoves, moveAnalyses.size(), totalTime);
         
-        try {
-            Board board = new Board();
-            if (request.getStartFen() != null && !request.getStartFen().isEmpty()) {
-                board.loadFromFen(request.getStartFen());
+        return response;
+    }
+
+    /**
+     * Evaluate and classify one ply from the evaluations before and after it
+     */
+    private MoveAnalysis analyzePly(PlayedMove ply, StockfishService.PositionEvaluation prevEval,
+                                    StockfishService.PositionEvaluation engineAfterEval) {
+        if (ply.bookMove != null) {
+            // Theory: no engine evaluation and never classified as an error
+            MoveAnalysis analysis = new MoveAnalysis(ply.moveNumber, ply.whiteMove, ply.san, 0, ply.bookMove.getMove());
+            analysis.setBook(true);
+            analysis.setOpening(ply.bookMove.getName());
+            return analysis;
+        }
+        boolean isWhiteMove = ply.whiteMove;
+        String sanMove = ply.san;
+        int moveNumber = ply.moveNumber;
+        StockfishService.PositionEvaluation afterEval;
+
+        if (ply.mated) {
+            // For checkmate, set a mate evaluation from White's perspective (already converted)
+            // If white just moved and it's checkmate, black got mated (white wins) → +10000
+            // If black just moved and it's checkmate, white got mated (black wins) → -10000
+            int mateEval = isWhiteMove ? 10000 : -10000;
+            afterEval = new StockfishService.PositionEvaluation(mateEval, "", true, 0);
+            logger.info("Move {}{} {} - Checkmate! Winner: {}", 
+                moveNumber, isWhiteMove ? "." : "...", sanMove, isWhiteMove ? "White" : "Black");
+        } else if (ply.stalemate) {
+            afterEval = new StockfishService.PositionEvaluation(0, "", false, 0);
+            logger.info("Move {}{} {} - Game ended (stalemate)", 
+                moveNumber, isWhiteMove ? "." : "...", sanMove);
+        } else {
+            afterEval = engineAfterEval;
+            
+            // Log evaluation details for debugging
+            if (afterEval.isMate()) {
+                logger.info("Move {}{} {} - Mate score: mateIn={}, eval={}", 
+                    moveNumber, isWhiteMove ? "." : "...", sanMove, 
+                    afterEval.getMateIn(), afterEval.getEvaluation());
             }
+        }
 
-            List<MoveAnalysis> moveAnalyses = new ArrayList<>();
-            int whiteMistakes = 0, whiteBlunders = 0, whiteInaccuracies = 0;
-            int blackMistakes = 0, blackBlunders = 0, blackInaccuracies = 0;
+        // Stockfish returns evaluation from perspective of side to move in the position
+        // We want to display evaluation from White's perspective (standard convention)
+        // After White's move: next side to move is Black, so Stockfish returns Black's perspective → invert
+        // After Black's move: next side to move is White, so Stockfish returns White's perspective → keep as is
+        // Exception: For checkmate on board, evaluation is already from White's perspective
+        int displayEvaluation;
+        int displayBestEvaluation;
+        
+        if (ply.mated) {
+            // Checkmate eval is already from White's perspective, don't invert
+            displayEvaluation = afterEval.getEvaluation();
+            displayBestEvaluation = isWhiteMove ? -prevEval.getEvaluation() : prevEval.getEvaluation();
+        } else {
+            // Normal conversion with inversion for white moves
+            displayEvaluation = isWhiteMove ? -afterEval.getEvaluation() : afterEval.getEvaluation();
+            displayBestEvaluation = isWhiteMove ? -prevEval.getEvaluation() : prevEval.getEvaluation();
+        }
 
-            StockfishService.PositionEvaluation prevEval = null;
-            int moveNumber = 1;
+        // Create move analysis
+        MoveAnalysis analysis = new MoveAnalysis(
+            moveNumber,
+            isWhiteMove,
+            sanMove,
+            displayEvaluation,
+            prevEval.getBestMove()
+        );
+        analysis.setBestEvaluation(displayBestEvaluation);
+
+        // Don't classify moves as mistakes if:
+        // 1. Mate/checkmate is detected
+        // 2. The move matches the recommended best move
+        // 3. Previous position was in checkmate
+        boolean isBestMove = sanMove.equals(prevEval.getBestMove());
+        int evaluationDelta = 0;
+        
+        if (!afterEval.isMate() && !isBestMove && !prevEval.isMate()) {
+            // Calculate evaluation loss/gain (from perspective of player who made the move)
+            evaluationDelta = calculateEvaluationDelta(prevEval.getEvaluation(), 
+                                                           afterEval.getEvaluation(), 
+                                                           isWhiteMove);
+
+            // Classify the move
+            if (evaluationDelta >= BLUNDER_THRESHOLD) {
+                analysis.setBlunder(true);
+            } else if (evaluationDelta >= MISTAKE_THRESHOLD) {
+                analysis.setMistake(true);
+            } else if (evaluationDelta >= INACCURACY_THRESHOLD) {
+                analysis.setInaccuracy(true);
+            }
+        }
 
-            for (String sanMove : moves) {
-                long moveStartTime = System.currentTimeMillis();
-                boolean isWhiteMove = board.getSideToMove().name().equals("WHITE");
-                
-                // Get evaluation before the move
-                String fenBeforeMove = board.getFen();
-                if (prevEval == null) {
-                    // First move - analyze starting position
-                    prevEval = stockfishService.analyzePositionWithEngine(fenBeforeMove, depth);
-                }
+        logger.debug("Analyzed move {}: {} (delta: {}cp)", moveNumber, sanMove, evaluationDelta);
+        return analysis;
+    }
 
-                // Make the move
-                Move move = parseMove(board, sanMove);
-                if (move == null) {
-                    logger.error("Could not parse move: {}", sanMove);
-                    continue;
-                }
-                board.doMove(move);
+    /**
+     * Turns evaluated positions into move analyses in game order.
+     * Workers report positions as they finish; a move is emitted once the positions
+     * before and after it are known and every earlier move has been emitted.
+     */
+    private class MoveEmitter {
+        private final List<PlayedMove> plies;
+        private final ProgressListener listener;
+        private final StockfishService.PositionEvaluation[] evals;
+        private final boolean[] ready;
+        private final boolean[] deepened;
+        private final List<MoveAnalysis> results;
+        private int next;
+
+        MoveEmitter(List<PlayedMove> plies, String[] fens, ProgressListener listener) {
+            this.plies = plies;
+            this.listener = listener;
+            this.evals = new StockfishService.PositionEvaluation[fens.length];
+            this.ready = new boolean[fens.length];
+            this.deepened = new boolean[plies.size()];
+            this.results = new ArrayList<>(plies.size());
+            for (int i = 0; i < fens.length; i++) {
+                ready[i] = fens[i] == null; // finished positions need no engine
+            }
+        }
 
-                // Check if game ended with this move (checkmate or stalemate)
-                // Do not stop on claimable draws (threefold/50-move) since the game can continue.
-                boolean gameEnded = board.isMated() || board.isStaleMate();
-                
-                // Get evaluation after the move
-                String fenAfterMove = board.getFen();
-                StockfishService.PositionEvaluation afterEval;
-                
-                if (gameEnded && board.isMated()) {
-                    // For checkmate, set a mate evaluation from White's perspective (already converted)
-                    // If white just moved and it's checkmate, black got mated (white wins) → +10000
-                    // If black just moved and it's checkmate, white got mated (black wins) → -10000
-                    int mateEval = isWhiteMove ? 10000 : -10000;
-                    afterEval = new StockfishService.PositionEvaluation(mateEval, "", true, 0);
-                    logger.info("Move {}{} {} - Checkmate! Winner: {}", 
-                        moveNumber, isWhiteMove ? "." : "...", sanMove, isWhiteMove ? "White" : "Black");
-                } else if (gameEnded) {
-                    // Stalemate
-                    afterEval = new StockfishService.PositionEvaluation(0, "", false, 0);
-                    logger.info("Move {}{} {} - Game ended (stalemate)", 
-                        moveNumber, isWhiteMove ? "." : "...", sanMove);
-                } else {
-                    // Normal position, analyze with Stockfish
-                    afterEval = stockfishService.analyzePositionWithEngine(fenAfterMove, depth);
-                    
-                    // Log evaluation details for debugging
-                    if (afterEval.isMate()) {
-                        logger.info("Move {}{} {} - Mate score: mateIn={}, eval={}", 
-                            moveNumber, isWhiteMove ? "." : "...", sanMove, 
-                            afterEval.getMateIn(), afterEval.getEvaluation());
+        synchronized void positionEvaluated(int index, StockfishService.PositionEvaluation evaluation) {
+            evals[index] = evaluation;
+            ready[index] = true;
+            drain();
+        }
+
+        /**
+         * Emit every move that is ready, in order; moves needing no engine go out right away
+         */
+        synchronized void drain() {
+            while (next < plies.size() && ready[next] && ready[next + 1]) {
+                MoveAnalysis analysis = analyzePly(plies.get(next), evals[next], evals[next + 1]);
+                analysis.setDeepened(deepened[next]);
+                results.add(analysis);
+                if (listener != null) {
+                    try {
+                        listener.onMoveAnalyzed(next, plies.size(), analysis);
+                    } catch (RuntimeException e) {
+                        logger.warn("Analysis progress listener failed: {}", e.getMessage());
                     }
                 }
+                next++;
+            }
+        }
 
-                // Stockfish returns evaluation from perspective of side to move in the position
-                // We want to display evaluation from White's perspective (standard convention)
-                // After White's move: next side to move is Black, so Stockfish returns Black's perspective → invert
-                // After Black's move: next side to move is White, so Stockfish returns White's perspective → keep as is
-                // Exception: For checkmate on board, evaluation is already from White's perspective
-                int displayEvaluation;
-                int displayBestEvaluation;
-                
-                if (gameEnded && board.isMated()) {
-                    // Checkmate eval is already from White's perspective, don't invert
-                    displayEvaluation = afterEval.getEvaluation();
-                    displayBestEvaluation = isWhiteMove ? -prevEval.getEvaluation() : prevEval.getEvaluation();
-                } else {
-                    // Normal conversion with inversion for white moves
-                    displayEvaluation = isWhiteMove ? -afterEval.getEvaluation() : afterEval.getEvaluation();
-                    displayBestEvaluation = isWhiteMove ? -prevEval.getEvaluation() : prevEval.getEvaluation();
-                }
+        /**
+         * Flag moves whose positions are re-searched; call before their evaluations arrive
+         */
+        synchronized void markDeepened(int ply) {
+            deepened[ply] = true;
+        }
 
-                // Create move analysis
-                MoveAnalysis analysis = new MoveAnalysis(
-                    moveNumber,
-                    isWhiteMove,
-                    sanMove,
-                    displayEvaluation,
-                    prevEval.getBestMove()
-                );
-                analysis.setBestEvaluation(displayBestEvaluation);
-
-                // Don't classify moves as mistakes if:
-                // 1. Mate/checkmate is detected
-                // 2. The move matches the recommended best move
-                // 3. Previous position was in checkmate
-                boolean isBestMove = sanMove.equals(prevEval.getBestMove());
-                int evaluationDelta = 0;
-                
-                if (!afterEval.isMate() && !isBestMove && !prevEval.isMate()) {
-                    // Calculate evaluation loss/gain (from perspective of player who made the move)
-                    evaluationDelta = calculateEvaluationDelta(prevEval.getEvaluation(), 
-                                                                   afterEval.getEvaluation(), 
-                                                                   isWhiteMove);
-
-                    // Classify the move
-                    if (evaluationDelta >= BLUNDER_THRESHOLD) {
-                        analysis.setBlunder(true);
-                        if (isWhiteMove) whiteBlunders++; else blackBlunders++;
-                    } else if (evaluationDelta >= MISTAKE_THRESHOLD) {
-                        analysis.setMistake(true);
-                        if (isWhiteMove) whiteMistakes++; else blackMistakes++;
-                    } else if (evaluationDelta >= INACCURACY_THRESHOLD) {
-                        analysis.setInaccuracy(true);
-                        if (isWhiteMove) whiteInaccuracies++; else blackInaccuracies++;
-                    }
-                }
+        synchronized List<MoveAnalysis> results() {
+            return results;
+        }
+    }
 
-                moveAnalyses.add(analysis);
-                prevEval = afterEval;
-                
-                // Stop analysis if game ended
-                if (gameEnded) {
-                    logger.info("Analysis completed. Game ended after move {}.", sanMove);
-                    break;
+    /**
+     * A ply of the game with the positions around it
+     */
+    private static class PlayedMove {
+        private final String san;
+        private final boolean whiteMove;
+        private final int moveNumber;
+        private final String fenBefore;
+        private final String fenAfter;
+        private final boolean mated;
+        private final boolean stalemate;
+        private final boolean tactical;   // capture, promotion, check given or check evaded
+        private final boolean onlyMove;   // the only legal move in the position
+        private final OpeningBook.BookMove bookMove; // set while the game follows the book
+
+        PlayedMove(String san, boolean whiteMove, int moveNumber, String fenBefore, String fenAfter,
+                   boolean mated, boolean stalemate, boolean tactical, boolean onlyMove,
+                   OpeningBook.BookMove bookMove) {
+            this.san = san;
+            this.whiteMove = whiteMove;
+            this.moveNumber = moveNumber;
+            this.fenBefore = fenBefore;
+            this.fenAfter = fenAfter;
+            this.mated = mated;
+            this.stalemate = stalemate;
+            this.tactical = tactical;
+            this.onlyMove = onlyMove;
+            this.bookMove = bookMove;
+        }
+    }
+
+    /**
+     * Play the moves on the board, skipping ones that cannot be parsed and stopping at mate or stalemate.
+     * Claimable draws (threefold/50-move) do not stop the replay since the game can continue.
+     */
+    private List<PlayedMove> replayMoves(Board board, List<String> moves) {
+        List<PlayedMove> plies = new ArrayList<>(moves.size());
+        int moveNumber = 1;
+        boolean inBook = true;
+        for (String sanMove : moves) {
+            boolean isWhiteMove = board.getSideToMove().name().equals("WHITE");
+            String fenBefore = board.getFen();
+            Move move = parseMove(board, sanMove);
+            if (move == null) {
+                logger.error("Could not parse move: {}", sanMove);
+                continue;
+            }
+            boolean onlyMove = board.legalMoves().size() == 1;
+            boolean tactical = board.isKingAttacked()
+                    || board.getPiece(move.getTo()) != Piece.NONE
+                    || move.getPromotion() != Piece.NONE
+                    || (move.getTo() == board.getEnPassant()
+                        && board.getPiece(move.getFrom()).getPieceType() == PieceType.PAWN);
+            // Book moves count only while every earlier move was also in the book
+            OpeningBook.BookMove bookMove = inBook ? openingBook.find(board, move.toString()) : null;
+            inBook = bookMove != null;
+            board.doMove(move);
+            tactical |= board.isKingAttacked();
+            boolean mated = board.isMated();
+            boolean stalemate = !mated && board.isStaleMate();
+            if (mated || stalemate) {
+                bookMove = null;
+            }
+            plies.add(new PlayedMove(sanMove, isWhiteMove, moveNumber, fenBefore, board.getFen(),
+                    mated, stalemate, tactical, onlyMove, bookMove));
+            if (mated || stalemate) {
+                break;
+            }
+            if (!isWhiteMove) {
+                moveNumber++;
+            }
+        }
+        return plies;
+    }
+
+    /**
+     * Evaluate the game's positions and feed them to the emitter.
+     * A uniform analysis searches every position at the requested depth. An adaptive one
+     * scans every position at SCAN_DEPTH first, hands the positions around quiet moves to
+     * the emitter as they are, and re-searches at full depth only the positions around
+     * critical moves (see {@link #isCritical}).
+     * @return number of moves whose positions were re-searched
+     */
+    private int evaluatePositions(List<PlayedMove> plies, String[] fens, int depth, boolean adaptive,
+                                  MoveEmitter emitter) throws IOException, InterruptedException {
+        List<Integer> all = new ArrayList<>(fens.length);
+        for (int i = 0; i < fens.length; i++) {
+            if (fens[i] != null) {
+                all.add(i);
+            }
+        }
+        if (all.isEmpty()) {
+            return 0; // the whole game is book moves
+        }
+
+        List<StockfishEngine> engines = acquireEngines(all.size());
+        try {
+            if (!adaptive) {
+                runPass(engines, fens, all, depth, emitter::positionEvaluated);
+                return 0;
+            }
+
+            StockfishService.PositionEvaluation[] scan = new StockfishService.PositionEvaluation[fens.length];
+            runPass(engines, fens, all, SCAN_DEPTH, (i, evaluation) -> scan[i] = evaluation);
+
+            boolean[] deep = new boolean[fens.length];
+            int deepenedMoves = 0;
+            for (int i = 0; i < plies.size(); i++) {
+                if (isCritical(plies.get(i), scan[i], scan[i + 1])) {
+                    emitter.markDeepened(i);
+                    deep[i] = fens[i] != null;
+                    deep[i + 1] = fens[i + 1] != null;
+                    deepenedMoves++;
                 }
-                
-                if (!isWhiteMove) {
-                    moveNumber++;
+            }
+
+            List<Integer> deepIndices = new ArrayList<>();
+            for (int i = 0; i < fens.length; i++) {
+                if (deep[i]) {
+                    deepIndices.add(i);
+                } else if (fens[i] != null) {
+                    emitter.positionEvaluated(i, scan[i]);
                 }
+            }
+            runPass(engines, fens, deepIndices, depth, emitter::positionEvaluated);
+            logger.debug("Adaptive analysis deepened {} of {} moves ({} positions)",
+                    deepenedMoves, plies.size(), deepIndices.size());
+            return deepenedMoves;
+        } finally {
+            for (StockfishEngine engine : engines) {
+                enginePool.release(engine);
+            }
+        }
+    }
+
+    /**
+     * A move worth a full-depth search: the scan shows a swing of at least an inaccuracy
+     * or a mate score, the position is tactical, or the move was forced
+     */
+    private boolean isCritical(PlayedMove ply, StockfishService.PositionEvaluation before,
+                               StockfishService.PositionEvaluation after) {
+        if (ply.bookMove != null) {
+            return false;
+        }
+        if (ply.tactical || ply.onlyMove) {
+            return true;
+        }
+        if (before == null || after == null) {
+            return false; // game over after this move; nothing to deepen
+        }
+        if (before.isMate() || after.isMate()) {
+            return true;
+        }
+        // The engine scores from the side to move, so the position after the move is negated
+        int swing = Math.abs(before.getEvaluation() + after.getEvaluation());
+        return swing >= INACCURACY_THRESHOLD;
+    }
 
-                long moveAnalysisTime = System.currentTimeMillis() - moveStartTime;
-                logger.debug("Analyzed move {}: {} (delta: {}cp, time: {}ms)", 
-                            moveNumber, sanMove, evaluationDelta, moveAnalysisTime);
+    private interface PositionConsumer {
+        void accept(int index, StockfishService.PositionEvaluation evaluation);
+    }
+
+    /**
+     * Wait for one engine; take more, up to app.analysis.max-engines, only if they are idle
+     * so bot moves are not starved
+     */
+    private List<StockfishEngine> acquireEngines(int positions) throws InterruptedException {
+        int parallelism = Math.min(positions, maxEngines > 0 ? maxEngines : enginePool.getPoolSize());
+        List<StockfishEngine> engines = new ArrayList<>();
+        engines.add(enginePool.acquire());
+        while (engines.size() < parallelism) {
+            StockfishEngine engine = enginePool.tryAcquire();
+            if (engine == null) {
+                break;
             }
+            engines.add(engine);
+        }
+        return engines;
+    }
 
-            // Calculate accuracies
-            int whiteMovesCount = (int) moveAnalyses.stream().filter(MoveAnalysis::isWhiteMove).count();
-            int blackMovesCount = (int) moveAnalyses.stream().filter(m -> !m.isWhiteMove()).count();
-
-            double whiteAccuracy = calculateAccuracy(whiteMovesCount, whiteInaccuracies, whiteMistakes, whiteBlunders);
-            double blackAccuracy = calculateAccuracy(blackMovesCount, blackInaccuracies, blackMistakes, blackBlunders);
-
-            // Build response
-            AnalysisResponse response = new AnalysisResponse();
-            response.setGameId(request.getGameId());
-            response.setTotalMoves(moveAnalyses.size());
-            response.setWhiteAccuracy(whiteAccuracy);
-            response.setBlackAccuracy(blackAccuracy);
-            response.setWhiteMistakes(whiteMistakes);
-            response.setBlackMistakes(blackMistakes);
-            response.setWhiteBlunders(whiteBlunders);
-            response.setBlackBlunders(blackBlunders);
-            response.setMoves(moveAnalyses);
-
-            long totalTime = System.currentTimeMillis() - startTime;
-            logger.info("Analysis completed for game: {} (White: {}%, Black: {}%, time: {}ms)", 
-                       request.getGameId(), (int) whiteAccuracy, (int) blackAccuracy, totalTime);
-            
-            return response;
-        } finally {
-            // Always stop the engine
-            stockfishService.stopEngine();
+    /**
+     * Evaluate the given positions in parallel, one worker per engine.
+     * Workers take the next index in order, so early plies (usually cache hits) go first
+     * and the slowest positions are spread over all engines. Null positions are skipped.
+     */
+    private void runPass(List<StockfishEngine> engines, String[] fens, List<Integer> indices, int depth,
+                         PositionConsumer consumer) throws IOException, InterruptedException {
+        AtomicInteger next = new AtomicInteger();
+        List<Future<Void>> workers = new ArrayList<>(engines.size());
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (StockfishEngine engine : engines) {
+                workers.add(executor.submit(() -> {
+                    try {
+                        int n;
+                        while ((n = next.getAndIncrement()) < indices.size()) {
+                            int i = indices.get(n);
+                            if (fens[i] != null) {
+                                consumer.accept(i, stockfishService.analyzePositionWithEngine(engine, fens[i], depth));
+                            }
+                        }
+                    } catch (Exception e) {
+                        next.set(indices.size()); // stop the other workers
+                        throw e;
+                    }
+                    return null;
+                }));
+            }
+            for (Future<Void> worker : workers) {
+                worker.get();
+            }
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof IOException ioException) {
+                throw ioException;
+            }
+            if (cause instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            throw new IOException("Position analysis failed", cause);
         }
+        logger.debug("Evaluated {} positions at depth {} on {} engines", indices.size(), depth, engines.size());
     }
-    
+
+    /**
+     * Name of the deepest named book position the game reached, or null
+     */
+    private String openingName(List<PlayedMove> plies) {
+        String name = null;
+        for (PlayedMove ply : plies) {
+            if (ply.bookMove == null) {
+                break;
+            }
+            if (ply.bookMove.getName() != null) {
+                name = ply.bookMove.getName();
+            }
+        }
+        return name;
+    }
+
+    /**
+     * Version and mode of an analysis at this depth, so stored results of other settings are not reused
+     */
+    public String settingsTag(int depth) {
+        return "v" + ANALYSIS_VERSION
+                + (isAdaptive(depth) ? "-adaptive" : "-uniform")
+                + (openingBook.isLoaded() ? "-book" : "");
+    }
+
+    private boolean isAdaptive(int depth) {
+        return adaptiveEnabled && depth > SCAN_DEPTH;
+    }
+
     /**
      * Validate and constrain analysis depth
      */
-    private int validateDepth(Integer requestedDepth) {
+    int validateDepth(Integer requestedDepth) {
         if (requestedDepth == null) {
             return DEFAULT_DEPTH;
         }
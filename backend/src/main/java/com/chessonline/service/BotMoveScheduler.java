@@ -0,0 +1,140 @@
+package com.chessonline.service;
+
+import com.chessonline.model.BotDifficulty;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Plays bot moves in the background.
+ * The search runs on a virtual thread (concurrency is bounded by the engine pool), the
+ * "thinking" pause is a deadline on the clock engine rather than a sleeping thread, and the
+ * move is applied through GameService, which publishes it on /topic/game/{gameId}/updates.
+ * Once the move is on the board, {@link BotPonderer} starts on the replies to the human's likely moves.
+ * Bot games schedule replies themselves through {@link BotTurnEvent}; at most one
+ * bot move per game is pending at a time.
+ */
+@Component
+public class BotMoveScheduler {
+    private static final Logger logger = LoggerFactory.getLogger(BotMoveScheduler.class);
+    private static final String DELAY_KEY_PREFIX = "bot:";
+
+    @Value("${app.bot.min-think-ms:100}")
+    private long minThinkMs;
+
+    @Value("${app.bot.max-think-ms:500}")
+    private long maxThinkMs;
+
+    private final BotService botService;
+    private final GameService gameService;
+    private final ClockEngine clockEngine;
+    private final BotPonderer botPonderer;
+    private final Set<String> pending = ConcurrentHashMap.newKeySet();
+    private final Set<String> missedTurns = ConcurrentHashMap.newKeySet(); // bot turns that arrived while pending
+    private final ExecutorService workers = Executors.newThreadPerTaskExecutor(
+            Thread.ofVirtual().name("bot-move-", 0).factory());
+
+    public BotMoveScheduler(BotService botService, GameService gameService, ClockEngine clockEngine,
+                            BotPonderer botPonderer) {
+        this.botService = botService;
+        this.gameService = gameService;
+        this.clockEngine = clockEngine;
+        this.botPonderer = botPonderer;
+    }
+
+    @PreDestroy
+    public void stop() {
+        workers.shutdownNow();
+    }
+
+    /**
+     * Queue the bot's reply in the game.
+     * @return false if a bot move for the game is already pending
+     */
+    public boolean schedule(String gameId, BotDifficulty difficulty) {
+        if (!pending.add(gameId)) {
+            return false;
+        }
+        long requestedAt = System.currentTimeMillis();
+        workers.execute(() -> search(gameId, difficulty, requestedAt));
+        return true;
+    }
+
+    /**
+     * Reply to the human's move in a bot game; runs after commit when published inside a transaction
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onBotTurn(BotTurnEvent event) {
+        if (!schedule(event.getGameId(), event.getDifficulty())) {
+            // A fast reply can come in before the bot's own move has cleared pending; see finish
+            missedTurns.add(event.getGameId());
+            if (!pending.contains(event.getGameId()) && missedTurns.remove(event.getGameId())) {
+                schedule(event.getGameId(), event.getDifficulty());
+            }
+        }
+    }
+
+    public boolean isPending(String gameId) {
+        return pending.contains(gameId);
+    }
+
+    private void search(String gameId, BotDifficulty difficulty, long requestedAt) {
+        try {
+            Optional<String> fen = gameService.getActiveFen(gameId);
+            if (fen.isEmpty()) {
+                finish(gameId, difficulty);
+                return;
+            }
+            botPonderer.recordOutcome(gameId, fen.get());
+            BotService.BotMove move = botService.chooseMove(fen.get(), difficulty);
+
+            // The search counts towards the thinking time; only the rest is waited out
+            long thinkMs = ThreadLocalRandom.current().nextLong(minThinkMs, Math.max(maxThinkMs, minThinkMs + 1));
+            long remainingMs = thinkMs - (System.currentTimeMillis() - requestedAt);
+            clockEngine.schedule(DELAY_KEY_PREFIX + gameId, remainingMs,
+                    () -> workers.execute(() -> apply(gameId, fen.get(), move, difficulty)));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            pending.remove(gameId);
+        } catch (Exception e) {
+            logger.error("Bot move search failed for game {}", gameId, e);
+            finish(gameId, difficulty);
+        }
+    }
+
+    private void apply(String gameId, String fen, BotService.BotMove move, BotDifficulty difficulty) {
+        try {
+            gameService.makeMove(gameId, UUID.fromString(BotService.getBotPlayerId()), move.getMove());
+            logger.debug("Bot played {} in game {}", move.getMove(), gameId);
+        } catch (RuntimeException e) {
+            // The game may have ended or changed while the bot was thinking
+            logger.info("Bot move {} not applied in game {}: {}", move.getMove(), gameId, e.getMessage());
+            finish(gameId, difficulty);
+            return;
+        }
+        // No pondering when the human has already replied
+        if (!finish(gameId, difficulty)) {
+            botPonderer.ponder(gameId, fen, move.getMove(), move.getPonderMove(), difficulty);
+        }
+    }
+
+    /**
+     * Clear the pending move, then serve a bot turn that was published while it was pending
+     * @return true if such a turn was scheduled
+     */
+    private boolean finish(String gameId, BotDifficulty difficulty) {
+        pending.remove(gameId);
+        return missedTurns.remove(gameId) && schedule(gameId, difficulty);
+    }
+}
@@ -0,0 +1,131 @@
+package com.chessonline.service;
+
+import com.chessonline.model.BotDifficulty;
+import com.github.bhlangonijr.chesslib.Board;
+import com.github.bhlangonijr.chesslib.move.Move;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Searches the bot's replies to the likely human moves while the human is thinking.
+ *
+ * After the bot moves, the positions after the expected reply (the ponder move of the bot's own
+ * search) and the light engine's next best candidates are searched on idle pool engines at the
+ * bot's strength. When the prediction hits, the bot's answer is taken from that search, finished or
+ * still running; each result is used once, since strength-limited moves are never cached.
+ * Pondering never waits for an engine, so it only uses capacity nobody else needs.
+ */
+@Component
+public class BotPonderer {
+    private static final Logger logger = LoggerFactory.getLogger(BotPonderer.class);
+    private static final int CANDIDATE_DEPTH = 2;
+    private static final long STALE_PREDICTION_MS = 60 * 60 * 1000L; // games abandoned on the human's turn
+
+    @Value("${app.bot.ponder.enabled:true}")
+    private boolean enabled;
+
+    @Value("${app.bot.ponder.candidates:2}")
+    private int candidates;
+
+    private final StockfishService stockfishService;
+    private final LightweightBotEngine lightweightBotEngine;
+    private final Map<String, Prediction> predictions = new ConcurrentHashMap<>();
+    private final Counter hits;
+    private final Counter misses;
+
+    /**
+     * Positions pondered in a game, by normalized FEN
+     */
+    private record Prediction(Set<String> fens, long createdAt) {}
+
+    public BotPonderer(StockfishService stockfishService, LightweightBotEngine lightweightBotEngine,
+                       MeterRegistry meterRegistry) {
+        this.stockfishService = stockfishService;
+        this.lightweightBotEngine = lightweightBotEngine;
+        this.hits = meterRegistry.counter("bot.ponder.hits");
+        this.misses = meterRegistry.counter("bot.ponder.misses");
+    }
+
+    /**
+     * Levels that ponder; the lower ones are answered in-process and quickly anyway
+     */
+    public boolean handles(BotDifficulty difficulty) {
+        return enabled && difficulty != null && !lightweightBotEngine.handles(difficulty);
+    }
+
+    /**
+     * Start searching the replies to the human's likely moves after the bot played move from fenBefore
+     * @param expectedReply the ponder move of the bot's search, or null
+     */
+    public void ponder(String gameId, String fenBefore, String move, String expectedReply, BotDifficulty difficulty) {
+        if (!handles(difficulty)) {
+            return;
+        }
+        try {
+            Board board = new Board();
+            board.loadFromFen(fenBefore);
+            board.doMove(new Move(move, board.getSideToMove()));
+            if (board.isMated() || board.isDraw()) {
+                return;
+            }
+            String fenAfter = board.getFen();
+
+            List<String> replies = new ArrayList<>();
+            if (expectedReply != null) {
+                replies.add(expectedReply);
+            }
+            for (String candidate : lightweightBotEngine.topMoves(fenAfter, candidates, CANDIDATE_DEPTH)) {
+                if (replies.size() >= candidates) {
+                    break;
+                }
+                if (!replies.contains(candidate)) {
+                    replies.add(candidate);
+                }
+            }
+
+            Set<String> predicted = new HashSet<>();
+            for (String reply : replies) {
+                Board next = new Board();
+                next.loadFromFen(fenAfter);
+                next.doMove(new Move(reply, next.getSideToMove()));
+                String fen = next.getFen();
+                if (!stockfishService.prefetch(fen, difficulty)) {
+                    break; // no idle engine; the rest would not be searched either
+                }
+                predicted.add(EvaluationCache.normalizeFen(fen));
+            }
+            long now = System.currentTimeMillis();
+            predictions.values().removeIf(p -> now - p.createdAt() > STALE_PREDICTION_MS);
+            predictions.put(gameId, new Prediction(predicted, now));
+            logger.debug("Pondering {} replies in game {}: {}", predicted.size(), gameId, replies);
+        } catch (RuntimeException e) {
+            logger.debug("Pondering skipped in game {}: {}", gameId, e.getMessage());
+        }
+    }
+
+    /**
+     * Record whether the position the bot now has to answer was predicted
+     */
+    public void recordOutcome(String gameId, String fen) {
+        Prediction prediction = predictions.remove(gameId);
+        if (prediction == null) {
+            return;
+        }
+        if (prediction.fens().contains(EvaluationCache.normalizeFen(fen))) {
+            hits.increment();
+        } else {
+            misses.increment();
+        }
+    }
+}
@@ -1,16 +1,12 @@
 package com.chessonline.service;
 
-import com.chessonline.model.Game;
 import com.chessonline.model.BotDifficulty;
-import com.chessonline.repository.GameRepository;
 import com.github.bhlangonijr.chesslib.Board;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import java.util.Random;
-
 @Service
 public class BotService {
     private static final Logger logger = LoggerFactory.getLogger(BotService.class);
@@ -22,27 +18,53 @@ public class BotService {
     private StockfishService stockfishService;
     
     @Autowired
-    private GameService gameService;
-    
+    private OpeningBook openingBook;
+
     @Autowired
-    private GameRepository gameRepository;
+    private LightweightBotEngine lightweightBotEngine;
+
+    /**
+     * The bot's move and, when Stockfish chose it, the reply it expects
+     */
+    public static class BotMove {
+        private final String move;       // UCI (e.g., "e2e4")
+        private final String ponderMove; // null unless searched by Stockfish
+
+        BotMove(String move, String ponderMove) {
+            this.move = move;
+            this.ponderMove = ponderMove;
+        }
+
+        public String getMove() { return move; }
+        public String getPonderMove() { return ponderMove; }
+    }
 
     /**
-     * Get bot's next move
-     * @param gameId Game ID
+     * Choose the bot's move in a position: a book move in known theory, otherwise the
+     * in-process engine for low levels or Stockfish
+     * @param fen Current position
      * @param difficulty Bot difficulty level
-     * @return UCI move string (e.g., "e2e4")
      */
-    public String getBotMove(String gameId, BotDifficulty difficulty) throws Exception {
-        Game game = gameRepository.findById(gameId)
-                .orElseThrow(() -> new RuntimeException("Game not found: " + gameId));
-        
-        String currentFen = game.getFenCurrent();
+    public BotMove chooseMove(String fen, BotDifficulty difficulty) throws Exception {
+        String currentFen = fen;
         if (currentFen == null || currentFen.isEmpty()) {
             currentFen = "rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR w KQkq - 0 1";
         }
-        
-        logger.info("Getting bot move for game {} at difficulty {}", gameId, difficulty);
+
+        // Known theory is played straight from the book
+        String bookMove = openingBook.pickMove(currentFen, difficulty);
+        if (bookMove != null) {
+            logger.debug("Bot book move: {}", bookMove);
+            return new BotMove(bookMove, null);
+        }
+
+        // Low levels are searched in-process, without a Stockfish process
+        if (lightweightBotEngine.handles(difficulty)) {
+            String move = lightweightBotEngine.chooseMove(currentFen, difficulty);
+            if (move != null) {
+                return new BotMove(move, null);
+            }
+        }
         
         // Analyze position with Stockfish
         StockfishService.PositionEvaluation evaluation = analyzePosition(currentFen, difficulty);
@@ -53,24 +75,15 @@ public class BotService {
             botMove = getFirstLegalMove(currentFen);
         }
         
-        // Add random delay to simulate thinking (100-500ms)
-        long thinkingDelay = 100 + new Random().nextInt(400);
-        Thread.sleep(thinkingDelay);
-        
-        logger.info("Bot move: {} (evaluation: {})", botMove, evaluation.getEvaluation());
-        return botMove;
+        logger.debug("Bot move: {} (evaluation: {})", botMove, evaluation.getEvaluation());
+        return new BotMove(botMove, botMove.equals(evaluation.getBestMove()) ? evaluation.getPonderMove() : null);
     }
 
     /**
-     * Analyze position using Stockfish
+     * Analyze position using a warm engine from the pool
      */
     private StockfishService.PositionEvaluation analyzePosition(String fen, BotDifficulty difficulty) throws Exception {
-        stockfishService.startEngine();
-        try {
-            return stockfishService.analyzePositionWithEngine(fen, difficulty);
-        } finally {
-            stockfishService.stopEngine();
-        }
+        return stockfishService.analyzePosition(fen, difficulty);
     }
 
     /**
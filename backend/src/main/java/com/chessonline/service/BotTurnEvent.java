@@ -0,0 +1,20 @@
+package com.chessonline.service;
+
+import com.chessonline.model.BotDifficulty;
+
+/**
+ * Published when it becomes the bot's turn in a bot game: after the human's move,
+ * at the start of a game where the bot plays white, and for pending turns on startup.
+ */
+public class BotTurnEvent {
+    private final String gameId;
+    private final BotDifficulty difficulty;
+
+    public BotTurnEvent(String gameId, BotDifficulty difficulty) {
+        this.gameId = gameId;
+        this.difficulty = difficulty;
+    }
+
+    public String getGameId() { return gameId; }
+    public BotDifficulty getDifficulty() { return difficulty; }
+}
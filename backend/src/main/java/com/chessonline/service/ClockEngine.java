@@ -0,0 +1,190 @@
+package com.chessonline.service;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Hashed timing wheel holding one flag-fall deadline per game.
+ * Scheduling replaces the previous deadline of the same game, so the cost is
+ * proportional to the number of moves, not to the number of active games.
+ * Expired tasks are handed to a worker thread to keep the wheel on time.
+ */
+@Component
+public class ClockEngine {
+    private static final Logger logger = LoggerFactory.getLogger(ClockEngine.class);
+
+    @Value("${app.clock.tick-ms:10}")
+    private long tickMs;
+
+    @Value("${app.clock.wheel-size:512}")
+    private int wheelSize;
+
+    private final Map<String, Timeout> timeouts = new ConcurrentHashMap<>();
+    private final Queue<Timeout> newTimeouts = new ConcurrentLinkedQueue<>();
+
+    private final ExecutorService dispatcher = Executors.newSingleThreadExecutor(r -> {
+        Thread thread = new Thread(r, "clock-engine-dispatcher");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    // Wheel state, only touched by the wheel thread
+    private List<Timeout>[] wheel;
+    private int mask;
+    private long tickNanos;
+    private long startNanos;
+    private long tick;
+
+    private volatile boolean running;
+    private Thread wheelThread;
+
+    private static final class Timeout {
+        private final String key;
+        private final long deadlineNanos;
+        private final Runnable task;
+        private long remainingRounds;
+        private volatile boolean cancelled;
+
+        private Timeout(String key, long deadlineNanos, Runnable task) {
+            this.key = key;
+            this.deadlineNanos = deadlineNanos;
+            this.task = task;
+        }
+    }
+
+    @PostConstruct
+    @SuppressWarnings("unchecked")
+    public void start() {
+        int size = Integer.highestOneBit(Math.max(wheelSize, 2) * 2 - 1);
+        wheel = new List[size];
+        for (int i = 0; i < size; i++) {
+            wheel[i] = new ArrayList<>();
+        }
+        mask = size - 1;
+        tickNanos = TimeUnit.MILLISECONDS.toNanos(Math.max(tickMs, 1));
+        startNanos = System.nanoTime();
+        running = true;
+
+        wheelThread = new Thread(this::run, "clock-engine");
+        wheelThread.setDaemon(true);
+        wheelThread.start();
+        logger.info("Clock engine started: {} buckets of {} ms", size, tickMs);
+    }
+
+    @PreDestroy
+    public void stop() {
+        running = false;
+        if (wheelThread != null) {
+            LockSupport.unpark(wheelThread);
+        }
+        dispatcher.shutdown();
+    }
+
+    /**
+     * Schedule the task for the key after the delay, replacing any deadline already set for it
+     */
+    public void schedule(String key, long delayMs, Runnable task) {
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(Math.max(delayMs, 0L));
+        Timeout timeout = new Timeout(key, deadline, task);
+        Timeout previous = timeouts.put(key, timeout);
+        if (previous != null) {
+            previous.cancelled = true;
+        }
+        newTimeouts.add(timeout);
+    }
+
+    /**
+     * Drop the deadline of the key, if any
+     */
+    public void cancel(String key) {
+        Timeout previous = timeouts.remove(key);
+        if (previous != null) {
+            previous.cancelled = true;
+        }
+    }
+
+    public int size() {
+        return timeouts.size();
+    }
+
+    private void run() {
+        while (running) {
+            waitForNextTick();
+            if (!running) {
+                break;
+            }
+            transferNewTimeouts();
+            expire(wheel[(int) (tick & mask)]);
+            tick++;
+        }
+    }
+
+    private void waitForNextTick() {
+        long deadline = startNanos + (tick + 1) * tickNanos;
+        long sleepNanos;
+        while (running && (sleepNanos = deadline - System.nanoTime()) > 0) {
+            LockSupport.parkNanos(this, sleepNanos);
+        }
+    }
+
+    private void transferNewTimeouts() {
+        Timeout timeout;
+        while ((timeout = newTimeouts.poll()) != null) {
+            if (timeout.cancelled) {
+                continue;
+            }
+            long calculated = (timeout.deadlineNanos - startNanos) / tickNanos;
+            timeout.remainingRounds = (calculated - tick) / wheel.length;
+            // Deadlines already in the past go to the current bucket
+            long ticks = Math.max(calculated, tick);
+            wheel[(int) (ticks & mask)].add(timeout);
+        }
+    }
+
+    private void expire(List<Timeout> bucket) {
+        Iterator<Timeout> iterator = bucket.iterator();
+        while (iterator.hasNext()) {
+            Timeout timeout = iterator.next();
+            if (timeout.cancelled) {
+                iterator.remove();
+            } else if (timeout.remainingRounds <= 0) {
+                iterator.remove();
+                if (timeouts.remove(timeout.key, timeout)) {
+                    dispatch(timeout);
+                }
+            } else {
+                timeout.remainingRounds--;
+            }
+        }
+    }
+
+    private void dispatch(Timeout timeout) {
+        try {
+            dispatcher.execute(() -> {
+                try {
+                    timeout.task.run();
+                } catch (Exception e) {
+                    logger.error("Clock task for {} failed", timeout.key, e);
+                }
+            });
+        } catch (Exception e) {
+            logger.warn("Clock task for {} rejected: {}", timeout.key, e.getMessage());
+        }
+    }
+}
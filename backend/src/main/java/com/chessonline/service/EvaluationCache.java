@@ -0,0 +1,200 @@
+package com.chessonline.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Cache of engine evaluations shared by game analysis and the bot.
+ * Keys are the normalised FEN (placement, side to move, castling, en passant;
+ * move counters dropped so transpositions hit) plus the search profile. Only full-strength
+ * searches are stored: a strength-limited bot search picks a random weaker move on purpose,
+ * and caching it would make every game replay the same mistake.
+ * An entry answers any request at the same or a lower depth.
+ *
+ * The first tier is an in-memory LRU split into segments so lookups from parallel
+ * searches rarely contend. The optional second tier is Redis, which survives
+ * restarts and is shared between instances (app.eval-cache.redis-enabled).
+ */
+@Component
+public class EvaluationCache {
+    private static final Logger logger = LoggerFactory.getLogger(EvaluationCache.class);
+    private static final int SEGMENTS = 16;
+    private static final String REDIS_PREFIX = "eval:";
+
+    public static final String FULL_STRENGTH = "full";
+
+    @Value("${app.eval-cache.max-entries:200000}")
+    private int maxEntries;
+
+    @Value("${app.eval-cache.redis-enabled:false}")
+    private boolean redisEnabled;
+
+    @Value("${app.eval-cache.redis-ttl-hours:168}")
+    private long redisTtlHours;
+
+    @Autowired(required = false)
+    private StringRedisTemplate redisTemplate;
+
+    private final MeterRegistry meterRegistry;
+    private Segment[] segments;
+    private Counter hitCounter;
+    private Counter missCounter;
+
+    public EvaluationCache(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+    }
+
+    private static class Segment extends LinkedHashMap<String, StockfishService.PositionEvaluation> {
+        private final int capacity;
+
+        Segment(int capacity) {
+            super(16, 0.75f, true);
+            this.capacity = capacity;
+        }
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, StockfishService.PositionEvaluation> eldest) {
+            return size() > capacity;
+        }
+    }
+
+    @PostConstruct
+    public void init() {
+        segments = new Segment[SEGMENTS];
+        for (int i = 0; i < SEGMENTS; i++) {
+            segments[i] = new Segment(Math.max(1, maxEntries / SEGMENTS));
+        }
+        hitCounter = meterRegistry.counter("stockfish.eval-cache.hits");
+        missCounter = meterRegistry.counter("stockfish.eval-cache.misses");
+        if (redisEnabled && redisTemplate == null) {
+            logger.warn("Evaluation cache Redis tier enabled but no Redis connection is configured");
+        }
+    }
+
+    /**
+     * Cached evaluation searched to at least minDepth, or null
+     */
+    public StockfishService.PositionEvaluation get(String fen, String profile, int minDepth) {
+        StockfishService.PositionEvaluation evaluation = lookup(fen, profile, minDepth);
+        if (evaluation != null) {
+            hitCounter.increment();
+        } else {
+            missCounter.increment();
+        }
+        return evaluation;
+    }
+
+    /**
+     * Whether get would return an evaluation; for existence checks, so not counted as a hit or miss
+     */
+    public boolean contains(String fen, String profile, int minDepth) {
+        return lookup(fen, profile, minDepth) != null;
+    }
+
+    private StockfishService.PositionEvaluation lookup(String fen, String profile, int minDepth) {
+        String key = key(fen, profile);
+        Segment segment = segmentFor(key);
+        StockfishService.PositionEvaluation evaluation;
+        synchronized (segment) {
+            evaluation = segment.get(key);
+        }
+        if (evaluation == null && useRedis()) {
+            evaluation = readRedis(key);
+            if (evaluation != null) {
+                putLocal(key, evaluation);
+            }
+        }
+        return evaluation != null && evaluation.getDepth() >= minDepth ? evaluation : null;
+    }
+
+    /**
+     * Store an evaluation unless a deeper one is already cached
+     */
+    public void put(String fen, String profile, StockfishService.PositionEvaluation evaluation) {
+        String key = key(fen, profile);
+        if (putLocal(key, evaluation) && useRedis()) {
+            writeRedis(key, evaluation);
+        }
+    }
+
+    private boolean putLocal(String key, StockfishService.PositionEvaluation evaluation) {
+        Segment segment = segmentFor(key);
+        synchronized (segment) {
+            StockfishService.PositionEvaluation existing = segment.get(key);
+            if (existing != null && existing.getDepth() >= evaluation.getDepth()) {
+                return false;
+            }
+            segment.put(key, evaluation);
+            return true;
+        }
+    }
+
+    /**
+     * FEN without the halfmove clock and fullmove number
+     */
+    static String normalizeFen(String fen) {
+        int spaces = 0;
+        for (int i = 0; i < fen.length(); i++) {
+            if (fen.charAt(i) == ' ' && ++spaces == 4) {
+                return fen.substring(0, i);
+            }
+        }
+        return fen.trim();
+    }
+
+    private static String key(String fen, String profile) {
+        return profile + "|" + normalizeFen(fen);
+    }
+
+    private Segment segmentFor(String key) {
+        return segments[Math.floorMod(key.hashCode(), SEGMENTS)];
+    }
+
+    private boolean useRedis() {
+        return redisEnabled && redisTemplate != null;
+    }
+
+    // Redis value: depth|evaluation|mate|mateIn|bestMove[|ponderMove]
+    private StockfishService.PositionEvaluation readRedis(String key) {
+        try {
+            String value = redisTemplate.opsForValue().get(REDIS_PREFIX + key);
+            if (value == null) {
+                return null;
+            }
+            String[] parts = value.split("\\|", -1);
+            StockfishService.PositionEvaluation evaluation = new StockfishService.PositionEvaluation(
+                    Integer.parseInt(parts[1]), parts[4], "1".equals(parts[2]),
+                    Integer.parseInt(parts[3]), Integer.parseInt(parts[0]));
+            if (parts.length > 5 && !parts[5].isEmpty()) {
+                evaluation.setPonderMove(parts[5]);
+            }
+            return evaluation;
+        } catch (RuntimeException e) {
+            logger.debug("Evaluation cache Redis read failed: {}", e.getMessage());
+            return null;
+        }
+    }
+
+    private void writeRedis(String key, StockfishService.PositionEvaluation evaluation) {
+        String value = evaluation.getDepth() + "|" + evaluation.getEvaluation() + "|"
+                + (evaluation.isMate() ? "1" : "0") + "|" + evaluation.getMateIn() + "|"
+                + (evaluation.getBestMove() != null ? evaluation.getBestMove() : "") + "|"
+                + (evaluation.getPonderMove() != null ? evaluation.getPonderMove() : "");
+        try {
+            redisTemplate.opsForValue().set(REDIS_PREFIX + key, value, Duration.ofHours(redisTtlHours));
+        } catch (RuntimeException e) {
+            logger.debug("Evaluation cache Redis write failed: {}", e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,107 @@
+package com.chessonline.service;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Supplier;
+
+/**
+ * Single-writer execution for game commands.
+ * Every game is pinned to one of N single-threaded workers (by game id hash),
+ * so commands of one game run strictly in order without locks while different
+ * games are spread across cores.
+ */
+@Component
+public class GameCommandExecutor {
+    private static final Logger logger = LoggerFactory.getLogger(GameCommandExecutor.class);
+
+    @Value("${app.game.worker-threads:0}")
+    private int workerThreads;
+
+    private ExecutorService[] workers;
+    private Thread[] workerThreadRefs;
+
+    @PostConstruct
+    public void start() {
+        int count = workerThreads > 0 ? workerThreads : Runtime.getRuntime().availableProcessors();
+        workers = new ExecutorService[count];
+        workerThreadRefs = new Thread[count];
+        for (int i = 0; i < count; i++) {
+            int index = i;
+            workers[i] = Executors.newSingleThreadExecutor(r -> {
+                Thread thread = new Thread(r, "game-worker-" + index);
+                thread.setDaemon(true);
+                workerThreadRefs[index] = thread;
+                return thread;
+            });
+        }
+        logger.info("Game command executor started with {} workers", count);
+    }
+
+    @PreDestroy
+    public void stop() {
+        for (ExecutorService worker : workers) {
+            worker.shutdown();
+        }
+    }
+
+    /**
+     * Run a command on the game's worker and wait for its result
+     */
+    public <T> T call(String gameId, Supplier<T> command) {
+        int index = indexOf(gameId);
+        if (Thread.currentThread() == workerThreadRefs[index]) {
+            // Already on the game's worker (nested command), run inline
+            return command.get();
+        }
+
+        Future<T> future = workers[index].submit(command::get);
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Interrupted while waiting for game command");
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            if (cause instanceof Error error) {
+                throw error;
+            }
+            throw new RuntimeException(cause.getMessage(), cause);
+        }
+    }
+
+    public void run(String gameId, Runnable command) {
+        call(gameId, () -> {
+            command.run();
+            return null;
+        });
+    }
+
+    /**
+     * Queue a command on the game's worker without waiting for it
+     */
+    public void submit(String gameId, Runnable command) {
+        workers[indexOf(gameId)].execute(() -> {
+            try {
+                command.run();
+            } catch (Exception e) {
+                logger.error("Game command for {} failed", gameId, e);
+            }
+        });
+    }
+
+    private int indexOf(String gameId) {
+        return Math.floorMod(gameId.hashCode(), workers.length);
+    }
+}
@@ -0,0 +1,124 @@
+package com.chessonline.service;
+
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Fixed-size in-memory trace of game engine events for diagnostics.
+ * Slots are preallocated primitive arrays overwritten in place, so recording
+ * never allocates, formats strings or blocks. Moves and rejected moves are
+ * sampled (one in app.trace.sample-every); game ends, flag falls and errors are always kept.
+ */
+@Component
+public class GameEventTrace {
+
+    public enum Type {
+        MOVE, REJECTED, GAME_END, FLAG_FALL, ERROR
+    }
+
+    private static final Type[] TYPES = Type.values();
+
+    @Value("${app.trace.capacity:4096}")
+    private int capacity;
+
+    @Value("${app.trace.sample-every:16}")
+    private int sampleEvery;
+
+    private final AtomicLong sequence = new AtomicLong();
+    private final AtomicLong sampleCounter = new AtomicLong();
+
+    // Slot i is valid when sequences[i] holds the sequence number that wrote it
+    private AtomicLongArray sequences;
+    private long[] timestamps;
+    private long[] durationsNanos;
+    private String[] gameIds;
+    private int[] plies;
+    private short[] moveCodes;
+    private byte[] types;
+    private int mask;
+
+    @PostConstruct
+    public void init() {
+        int size = Integer.highestOneBit(Math.max(capacity, 2) * 2 - 1);
+        sequences = new AtomicLongArray(size);
+        for (int i = 0; i < size; i++) {
+            sequences.set(i, -1L);
+        }
+        timestamps = new long[size];
+        durationsNanos = new long[size];
+        gameIds = new String[size];
+        plies = new int[size];
+        moveCodes = new short[size];
+        types = new byte[size];
+        mask = size - 1;
+    }
+
+    /**
+     * Whether the next routine event (move, rejected move) should be recorded
+     */
+    public boolean shouldSample() {
+        return sampleEvery > 0 && sampleCounter.getAndIncrement() % sampleEvery == 0;
+    }
+
+    public void record(Type type, String gameId, int ply, short moveCode, long durationNanos) {
+        long seq = sequence.getAndIncrement();
+        int slot = (int) (seq & mask);
+        sequences.set(slot, -1L);
+        timestamps[slot] = System.currentTimeMillis();
+        durationsNanos[slot] = durationNanos;
+        gameIds[slot] = gameId;
+        plies[slot] = ply;
+        moveCodes[slot] = moveCode;
+        types[slot] = (byte) type.ordinal();
+        sequences.set(slot, seq);
+    }
+
+    /**
+     * Most recent events, newest first (formatting happens here, off the hot path)
+     */
+    public List<Map<String, Object>> snapshot(int max) {
+        List<Map<String, Object>> events = new ArrayList<>();
+        long last = sequence.get() - 1;
+        for (long seq = last; seq >= 0 && seq > last - types.length && events.size() < max; seq--) {
+            int slot = (int) (seq & mask);
+            if (sequences.get(slot) != seq) {
+                continue; // overwritten or being written
+            }
+            Map<String, Object> event = new LinkedHashMap<>();
+            event.put("seq", seq);
+            event.put("time", Instant.ofEpochMilli(timestamps[slot]).toString());
+            event.put("type", TYPES[types[slot]].name());
+            event.put("gameId", gameIds[slot]);
+            event.put("ply", plies[slot]);
+            event.put("move", moveCodes[slot] != 0 ? MoveCodec.decode(moveCodes[slot] & 0xFFFF) : null);
+            event.put("durationMicros", durationsNanos[slot] / 1000);
+            if (sequences.get(slot) == seq) {
+                events.add(event);
+            }
+        }
+        return events;
+    }
+
+    /**
+     * Move code for tracing, 0 when the move string cannot be encoded
+     */
+    public static short codeOf(String uci) {
+        if (uci == null || uci.length() < 4 || uci.length() > 5) {
+            return 0;
+        }
+        try {
+            return MoveCodec.encode(uci);
+        } catch (IllegalArgumentException e) {
+            return 0;
+        }
+    }
+}
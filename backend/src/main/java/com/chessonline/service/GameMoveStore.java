@@ -0,0 +1,126 @@
+package com.chessonline.service;
+
+import com.chessonline.model.Move;
+import com.chessonline.repository.MoveRepository;
+import com.github.bhlangonijr.chesslib.Board;
+import org.springframework.dao.EmptyResultDataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Read side of the packed move storage.
+ * Moves are kept as 16-bit codes in games.move_codes; FENs are rebuilt on demand
+ * by replaying the codes, starting from the nearest keyframe in game_keyframes.
+ * Games without move codes (recorded before the packed format) are read from the moves table.
+ */
+@Component
+public class GameMoveStore {
+    public static final int KEYFRAME_INTERVAL = 32;
+
+    private static final String START_FEN = "rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR w KQkq - 0 1";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final MoveRepository moveRepository;
+
+    public GameMoveStore(JdbcTemplate jdbcTemplate, MoveRepository moveRepository) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.moveRepository = moveRepository;
+    }
+
+    /**
+     * Full move list of a game with the FEN after every ply
+     */
+    public List<Move> getMoves(String gameId) {
+        List<String> codes = loadMoveCodes(gameId);
+        if (codes == null) {
+            return moveRepository.findByGameIdOrderByMoveNumber(gameId);
+        }
+
+        List<Move> moves = new ArrayList<>(codes.size());
+        Board board = new Board();
+        board.loadFromFen(START_FEN);
+        int ply = 0;
+        for (String uci : codes) {
+            ply++;
+            board.doMove(new com.github.bhlangonijr.chesslib.move.Move(uci, board.getSideToMove()));
+            Move move = new Move(null, ply, uci, board.getFen());
+            move.setId(moveId(gameId, ply));
+            moves.add(move);
+        }
+        return moves;
+    }
+
+    /**
+     * FENs of the positions from the given ply (0 = start position) up to the current one
+     */
+    public List<String> getFensFrom(String gameId, int fromPly) {
+        List<String> codes = loadMoveCodes(gameId);
+        List<String> fens = new ArrayList<>();
+        if (codes == null) {
+            if (fromPly == 0) {
+                fens.add(START_FEN);
+            }
+            for (Move move : moveRepository.findByGameIdOrderByMoveNumber(gameId)) {
+                if (move.getMoveNumber() >= fromPly) {
+                    fens.add(move.getFen());
+                }
+            }
+            return fens;
+        }
+
+        // Replay from the closest keyframe at or before the requested ply
+        int ply = 0;
+        String fen = START_FEN;
+        List<Map<String, Object>> keyframes = jdbcTemplate.queryForList(
+                "SELECT ply, fen FROM game_keyframes WHERE game_id = ? AND ply <= ? ORDER BY ply DESC LIMIT 1",
+                gameId, fromPly);
+        if (!keyframes.isEmpty()) {
+            ply = ((Number) keyframes.get(0).get("ply")).intValue();
+            fen = (String) keyframes.get(0).get("fen");
+        }
+
+        Board board = new Board();
+        board.loadFromFen(fen);
+        if (ply >= fromPly) {
+            fens.add(fen);
+        }
+        for (int i = ply; i < codes.size(); i++) {
+            board.doMove(new com.github.bhlangonijr.chesslib.move.Move(codes.get(i), board.getSideToMove()));
+            if (i + 1 >= fromPly) {
+                fens.add(board.getFen());
+            }
+        }
+        return fens;
+    }
+
+    /**
+     * Stable id of a reconstructed move (move rows no longer exist for packed games)
+     */
+    public static UUID moveId(String gameId, int ply) {
+        return UUID.nameUUIDFromBytes((gameId + ":" + ply).getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Decoded moves, or null when the game has no complete packed history
+     */
+    private List<String> loadMoveCodes(String gameId) {
+        Map<String, Object> row;
+        try {
+            row = jdbcTemplate.queryForMap("SELECT move_codes, ply_count FROM games WHERE id = ?", gameId);
+        } catch (EmptyResultDataAccessException e) {
+            throw new RuntimeException("Game not found");
+        }
+        byte[] packed = (byte[]) row.get("move_codes");
+        int plyCount = ((Number) row.get("ply_count")).intValue();
+        if (packed == null || packed.length / 2 < plyCount) {
+            return null;
+        }
+        return MoveCodec.unpack(packed);
+    }
+}
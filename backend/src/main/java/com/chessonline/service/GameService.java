@@ -1,16 +1,23 @@
 package com.chessonline.service;
 
+import com.chessonline.dto.ClockSyncMessage;
 import com.chessonline.model.*;
 import com.chessonline.repository.GameRepository;
 import com.chessonline.repository.LobbyGameRepository;
-import com.chessonline.repository.MoveRepository;
 import com.chessonline.repository.UserRepository;
 import com.github.bhlangonijr.chesslib.Board;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
 import org.springframework.messaging.simp.SimpMessagingTemplate;
 import org.springframework.stereotype.Service;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.time.Duration;
 import java.time.LocalDateTime;
@@ -20,13 +27,11 @@ import java.util.UUID;
 
 @Service
 public class GameService {
+    private static final Logger logger = LoggerFactory.getLogger(GameService.class);
 
     @Autowired
     private GameRepository gameRepository;
 
-    @Autowired
-    private MoveRepository moveRepository;
-
     @Autowired
     private UserRepository userRepository;
 
@@ -36,14 +41,57 @@ public class GameService {
     @Autowired
     private LobbyGameRepository lobbyGameRepository;
 
+    @Autowired
+    private LiveGameRegistry liveGameRegistry;
+
+    @Autowired
+    private MoveJournal moveJournal;
+
+    @Autowired
+    private MoveJournalWriter moveJournalWriter;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private ClockEngine clockEngine;
+
+    @Autowired
+    private GameCommandExecutor gameCommandExecutor;
+
+    @Autowired
+    private GameMoveStore gameMoveStore;
+
+    @Autowired
+    private GameEventTrace gameEventTrace;
+
+    @Value("${app.clock.sync-enabled:false}")
+    private boolean clockSyncEnabled;
+
     @Autowired(required = false)
     private SimpMessagingTemplate messagingTemplate;
 
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
     /**
      * Create a new game from an invite or matchmaking
      */
     @Transactional
     public Game createGame(UUID whiteId, UUID blackId, String timeControl, Invite invite, boolean rated) {
+        return createGame(whiteId, blackId, timeControl, invite, rated, null);
+    }
+
+    /**
+     * Create an unrated game against the bot; the server plays the bot's moves
+     */
+    @Transactional
+    public Game createBotGame(UUID whiteId, UUID blackId, String timeControl, BotDifficulty difficulty) {
+        return createGame(whiteId, blackId, timeControl, null, false, difficulty);
+    }
+
+    private Game createGame(UUID whiteId, UUID blackId, String timeControl, Invite invite, boolean rated,
+                            BotDifficulty botDifficulty) {
         User white = userRepository.findById(whiteId)
                 .orElseThrow(() -> new RuntimeException("White player not found"));
         User black = userRepository.findById(blackId)
@@ -54,6 +102,7 @@ public class GameService {
         }
 
         Game game = new Game(white, black, timeControl, invite, rated);
+        game.setBotDifficulty(botDifficulty);
         
         // Parse time control (e.g., "5+3")
         String[] timeParts = timeControl.split("\\+");
@@ -65,6 +114,9 @@ public class GameService {
         // game.setLastMoveAt will be set in updateClocksOnMove on first move
 
         Game savedGame = gameRepository.save(game);
+        LiveGame live = LiveGame.fromGame(savedGame);
+        liveGameRegistry.register(live);
+        notifyBotTurn(live);
         
         // Notify both players that game has started via WebSocket
         if (messagingTemplate != null) {
@@ -96,6 +148,7 @@ public class GameService {
      */
     @Transactional(readOnly = true)
     public Optional<Game> getGame(String gameId, UUID userId) {
+        moveJournalWriter.flushPending(gameId);
         Optional<Game> game = gameRepository.findById(gameId);
 
         if (game.isPresent()) {
@@ -113,118 +166,286 @@ public class GameService {
         return Optional.empty();
     }
 
+    /**
+     * Current position of an active game as held by the live game, or empty once it has finished
+     */
+    public Optional<String> getActiveFen(String gameId) {
+        return gameCommandExecutor.call(gameId, () -> {
+            LiveGame live = liveGameRegistry.getOrLoad(gameId);
+            return live.isActive() ? Optional.of(live.getFen()) : Optional.<String>empty();
+        });
+    }
+
     /**
      * Get game without user check (for public viewing)
      */
     @Transactional(readOnly = true)
     public Optional<Game> getGamePublic(String gameId) {
+        moveJournalWriter.flushPending(gameId);
         return gameRepository.findById(gameId);
     }
 
     /**
-     * Make a move in the game using chesslib for validation
+     * Make a move in the game using chesslib for validation.
+     * The move is validated and applied against the in-memory live game and
+     * acknowledged once it is in the move journal; the database is written
+     * asynchronously by {@link MoveJournalWriter} until the game finishes.
      */
-    @Transactional
     public Move makeMove(String gameId, UUID userId, String moveStr) {
-        Game game = gameRepository.findById(gameId)
-                .orElseThrow(() -> new RuntimeException("Game not found"));
+        return gameCommandExecutor.call(gameId, () -> applyMove(gameId, userId, moveStr));
+    }
+
+    private Move applyMove(String gameId, UUID userId, String moveStr) {
+        long startNanos = System.nanoTime();
+        LiveGame live = liveGameRegistry.getOrLoad(gameId);
 
-        if (!game.isActive()) {
+        if (!live.isActive()) {
             throw new RuntimeException("Game is not active");
         }
 
-        if (!game.isPlayerInGame(userId)) {
+        if (!live.isPlayerInGame(userId)) {
             throw new RuntimeException("User is not in this game");
         }
 
         // Check if it's player's turn
-        boolean isWhiteToMove = game.isWhiteToMove();
-        boolean isWhitePlayer = game.isPlayerWhite(userId);
-        
+        boolean isWhiteToMove = live.isWhiteToMove();
+        boolean isWhitePlayer = live.isPlayerWhite(userId);
+
         if (isWhiteToMove != isWhitePlayer) {
             throw new RuntimeException("It's not your turn");
         }
 
-        // Update clocks before move
-        if (updateClocksOnMove(game, isWhiteToMove)) {
-            Game savedTimeoutGame = gameRepository.save(game);
-            ratingService.updateRatingsForGame(savedTimeoutGame);
-            notifyGameUpdate(savedTimeoutGame);
-            throw new RuntimeException("Time out");
-        }
+        Board board = live.getBoard();
 
-        // Use chesslib to validate and apply move
-        String newFen;
+        // Use chesslib to validate the move before touching the clocks
+        com.github.bhlangonijr.chesslib.move.Move chesslibMove;
         try {
-            Board board = new Board();
-            board.loadFromFen(game.getFenCurrent());
-            
             // Parse UCI move (e.g., "e2e4")
-            com.github.bhlangonijr.chesslib.move.Move chesslibMove = new com.github.bhlangonijr.chesslib.move.Move(moveStr, board.getSideToMove());
-            
-            // Validate and apply move
-            if (!board.legalMoves().contains(chesslibMove)) {
-                throw new RuntimeException("Illegal move: " + moveStr);
-            }
-            
-            board.doMove(chesslibMove);
-            newFen = board.getFen();
-            
-            System.out.println("✅ Move applied: " + moveStr + " -> New FEN: " + newFen);
+            chesslibMove = new com.github.bhlangonijr.chesslib.move.Move(moveStr, board.getSideToMove());
         } catch (Exception e) {
-            System.err.println("❌ Invalid move: " + moveStr + " - " + e.getMessage());
+            logger.debug("Invalid move {} in game {}", moveStr, gameId);
+            traceRejected(live, moveStr, startNanos);
             throw new RuntimeException("Invalid move: " + e.getMessage());
         }
+        if (!live.isLegal(chesslibMove)) {
+            logger.debug("Illegal move {} in game {}", moveStr, gameId);
+            traceRejected(live, moveStr, startNanos);
+            throw new RuntimeException("Invalid move: Illegal move: " + moveStr);
+        }
+
+        try {
+            // Update clocks before move
+            if (updateClocksOnMove(live, isWhiteToMove)) {
+                finishOnTimeout(live);
+                throw new RuntimeException("Time out");
+            }
 
-        // Create move record
-        List<Move> moves = moveRepository.findByGameIdOrderByMoveNumber(gameId);
-        int moveNumber = moves.size() + 1;
+            live.applyMove(chesslibMove);
+            String newFen = live.getFen();
+            if (logger.isDebugEnabled()) {
+                logger.debug("Move {} applied in game {} -> {}", moveStr, gameId, newFen);
+            }
 
-        Move moveRecord = new Move(game, moveNumber, moveStr, newFen);
-        moveRecord = moveRepository.save(moveRecord);
+            // Create move record
+            int moveNumber = live.getPlyCount() + 1;
+            live.setPlyCount(moveNumber);
+
+            MoveJournal.Entry entry = moveJournal.append(gameId, moveNumber, moveStr, newFen,
+                    live.getWhiteTimeLeftMs(), live.getBlackTimeLeftMs(), live.getLastMoveAt());
+            Move moveRecord = toMoveRecord(entry);
+
+            // Check for mate, stalemate and automatic draws
+            GameEndState endState = checkGameEnd(live);
+            if (endState != GameEndState.ONGOING) {
+                // On mate the player who just moved wins (side to move in the new position is the loser)
+                String result = endState == GameEndState.CHECKMATE
+                        ? (live.isWhiteToMove() ? "0-1" : "1-0")
+                        : "1/2-1/2";
+                finishLiveGame(live, result, endState.getReason());
+                gameEventTrace.record(GameEventTrace.Type.GAME_END, gameId, moveNumber,
+                        GameEventTrace.codeOf(moveStr), System.nanoTime() - startNanos);
+                return moveRecord;
+            }
 
-        // Update game FEN
-        game.setFenCurrent(newFen);
+            scheduleFlagFall(live);
 
-        // Update last move timestamp
-        game.setLastMoveAt(LocalDateTime.now());
-        
-        // Check for checkmate or stalemate using chesslib
-        GameEndState endState = checkGameEndWithChesslib(newFen);
-        System.out.println("🔍 Game end check for FEN: " + newFen + " -> State: " + endState);
-        if (endState != GameEndState.ONGOING) {
-            game.setStatus("finished");
-            game.setFinishedAt(LocalDateTime.now());
-            if (endState == GameEndState.CHECKMATE) {
-                // The player who just moved wins (turn in newFen is now the loser's turn)
-                String[] fenParts = newFen.split(" ");
-                String currentTurn = fenParts.length > 1 ? fenParts[1] : "w";
-                // If current turn is white, black just won (and vice versa)
-                game.setResult(currentTurn.equals("w") ? "0-1" : "1-0");
-                game.setResultReason("checkmate");
-                System.out.println("♔ CHECKMATE! Winner: " + (currentTurn.equals("w") ? "Black" : "White") + " | Result: " + game.getResult());
-            } else if (endState == GameEndState.STALEMATE) {
-                game.setResult("1/2-1/2");
-                game.setResultReason("stalemate");
-                System.out.println("♔ STALEMATE! Draw.");
+            // Send WebSocket notification
+            notifyGameUpdate(live);
+            notifyBotTurn(live);
+
+            if (gameEventTrace.shouldSample()) {
+                gameEventTrace.record(GameEventTrace.Type.MOVE, gameId, moveNumber,
+                        GameEventTrace.codeOf(moveStr), System.nanoTime() - startNanos);
+            }
+            return moveRecord;
+        } catch (RuntimeException e) {
+            gameEventTrace.record(GameEventTrace.Type.ERROR, gameId, live.getPlyCount(),
+                    GameEventTrace.codeOf(moveStr), System.nanoTime() - startNanos);
+            if (live.isActive()) {
+                // Live state may be ahead of the journal, reload it on next access
+                liveGameRegistry.remove(gameId);
             }
+            throw e;
         }
-        
-        Game savedGame = gameRepository.save(game);
-        
-        // Update ratings if game finished
-        if ("finished".equals(savedGame.getStatus())) {
-            ratingService.updateRatingsForGame(savedGame);
-            // Remove from lobby if it was created via matchmaking
-            removeLobbyGameByPlayers(savedGame.getPlayerWhite().getId(), savedGame.getPlayerBlack().getId());
+    }
+
+    private void traceRejected(LiveGame live, String moveStr, long startNanos) {
+        if (gameEventTrace.shouldSample()) {
+            gameEventTrace.record(GameEventTrace.Type.REJECTED, live.getGameId(), live.getPlyCount(),
+                    GameEventTrace.codeOf(moveStr), System.nanoTime() - startNanos);
         }
-        
-        // Send WebSocket notification
+    }
+
+    /**
+     * Arm the flag-fall deadline of the side to move (clocks start after each side's first move)
+     */
+    private void scheduleFlagFall(LiveGame live) {
+        String gameId = live.getGameId();
+        if (!live.isClockRunning()) {
+            clockEngine.cancel(gameId);
+            return;
+        }
+        long remainingMs = getEffectiveTimeLeftMs(live, live.isWhiteToMove());
+        clockEngine.schedule(gameId, remainingMs, () -> gameCommandExecutor.submit(gameId, () -> handleFlagFall(gameId)));
+    }
+
+    /**
+     * Called by the clock engine when the side to move may have run out of time
+     */
+    private void handleFlagFall(String gameId) {
+        LiveGame live = liveGameRegistry.getOrLoad(gameId);
+        if (!live.isActive()) {
+            return;
+        }
+        boolean whiteToMove = live.isWhiteToMove();
+        if (getEffectiveTimeLeftMs(live, whiteToMove) > 0) {
+            // Deadline moved in the meantime (e.g. live state reloaded), re-arm it
+            scheduleFlagFall(live);
+            return;
+        }
+        if (whiteToMove) {
+            live.setWhiteTimeLeftMs(0L);
+        } else {
+            live.setBlackTimeLeftMs(0L);
+        }
+        finishOnTimeout(live);
+        gameEventTrace.record(GameEventTrace.Type.FLAG_FALL, gameId, live.getPlyCount(), (short) 0, 0L);
+    }
+
+    private void finishOnTimeout(LiveGame live) {
+        finishLiveGame(live, live.isWhiteToMove() ? "0-1" : "1-0", "timeout");
+    }
+
+    /**
+     * Finish a live game: persist the result, update ratings, drop the live state and notify players.
+     * Finished games are written through in their own transaction, so results and ratings never
+     * depend on the move journal and are not rolled back with the caller.
+     */
+    private Game finishLiveGame(LiveGame live, String result, String reason) {
+        live.setStatus("finished");
+        Game savedGame;
+        try {
+            savedGame = transactionTemplate.execute(status -> {
+                Game game = loadGameWithLiveState(live);
+                game.setStatus("finished");
+                game.setFinishedAt(LocalDateTime.now());
+                game.setResult(result);
+                game.setResultReason(reason);
+                game.setDrawOfferedBy(null);
+                Game saved = gameRepository.save(game);
+
+                // Update ratings
+                ratingService.updateRatingsForGame(saved);
+                // Remove from lobby if it was created via matchmaking
+                removeLobbyGameByPlayers(live.getWhiteId(), live.getBlackId());
+                return saved;
+            });
+        } finally {
+            // On failure the persisted game is still active and is reloaded on next access
+            liveGameRegistry.remove(live.getGameId());
+        }
+        clockEngine.cancel(live.getGameId());
+        logger.info("Game {} finished {} by {}", live.getGameId(), result, reason);
         notifyGameUpdate(savedGame);
+        return savedGame;
+    }
 
-        return moveRecord;
+    /**
+     * Load active games into the live registry on startup and arm their clocks
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void restoreActiveGameClocks() {
+        List<Game> activeGames = gameRepository.findByStatus("active");
+        for (Game game : activeGames) {
+            try {
+                gameCommandExecutor.run(game.getId(), () -> {
+                    LiveGame live = liveGameRegistry.getOrLoad(game.getId());
+                    scheduleFlagFall(live);
+                    notifyBotTurn(live);
+                });
+            } catch (RuntimeException e) {
+                logger.warn("Failed to restore clock for game {}: {}", game.getId(), e.getMessage());
+            }
+        }
+        logger.info("Restored clocks for {} active games", clockEngine.size());
     }
-    
+
+    /**
+     * Reload a game whose journaled moves could not be stored, so it continues from the
+     * stored position instead of running ahead of the database
+     */
+    @EventListener
+    public void onMoveJournalGap(MoveJournalGapEvent event) {
+        String gameId = event.getGameId();
+        gameCommandExecutor.submit(gameId, () -> {
+            liveGameRegistry.remove(gameId);
+            LiveGame live = liveGameRegistry.getOrLoad(gameId);
+            logger.warn("Game {} reloaded at ply {} after a move journal gap", gameId, live.getPlyCount());
+            if (live.isActive()) {
+                scheduleFlagFall(live);
+                notifyGameUpdate(live);
+                notifyBotTurn(live);
+            }
+        });
+    }
+
+    /**
+     * Load the persisted game and overlay the live position and clocks
+     */
+    private Game loadGameWithLiveState(LiveGame live) {
+        Game game = loadGame(live.getGameId());
+        live.copyTo(game);
+        return game;
+    }
+
+    /**
+     * Load a game after its journaled moves have reached the database
+     */
+    private Game loadGame(String gameId) {
+        moveJournalWriter.flushPending(gameId);
+        return gameRepository.findById(gameId)
+                .orElseThrow(() -> new RuntimeException("Game not found"));
+    }
+
+    /**
+     * Move as returned to callers, the database keeps it as a packed move code
+     */
+    private Move toMoveRecord(MoveJournal.Entry entry) {
+        Move move = new Move(null, entry.getPly(), entry.getMove(), entry.getFen());
+        move.setId(GameMoveStore.moveId(entry.getGameId(), entry.getPly()));
+        move.setCreatedAt(entry.getCreatedAt());
+        return move;
+    }
+
+    /**
+     * Ask for the bot's reply when it is the bot's turn; delivered after the surrounding transaction commits
+     */
+    private void notifyBotTurn(LiveGame live) {
+        if (live.isBotToMove()) {
+            eventPublisher.publishEvent(new BotTurnEvent(live.getGameId(), live.getBotDifficulty()));
+        }
+    }
+
     /**
      * Send WebSocket notification about game update
      */
@@ -233,57 +454,29 @@ public class GameService {
             try {
                 GameUpdateMessage msg = createGameUpdateMessage(game);
                 String topic = "/topic/game/" + game.getId() + "/updates";
-                System.out.println("📤 Sending game update to " + topic + " - FEN: " + msg.getFenCurrent());
+                logger.debug("Sending game update to {}", topic);
                 messagingTemplate.convertAndSend(topic, msg);
             } catch (Exception e) {
                 // Log error but don't fail the request
-                System.err.println("Failed to send WebSocket notification: " + e.getMessage());
+                logger.warn("Failed to send WebSocket notification for game {}: {}", game.getId(), e.getMessage());
             }
         }
     }
 
-    private void sendClockTick(Game game) {
-        if (messagingTemplate == null) {
-            return;
-        }
-        try {
-            messagingTemplate.convertAndSend(
-                "/topic/game/" + game.getId() + "/updates",
-                createGameUpdateMessage(game)
-            );
-        } catch (Exception e) {
-            System.err.println("Failed to send clock tick: " + e.getMessage());
-        }
-    }
-    
-    /**
-     * Get half-move count from FEN (number of half-moves played)
-     */
-    private int getHalfMoveCount(String fen) {
-        if (fen == null || fen.isEmpty()) {
-            return 0;
-        }
-        String[] parts = fen.split(" ");
-        if (parts.length < 6) {
-            return 0;
-        }
-        
-        // parts[1] = active color (w/b)
-        // parts[5] = fullmove number (starts at 1)
-        try {
-            int fullMoveNumber = Integer.parseInt(parts[5]);
-            boolean isWhiteToMove = "w".equals(parts[1]);
-            
-            // Calculate half-moves: (fullMoveNumber - 1) * 2 + (isWhiteToMove ? 0 : 1)
-            // fullMoveNumber=1, white to move = 0 half-moves (start position)
-            // fullMoveNumber=1, black to move = 1 half-move (white moved)
-            // fullMoveNumber=2, white to move = 2 half-moves (white & black moved)
-            return (fullMoveNumber - 1) * 2 + (isWhiteToMove ? 0 : 1);
-        } catch (NumberFormatException e) {
-            return 0;
+    private void notifyGameUpdate(LiveGame live) {
+        if (messagingTemplate != null) {
+            try {
+                GameUpdateMessage msg = createGameUpdateMessage(live);
+                String topic = "/topic/game/" + live.getGameId() + "/updates";
+                logger.debug("Sending game update to {}", topic);
+                messagingTemplate.convertAndSend(topic, msg);
+            } catch (Exception e) {
+                // Log error but don't fail the request
+                logger.warn("Failed to send WebSocket notification for game {}: {}", live.getGameId(), e.getMessage());
+            }
         }
     }
-    
+
     private GameUpdateMessage createGameUpdateMessage(Game game) {
         GameUpdateMessage msg = new GameUpdateMessage();
         msg.setGameId(game.getId());
@@ -295,6 +488,20 @@ public class GameService {
         msg.setBlackTimeLeftMs(getEffectiveTimeLeftMs(game, false));
         msg.setLastMoveAt(game.getLastMoveAt());
         msg.setDrawOfferedById(game.getDrawOfferedBy() != null ? game.getDrawOfferedBy().getId() : null);
+        msg.setServerTimestamp(System.currentTimeMillis());
+        return msg;
+    }
+    
+    private GameUpdateMessage createGameUpdateMessage(LiveGame live) {
+        GameUpdateMessage msg = new GameUpdateMessage();
+        msg.setGameId(live.getGameId());
+        msg.setStatus(live.getStatus());
+        msg.setFenCurrent(live.getFen());
+        msg.setWhiteTimeLeftMs(getEffectiveTimeLeftMs(live, true));
+        msg.setBlackTimeLeftMs(getEffectiveTimeLeftMs(live, false));
+        msg.setLastMoveAt(live.getLastMoveAt());
+        msg.setDrawOfferedById(live.getDrawOfferedById());
+        msg.setServerTimestamp(System.currentTimeMillis());
         return msg;
     }
     
@@ -309,6 +516,7 @@ public class GameService {
         private Long blackTimeLeftMs;
         private LocalDateTime lastMoveAt;
         private UUID drawOfferedById;
+        private long serverTimestamp; // epoch millis of the clock snapshot
         
         public String getGameId() { return gameId; }
         public void setGameId(String gameId) { this.gameId = gameId; }
@@ -328,45 +536,47 @@ public class GameService {
         public void setLastMoveAt(LocalDateTime lastMoveAt) { this.lastMoveAt = lastMoveAt; }
         public UUID getDrawOfferedById() { return drawOfferedById; }
         public void setDrawOfferedById(UUID drawOfferedById) { this.drawOfferedById = drawOfferedById; }
+        public long getServerTimestamp() { return serverTimestamp; }
+        public void setServerTimestamp(long serverTimestamp) { this.serverTimestamp = serverTimestamp; }
     }
 
-    private boolean updateClocksOnMove(Game game, boolean isWhiteToMove) {
+    private boolean updateClocksOnMove(LiveGame live, boolean isWhiteToMove) {
         LocalDateTime now = LocalDateTime.now();
-        LocalDateTime lastMoveAt = game.getLastMoveAt();
+        LocalDateTime lastMoveAt = live.getLastMoveAt();
 
         // Count existing moves BEFORE this move
-        int moveCount = moveRepository.findByGameIdOrderByMoveNumber(game.getId()).size();
+        int moveCount = live.getPlyCount();
         
         // For first two half-moves (first move of each player): just set timestamp, don't update time
         if (lastMoveAt == null || moveCount < 2) {
-            game.setLastMoveAt(now);
+            live.setLastMoveAt(now);
             return false;
         }
 
         long elapsedMs = Duration.between(lastMoveAt, now).toMillis();
         
         // Increment is NOT applied to first move of each player (moves 1 and 2)
-        long incrementMs = (moveCount >= 2) ? parseIncrementMs(game.getTimeControl()) : 0L;
+        long incrementMs = (moveCount >= 2) ? parseIncrementMs(live.getTimeControl()) : 0L;
 
         if (isWhiteToMove) {
-            long remaining = safeTimeLeft(game.getWhiteTimeLeftMs()) - elapsedMs;
+            long remaining = live.getWhiteTimeLeftMs() - elapsedMs;
             if (remaining <= 0) {
-                game.setWhiteTimeLeftMs(0L);
-                finishGameOnTimeout(game, true);
+                live.setWhiteTimeLeftMs(0L);
+                live.setStatus("finished");
                 return true;
             }
-            game.setWhiteTimeLeftMs(remaining + incrementMs);
+            live.setWhiteTimeLeftMs(remaining + incrementMs);
         } else {
-            long remaining = safeTimeLeft(game.getBlackTimeLeftMs()) - elapsedMs;
+            long remaining = live.getBlackTimeLeftMs() - elapsedMs;
             if (remaining <= 0) {
-                game.setBlackTimeLeftMs(0L);
-                finishGameOnTimeout(game, false);
+                live.setBlackTimeLeftMs(0L);
+                live.setStatus("finished");
                 return true;
             }
-            game.setBlackTimeLeftMs(remaining + incrementMs);
+            live.setBlackTimeLeftMs(remaining + incrementMs);
         }
         
-        game.setLastMoveAt(now);
+        live.setLastMoveAt(now);
         return false;
     }
 
@@ -390,13 +600,6 @@ public class GameService {
         return value == null ? 0L : value;
     }
 
-    private void finishGameOnTimeout(Game game, boolean whiteTimedOut) {
-        game.setStatus("finished");
-        game.setResult(whiteTimedOut ? "0-1" : "1-0");
-        game.setResultReason("timeout");
-        game.setFinishedAt(LocalDateTime.now());
-    }
-
     public long getEffectiveTimeLeftMs(Game game, boolean whiteSide) {
         if (game == null) {
             return 0L;
@@ -413,189 +616,180 @@ public class GameService {
         return Math.max(base - elapsedMs, 0L);
     }
 
-    @Scheduled(fixedRate = 1000)
-    @Transactional
-    public void checkGameTimeouts() {
-        List<Game> activeGames = gameRepository.findByStatus("active");
-        if (activeGames.isEmpty()) {
-            return;
+    public long getEffectiveTimeLeftMs(LiveGame live, boolean whiteSide) {
+        long base = whiteSide ? live.getWhiteTimeLeftMs() : live.getBlackTimeLeftMs();
+        if (!live.isActive() || live.getLastMoveAt() == null) {
+            return base;
         }
-        LocalDateTime now = LocalDateTime.now();
-        for (Game game : activeGames) {
-            // Skip games with no moves yet (timer hasn't started)
-            if (game.getLastMoveAt() == null) {
-                continue;
-            }
-            
-            // Skip games with less than 2 half-moves (timer starts after first move of each player)
-            int halfMoveCount = getHalfMoveCount(game.getFenCurrent());
-            if (halfMoveCount < 2) {
-                continue;
-            }
-
-            boolean whiteToMove = game.isWhiteToMove();
-            long base = whiteToMove ? safeTimeLeft(game.getWhiteTimeLeftMs()) : safeTimeLeft(game.getBlackTimeLeftMs());
-            long elapsedMs = Duration.between(game.getLastMoveAt(), now).toMillis();
-            long remaining = base - elapsedMs;
-
-            if (remaining <= 0) {
-                if (whiteToMove) {
-                    game.setWhiteTimeLeftMs(0L);
-                } else {
-                    game.setBlackTimeLeftMs(0L);
-                }
-                finishGameOnTimeout(game, whiteToMove);
-                Game savedGame = gameRepository.save(game);
-                ratingService.updateRatingsForGame(savedGame);
-                // Remove from lobby if it was created via matchmaking
-                removeLobbyGameByPlayers(savedGame.getPlayerWhite().getId(), savedGame.getPlayerBlack().getId());
-                notifyGameUpdate(savedGame);
-                continue;
-            }
-
-            sendClockTick(game);
+        if (whiteSide != live.isWhiteToMove()) {
+            return base;
         }
+        long elapsedMs = Duration.between(live.getLastMoveAt(), LocalDateTime.now()).toMillis();
+        return Math.max(base - elapsedMs, 0L);
     }
 
     /**
-     * Resign from game
+     * Optional low-rate clock sync for clients that drift, snapshots are sent on moves and game events anyway
      */
-    @Transactional
-    public Game resign(String gameId, UUID userId) {
-        Game game = gameRepository.findById(gameId)
-                .orElseThrow(() -> new RuntimeException("Game not found"));
-
-        if (!game.isActive()) {
-            throw new RuntimeException("Game is not active");
+    @Scheduled(fixedRateString = "${app.clock.sync-interval-ms:15000}")
+    public void broadcastClockSync() {
+        if (!clockSyncEnabled || messagingTemplate == null) {
+            return;
         }
-
-        if (!game.isPlayerInGame(userId)) {
-            throw new RuntimeException("User is not in this game");
+        for (LiveGame live : liveGameRegistry.getActiveGames()) {
+            // Snapshots are taken on the game's worker so they never see a half-applied move
+            gameCommandExecutor.submit(live.getGameId(), () -> {
+                if (!live.isClockRunning()) {
+                    return;
+                }
+                try {
+                    messagingTemplate.convertAndSend("/topic/game/" + live.getGameId() + "/clock", createClockSyncMessage(live));
+                } catch (Exception e) {
+                    logger.warn("Failed to send clock sync for game {}: {}", live.getGameId(), e.getMessage());
+                }
+            });
         }
+    }
 
-        game.setStatus("finished");
-        game.setFinishedAt(LocalDateTime.now());
+    /**
+     * Current clock snapshot of a game (on-demand sync, e.g. after a reconnect)
+     */
+    public ClockSyncMessage getClockSnapshot(String gameId) {
+        return gameCommandExecutor.call(gameId, () -> createClockSyncMessage(liveGameRegistry.getOrLoad(gameId)));
+    }
 
-        if (game.isPlayerWhite(userId)) {
-            game.setResult("0-1");
-        } else {
-            game.setResult("1-0");
-        }
-        game.setResultReason("resignation");
+    private ClockSyncMessage createClockSyncMessage(LiveGame live) {
+        ClockSyncMessage msg = new ClockSyncMessage();
+        msg.setGameId(live.getGameId());
+        msg.setStatus(live.getStatus());
+        msg.setSideToMove(live.isWhiteToMove() ? "w" : "b");
+        msg.setClockRunning(live.isClockRunning());
+        msg.setWhiteTimeLeftMs(getEffectiveTimeLeftMs(live, true));
+        msg.setBlackTimeLeftMs(getEffectiveTimeLeftMs(live, false));
+        msg.setServerTimestamp(System.currentTimeMillis());
+        return msg;
+    }
 
-        Game savedGame = gameRepository.save(game);
-        
-        // Update ratings
-        ratingService.updateRatingsForGame(savedGame);
-        
-        // Remove from lobby if it was created via matchmaking
-        removeLobbyGameByPlayers(savedGame.getPlayerWhite().getId(), savedGame.getPlayerBlack().getId());
-        
-        // Send WebSocket notification
-        notifyGameUpdate(savedGame);
-        
-        return savedGame;
+    /**
+     * Resign from game
+     */
+    public Game resign(String gameId, UUID userId) {
+        return gameCommandExecutor.call(gameId, () -> {
+            LiveGame live = getActiveLiveGame(gameId, userId);
+            return finishLiveGame(live, live.isPlayerWhite(userId) ? "0-1" : "1-0", "resignation");
+        });
     }
 
     /**
      * Offer draw
      */
-    @Transactional
     public void offerDraw(String gameId, UUID userId) {
-        Game game = gameRepository.findById(gameId)
-                .orElseThrow(() -> new RuntimeException("Game not found"));
-
-        if (!game.isActive()) {
-            throw new RuntimeException("Game is not active");
-        }
-
-        if (!game.isPlayerInGame(userId)) {
-            throw new RuntimeException("User is not in this game");
-        }
-
-        User user = userRepository.findById(userId)
-                .orElseThrow(() -> new RuntimeException("User not found"));
+        gameCommandExecutor.run(gameId, () -> {
+            LiveGame live = getActiveLiveGame(gameId, userId);
+            updateDrawOffer(live, userId);
 
-        game.setDrawOfferedBy(user);
-        gameRepository.save(game);
-
-        // Notify opponent via WebSocket
-        notifyGameUpdate(game);
+            // Notify opponent via WebSocket
+            notifyGameUpdate(live);
+        });
     }
 
     /**
      * Respond to draw offer
      */
-    @Transactional
     public void respondToDraw(String gameId, UUID userId, boolean accept) {
-        Game game = gameRepository.findById(gameId)
-                .orElseThrow(() -> new RuntimeException("Game not found"));
+        gameCommandExecutor.run(gameId, () -> {
+            LiveGame live = getActiveLiveGame(gameId, userId);
 
-        if (!game.isActive()) {
-            throw new RuntimeException("Game is not active");
-        }
+            if (live.getDrawOfferedById() == null) {
+                throw new RuntimeException("No draw offer pending");
+            }
 
-        if (!game.isPlayerInGame(userId)) {
-            throw new RuntimeException("User is not in this game");
-        }
+            if (live.getDrawOfferedById().equals(userId)) {
+                throw new RuntimeException("Cannot respond to your own draw offer");
+            }
 
-        if (game.getDrawOfferedBy() == null) {
-            throw new RuntimeException("No draw offer pending");
-        }
+            if (accept) {
+                // Accept draw
+                finishLiveGame(live, "1/2-1/2", "agreement");
+            } else {
+                // Decline draw
+                updateDrawOffer(live, null);
 
-        if (game.getDrawOfferedBy().getId().equals(userId)) {
-            throw new RuntimeException("Cannot respond to your own draw offer");
-        }
+                // Notify via WebSocket
+                notifyGameUpdate(live);
+            }
+        });
+    }
 
-        if (accept) {
-            // Accept draw
-            game.setStatus("finished");
-            game.setFinishedAt(LocalDateTime.now());
-            game.setResult("1/2-1/2");
-            game.setResultReason("agreement");
-            game.setDrawOfferedBy(null);
-            
-            Game savedGame = gameRepository.save(game);
-            
-            // Update ratings
-            ratingService.updateRatingsForGame(savedGame);
-            
-            // Remove from lobby if it was created via matchmaking
-            removeLobbyGameByPlayers(savedGame.getPlayerWhite().getId(), savedGame.getPlayerBlack().getId());
-            
-            // Notify via WebSocket
-            notifyGameUpdate(savedGame);
-        } else {
-            // Decline draw
-            game.setDrawOfferedBy(null);
-            gameRepository.save(game);
-            
-            // Notify via WebSocket
-            notifyGameUpdate(game);
-        }
+    /**
+     * Claim a draw by threefold repetition or the 50-move rule
+     */
+    public Game claimDraw(String gameId, UUID userId) {
+        return gameCommandExecutor.call(gameId, () -> {
+            LiveGame live = getActiveLiveGame(gameId, userId);
+
+            PositionHistory history = live.getPositionHistory();
+            String reason;
+            if (history.repetitionCount() >= 3) {
+                reason = "threefold_repetition";
+            } else if (history.getHalfMoveClock() >= 100) {
+                reason = "fifty_move_rule";
+            } else {
+                throw new RuntimeException("Draw cannot be claimed in this position");
+            }
+
+            return finishLiveGame(live, "1/2-1/2", reason);
+        });
     }
 
     /**
      * Abandon game (if inactive for too long)
      */
-    @Transactional
     public Game abandon(String gameId, UUID userId) {
-        Game game = gameRepository.findById(gameId)
-                .orElseThrow(() -> new RuntimeException("Game not found"));
+        return gameCommandExecutor.call(gameId, () -> {
+            LiveGame live = getActiveLiveGame(gameId, userId);
+            live.setStatus("abandoned");
+            Game savedGame;
+            try {
+                savedGame = transactionTemplate.execute(status -> {
+                    Game game = loadGameWithLiveState(live);
+                    game.setStatus("abandoned");
+                    game.setFinishedAt(LocalDateTime.now());
+                    game.setResultReason("abandonment");
+                    return gameRepository.save(game);
+                });
+            } finally {
+                liveGameRegistry.remove(gameId);
+            }
+            clockEngine.cancel(gameId);
+            return savedGame;
+        });
+    }
 
-        if (!game.isActive()) {
+    /**
+     * Live game for a command of a player, only valid while the game is active
+     */
+    private LiveGame getActiveLiveGame(String gameId, UUID userId) {
+        LiveGame live = liveGameRegistry.getOrLoad(gameId);
+
+        if (!live.isActive()) {
             throw new RuntimeException("Game is not active");
         }
 
-        if (!game.isPlayerInGame(userId)) {
+        if (!live.isPlayerInGame(userId)) {
             throw new RuntimeException("User is not in this game");
         }
+        return live;
+    }
 
-        game.setStatus("abandoned");
-        game.setFinishedAt(LocalDateTime.now());
-        game.setResultReason("abandonment");
-
-        return gameRepository.save(game);
+    /**
+     * Set or clear the pending draw offer (null clears it)
+     */
+    private void updateDrawOffer(LiveGame live, UUID offeredById) {
+        User offeredBy = offeredById != null ? userRepository.getReferenceById(offeredById) : null;
+        transactionTemplate.executeWithoutResult(status ->
+                gameRepository.updateDrawOfferedBy(live.getGameId(), offeredBy));
+        live.setDrawOfferedById(offeredById);
     }
 
     /**
@@ -603,7 +797,8 @@ public class GameService {
      */
     @Transactional(readOnly = true)
     public List<Move> getGameMoves(String gameId) {
-        return moveRepository.findByGameIdOrderByMoveNumber(gameId);
+        moveJournalWriter.flushPending(gameId);
+        return gameMoveStore.getMoves(gameId);
     }
 
     /**
@@ -635,8 +830,7 @@ public class GameService {
      */
     @Transactional(readOnly = true)
     public String generatePGN(String gameId) {
-        Game game = gameRepository.findById(gameId)
-                .orElseThrow(() -> new RuntimeException("Game not found"));
+        Game game = loadGame(gameId);
 
         List<Move> moves = getGameMoves(gameId);
 
@@ -673,33 +867,48 @@ public class GameService {
      * Enum for game end states
      */
     private enum GameEndState {
-        ONGOING, CHECKMATE, STALEMATE
+        ONGOING(null),
+        CHECKMATE("checkmate"),
+        STALEMATE("stalemate"),
+        INSUFFICIENT_MATERIAL("insufficient_material"),
+        FIVEFOLD_REPETITION("fivefold_repetition"),
+        SEVENTY_FIVE_MOVE_RULE("seventy_five_move_rule");
+
+        private final String reason;
+
+        GameEndState(String reason) {
+            this.reason = reason;
+        }
+
+        public String getReason() {
+            return reason;
+        }
     }
 
     /**
-     * Check if the game has ended using chesslib
+     * Check if the game has ended after the last move: mate, stalemate or a draw
+     * that applies without a claim (insufficient material, fivefold repetition, 75-move rule)
      */
-    private GameEndState checkGameEndWithChesslib(String fen) {
+    private GameEndState checkGameEnd(LiveGame live) {
+        Board board = live.getBoard();
         try {
-            Board board = new Board();
-            board.loadFromFen(fen);
-            
-            System.out.println("🔍 checkGameEndWithChesslib - FEN: " + fen);
-            System.out.println("🔍 Current turn to move: " + (board.getSideToMove().toString()));
-            System.out.println("🔍 Is in check: " + board.isKingAttacked());
-            System.out.println("🔍 Is checkmate: " + board.isMated());
-            System.out.println("🔍 Is stalemate: " + board.isStaleMate());
-            
-            if (board.isMated()) {
-                return GameEndState.CHECKMATE;
-            } else if (board.isStaleMate()) {
-                return GameEndState.STALEMATE;
+            // One legal-move generation decides mate/stalemate and is reused to validate the next move
+            if (live.getLegalMoves().isEmpty()) {
+                return live.isInCheck() ? GameEndState.CHECKMATE : GameEndState.STALEMATE;
+            } else if (board.isInsufficientMaterial()) {
+                return GameEndState.INSUFFICIENT_MATERIAL;
             }
-            
+
+            PositionHistory history = live.getPositionHistory();
+            if (history.repetitionCount() >= 5) {
+                return GameEndState.FIVEFOLD_REPETITION;
+            } else if (history.getHalfMoveClock() >= 150) {
+                return GameEndState.SEVENTY_FIVE_MOVE_RULE;
+            }
+
             return GameEndState.ONGOING;
         } catch (Exception e) {
-            System.err.println("Error checking game end with chesslib: " + e.getMessage());
-            e.printStackTrace();
+            logger.error("Error checking game end for game {}", live.getGameId(), e);
             return GameEndState.ONGOING;
         }
     }
@@ -716,10 +925,10 @@ public class GameService {
                 })
                 .forEach(lg -> {
                     lobbyGameRepository.delete(lg);
-                    System.out.println("🗑️ Removed lobby game: " + lg.getId() + " after game finished");
+                    logger.info("Removed lobby game {} after game finished", lg.getId());
                 });
         } catch (Exception e) {
-            System.err.println("Error removing lobby game: " + e.getMessage());
+            logger.warn("Error removing lobby game: {}", e.getMessage());
         }
     }
 }
@@ -0,0 +1,370 @@
+package com.chessonline.service;
+
+import com.chessonline.model.BotDifficulty;
+import com.github.bhlangonijr.chesslib.Board;
+import com.github.bhlangonijr.chesslib.Piece;
+import com.github.bhlangonijr.chesslib.PieceType;
+import com.github.bhlangonijr.chesslib.Side;
+import com.github.bhlangonijr.chesslib.move.Move;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * In-process engine for the low bot levels, so they need no Stockfish process.
+ * Iterative-deepening alpha-beta over chesslib's legal moves with a capture-only
+ * quiescence search, evaluating material plus piece-square tables. Weakness comes
+ * from the shallow depth and from blunder injection: with the level's blunder rate
+ * the bot plays a random root move that is at most the level's margin worse than the best.
+ * Each search works on its own Board, so any number can run at once.
+ */
+@Component
+public class LightweightBotEngine {
+    private static final Logger logger = LoggerFactory.getLogger(LightweightBotEngine.class);
+
+    private static final int MATE = 100_000;
+    private static final int INFINITY = MATE + 1;
+    private static final int MAX_NODES = 200_000; // Hard stop, keeps a single search in the low milliseconds
+
+    // Centipawn values by PieceType ordinal: pawn, knight, bishop, rook, queen, king
+    private static final int[] PIECE_VALUES = {100, 320, 330, 500, 900, 0};
+
+    // Piece-square tables from White's point of view, rank 8 first (index = square ^ 56 for White)
+    private static final int[][] PIECE_SQUARE = {
+            { // pawn
+                    0, 0, 0, 0, 0, 0, 0, 0,
+                    50, 50, 50, 50, 50, 50, 50, 50,
+                    10, 10, 20, 30, 30, 20, 10, 10,
+                    5, 5, 10, 25, 25, 10, 5, 5,
+                    0, 0, 0, 20, 20, 0, 0, 0,
+                    5, -5, -10, 0, 0, -10, -5, 5,
+                    5, 10, 10, -20, -20, 10, 10, 5,
+                    0, 0, 0, 0, 0, 0, 0, 0},
+            { // knight
+                    -50, -40, -30, -30, -30, -30, -40, -50,
+                    -40, -20, 0, 0, 0, 0, -20, -40,
+                    -30, 0, 10, 15, 15, 10, 0, -30,
+                    -30, 5, 15, 20, 20, 15, 5, -30,
+                    -30, 0, 15, 20, 20, 15, 0, -30,
+                    -30, 5, 10, 15, 15, 10, 5, -30,
+                    -40, -20, 0, 5, 5, 0, -20, -40,
+                    -50, -40, -30, -30, -30, -30, -40, -50},
+            { // bishop
+                    -20, -10, -10, -10, -10, -10, -10, -20,
+                    -10, 0, 0, 0, 0, 0, 0, -10,
+                    -10, 0, 5, 10, 10, 5, 0, -10,
+                    -10, 5, 5, 10, 10, 5, 5, -10,
+                    -10, 0, 10, 10, 10, 10, 0, -10,
+                    -10, 10, 10, 10, 10, 10, 10, -10,
+                    -10, 5, 0, 0, 0, 0, 5, -10,
+                    -20, -10, -10, -10, -10, -10, -10, -20},
+            { // rook
+                    0, 0, 0, 0, 0, 0, 0, 0,
+                    5, 10, 10, 10, 10, 10, 10, 5,
+                    -5, 0, 0, 0, 0, 0, 0, -5,
+                    -5, 0, 0, 0, 0, 0, 0, -5,
+                    -5, 0, 0, 0, 0, 0, 0, -5,
+                    -5, 0, 0, 0, 0, 0, 0, -5,
+                    -5, 0, 0, 0, 0, 0, 0, -5,
+                    0, 0, 0, 5, 5, 0, 0, 0},
+            { // queen
+                    -20, -10, -10, -5, -5, -10, -10, -20,
+                    -10, 0, 0, 0, 0, 0, 0, -10,
+                    -10, 0, 5, 5, 5, 5, 0, -10,
+                    -5, 0, 5, 5, 5, 5, 0, -5,
+                    0, 0, 5, 5, 5, 5, 0, -5,
+                    -10, 5, 5, 5, 5, 5, 0, -10,
+                    -10, 0, 5, 0, 0, 0, 0, -10,
+                    -20, -10, -10, -5, -5, -10, -10, -20},
+            { // king (middlegame: stay behind the pawns)
+                    -30, -40, -40, -50, -50, -40, -40, -30,
+                    -30, -40, -40, -50, -50, -40, -40, -30,
+                    -30, -40, -40, -50, -50, -40, -40, -30,
+                    -30, -40, -40, -50, -50, -40, -40, -30,
+                    -20, -30, -30, -40, -40, -30, -30, -20,
+                    -10, -20, -20, -20, -20, -20, -20, -10,
+                    20, 20, 0, 0, 0, 0, 20, 20,
+                    20, 30, 10, 0, 0, 10, 30, 20}
+    };
+
+    private static final Piece[] WHITE_PIECES = {
+            Piece.WHITE_PAWN, Piece.WHITE_KNIGHT, Piece.WHITE_BISHOP, Piece.WHITE_ROOK, Piece.WHITE_QUEEN, Piece.WHITE_KING};
+    private static final Piece[] BLACK_PIECES = {
+            Piece.BLACK_PAWN, Piece.BLACK_KNIGHT, Piece.BLACK_BISHOP, Piece.BLACK_ROOK, Piece.BLACK_QUEEN, Piece.BLACK_KING};
+
+    @Value("${app.bot.light-engine.enabled:true}")
+    private boolean enabled;
+
+    @Value("${app.bot.light-engine.beginner-depth:2}")
+    private int beginnerDepth;
+
+    @Value("${app.bot.light-engine.intermediate-depth:3}")
+    private int intermediateDepth;
+
+    @Value("${app.bot.light-engine.beginner-blunder-rate:0.25}")
+    private double beginnerBlunderRate;
+
+    @Value("${app.bot.light-engine.intermediate-blunder-rate:0.08}")
+    private double intermediateBlunderRate;
+
+    @Value("${app.bot.light-engine.beginner-blunder-margin-cp:350}")
+    private int beginnerBlunderMargin;
+
+    @Value("${app.bot.light-engine.intermediate-blunder-margin-cp:120}")
+    private int intermediateBlunderMargin;
+
+    private final Timer searchTimer;
+
+    public LightweightBotEngine(MeterRegistry meterRegistry) {
+        this.searchTimer = meterRegistry.timer("bot.light-engine.search");
+    }
+
+    /**
+     * Levels played in-process instead of by Stockfish
+     */
+    public boolean handles(BotDifficulty difficulty) {
+        return enabled && (difficulty == BotDifficulty.BEGINNER || difficulty == BotDifficulty.INTERMEDIATE);
+    }
+
+    /**
+     * Best move for the level in UCI notation, or null if the side to move has no legal moves
+     */
+    public String chooseMove(String fen, BotDifficulty difficulty) {
+        long start = System.nanoTime();
+        Board board = new Board();
+        board.loadFromFen(fen);
+        List<Move> moves = orderMoves(board, board.legalMoves());
+        if (moves.isEmpty()) {
+            return null;
+        }
+
+        Search search = new Search(board);
+        int depth = difficulty == BotDifficulty.BEGINNER ? beginnerDepth : intermediateDepth;
+        int[] scores = new int[moves.size()];
+        for (int d = 1; d <= depth && !search.outOfNodes(); d++) {
+            int[] iteration = search.scoreRoot(moves, d);
+            if (search.outOfNodes() && d > 1) {
+                break; // keep the last complete iteration
+            }
+            scores = iteration;
+            sortByScore(moves, scores);
+        }
+
+        Move chosen = moves.get(0);
+        double blunderRate = difficulty == BotDifficulty.BEGINNER ? beginnerBlunderRate : intermediateBlunderRate;
+        if (moves.size() > 1 && ThreadLocalRandom.current().nextDouble() < blunderRate) {
+            int margin = difficulty == BotDifficulty.BEGINNER ? beginnerBlunderMargin : intermediateBlunderMargin;
+            int candidates = 1;
+            while (candidates < moves.size() && scores[0] - scores[candidates] <= margin) {
+                candidates++;
+            }
+            chosen = moves.get(ThreadLocalRandom.current().nextInt(candidates));
+        }
+
+        searchTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        logger.debug("Light engine {} chose {} (best {} at {}cp, {} nodes)",
+                difficulty, chosen, moves.get(0), scores[0], search.nodes);
+        return chosen.toString();
+    }
+
+    /**
+     * The count most plausible moves in UCI notation, best first, from a shallow search at any level
+     */
+    public List<String> topMoves(String fen, int count, int depth) {
+        Board board = new Board();
+        board.loadFromFen(fen);
+        List<Move> moves = orderMoves(board, board.legalMoves());
+        Search search = new Search(board);
+        for (int d = 1; d <= depth && !search.outOfNodes(); d++) {
+            int[] scores = search.scoreRoot(moves, d);
+            if (search.outOfNodes() && d > 1) {
+                break;
+            }
+            sortByScore(moves, scores);
+        }
+        List<String> result = new ArrayList<>();
+        for (int i = 0; i < Math.min(count, moves.size()); i++) {
+            result.add(moves.get(i).toString());
+        }
+        return result;
+    }
+
+    /**
+     * Negamax alpha-beta state for one search
+     */
+    private static class Search {
+        private final Board board;
+        private int nodes;
+
+        Search(Board board) {
+            this.board = board;
+        }
+
+        boolean outOfNodes() {
+            return nodes >= MAX_NODES;
+        }
+
+        int[] scoreRoot(List<Move> moves, int depth) {
+            int[] scores = new int[moves.size()];
+            for (int i = 0; i < moves.size(); i++) {
+                board.doMove(moves.get(i));
+                // Full window per root move so every move gets a comparable score for blunder injection
+                scores[i] = -alphaBeta(depth - 1, 1, -INFINITY, INFINITY);
+                board.undoMove();
+            }
+            return scores;
+        }
+
+        private int alphaBeta(int depth, int ply, int alpha, int beta) {
+            nodes++;
+            if (board.isRepetition() || board.isInsufficientMaterial() || board.getHalfMoveCounter() >= 100) {
+                return 0;
+            }
+            List<Move> moves = board.legalMoves();
+            if (moves.isEmpty()) {
+                return board.isKingAttacked() ? -MATE + ply : 0;
+            }
+            if (depth <= 0) {
+                return quiescence(ply, alpha, beta);
+            }
+            for (Move move : orderMoves(board, moves)) {
+                board.doMove(move);
+                int score = -alphaBeta(depth - 1, ply + 1, -beta, -alpha);
+                board.undoMove();
+                if (score >= beta) {
+                    return beta;
+                }
+                if (score > alpha) {
+                    alpha = score;
+                }
+                if (outOfNodes()) {
+                    break;
+                }
+            }
+            return alpha;
+        }
+
+        private int quiescence(int ply, int alpha, int beta) {
+            nodes++;
+            int standPat = evaluate(board);
+            if (standPat >= beta) {
+                return beta;
+            }
+            if (standPat > alpha) {
+                alpha = standPat;
+            }
+            if (outOfNodes()) {
+                return alpha;
+            }
+            for (Move move : orderMoves(board, board.legalMoves())) {
+                if (!isCapture(board, move)) {
+                    break; // captures are ordered first
+                }
+                board.doMove(move);
+                int score = -quiescence(ply + 1, -beta, -alpha);
+                board.undoMove();
+                if (score >= beta) {
+                    return beta;
+                }
+                if (score > alpha) {
+                    alpha = score;
+                }
+            }
+            return alpha;
+        }
+    }
+
+    /**
+     * Material and piece-square score from the side to move's point of view
+     */
+    static int evaluate(Board board) {
+        int score = 0;
+        for (int type = 0; type < 6; type++) {
+            score += sideScore(board.getBitboard(WHITE_PIECES[type]), type, true);
+            score -= sideScore(board.getBitboard(BLACK_PIECES[type]), type, false);
+        }
+        return board.getSideToMove() == Side.WHITE ? score : -score;
+    }
+
+    private static int sideScore(long bitboard, int type, boolean white) {
+        int score = 0;
+        while (bitboard != 0) {
+            int square = Long.numberOfTrailingZeros(bitboard);
+            bitboard &= bitboard - 1;
+            score += PIECE_VALUES[type] + PIECE_SQUARE[type][white ? square ^ 56 : square];
+        }
+        return score;
+    }
+
+    /**
+     * Captures first, most valuable victim / least valuable attacker, then promotions, then quiet moves
+     */
+    private static List<Move> orderMoves(Board board, List<Move> moves) {
+        List<Move> ordered = new ArrayList<>(moves);
+        int[] keys = new int[ordered.size()];
+        for (int i = 0; i < keys.length; i++) {
+            keys[i] = orderKey(board, ordered.get(i));
+        }
+        // Insertion sort; move lists are short
+        for (int i = 1; i < keys.length; i++) {
+            int key = keys[i];
+            Move move = ordered.get(i);
+            int j = i - 1;
+            while (j >= 0 && keys[j] < key) {
+                keys[j + 1] = keys[j];
+                ordered.set(j + 1, ordered.get(j));
+                j--;
+            }
+            keys[j + 1] = key;
+            ordered.set(j + 1, move);
+        }
+        return ordered;
+    }
+
+    private static int orderKey(Board board, Move move) {
+        int key = 0;
+        if (isCapture(board, move)) {
+            Piece victim = board.getPiece(move.getTo());
+            int victimValue = victim == Piece.NONE ? PIECE_VALUES[0] : PIECE_VALUES[victim.getPieceType().ordinal()];
+            key += 10_000 + victimValue * 10 - PIECE_VALUES[board.getPiece(move.getFrom()).getPieceType().ordinal()] / 10;
+        }
+        if (move.getPromotion() != null && move.getPromotion() != Piece.NONE) {
+            key += 5_000 + PIECE_VALUES[move.getPromotion().getPieceType().ordinal()];
+        }
+        return key;
+    }
+
+    private static boolean isCapture(Board board, Move move) {
+        if (board.getPiece(move.getTo()) != Piece.NONE) {
+            return true;
+        }
+        return move.getTo() == board.getEnPassant()
+                && board.getPiece(move.getFrom()).getPieceType() == PieceType.PAWN;
+    }
+
+    /**
+     * Sort moves and their scores together, best first (stable, so earlier order breaks ties)
+     */
+    private static void sortByScore(List<Move> moves, int[] scores) {
+        for (int i = 1; i < scores.length; i++) {
+            int score = scores[i];
+            Move move = moves.get(i);
+            int j = i - 1;
+            while (j >= 0 && scores[j] < score) {
+                scores[j + 1] = scores[j];
+                moves.set(j + 1, moves.get(j));
+                j--;
+            }
+            scores[j + 1] = score;
+            moves.set(j + 1, move);
+        }
+    }
+}
@@ -0,0 +1,245 @@
+package com.chessonline.service;
+
+import com.chessonline.model.BotDifficulty;
+import com.chessonline.model.Game;
+import com.github.bhlangonijr.chesslib.Board;
+import com.github.bhlangonijr.chesslib.Side;
+import com.github.bhlangonijr.chesslib.move.Move;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * In-memory state of an active game.
+ * Holds the chesslib board, clocks, ply count and draw offer so that moves
+ * can be validated and applied without reloading the game from the database.
+ * The board is only changed through {@link #applyMove}, which keeps the
+ * legal-move cache and the repetition history in step with it.
+ */
+public class LiveGame {
+
+    private final String gameId;
+    private final UUID whiteId;
+    private final UUID blackId;
+    private final String timeControl;
+    private final Board board;
+    private final PositionHistory positionHistory = new PositionHistory();
+    private List<Move> legalMoves; // Legal moves of the side to move, generated once per ply
+
+    private String status;
+    private long whiteTimeLeftMs;
+    private long blackTimeLeftMs;
+    private LocalDateTime lastMoveAt;
+    private int plyCount;
+    private UUID drawOfferedById;
+    private BotDifficulty botDifficulty; // null unless the bot plays in this game
+
+    public LiveGame(String gameId, UUID whiteId, UUID blackId, String timeControl, String fen) {
+        this.gameId = gameId;
+        this.whiteId = whiteId;
+        this.blackId = blackId;
+        this.timeControl = timeControl;
+        this.board = new Board();
+        if (fen != null && !fen.isEmpty()) {
+            this.board.loadFromFen(fen);
+        }
+        this.status = "active";
+        recordPosition();
+    }
+
+    /**
+     * Build live state from a persisted game
+     */
+    public static LiveGame fromGame(Game game) {
+        LiveGame live = new LiveGame(
+                game.getId(),
+                game.getPlayerWhite().getId(),
+                game.getPlayerBlack().getId(),
+                game.getTimeControl(),
+                game.getFenCurrent()
+        );
+        live.status = game.getStatus();
+        live.whiteTimeLeftMs = game.getWhiteTimeLeftMs() != null ? game.getWhiteTimeLeftMs() : 0L;
+        live.blackTimeLeftMs = game.getBlackTimeLeftMs() != null ? game.getBlackTimeLeftMs() : 0L;
+        live.lastMoveAt = game.getLastMoveAt();
+        live.plyCount = game.getPlyCount();
+        live.drawOfferedById = game.getDrawOfferedBy() != null ? game.getDrawOfferedBy().getId() : null;
+        live.botDifficulty = game.getBotDifficulty();
+        return live;
+    }
+
+    /**
+     * Copy the live position, clocks and ply count onto a persisted game entity
+     */
+    public void copyTo(Game game) {
+        game.setFenCurrent(getFen());
+        game.setPlyCount(plyCount);
+        game.setWhiteTimeLeftMs(whiteTimeLeftMs);
+        game.setBlackTimeLeftMs(blackTimeLeftMs);
+        game.setLastMoveAt(lastMoveAt);
+    }
+
+    public String getGameId() {
+        return gameId;
+    }
+
+    public UUID getWhiteId() {
+        return whiteId;
+    }
+
+    public UUID getBlackId() {
+        return blackId;
+    }
+
+    public String getTimeControl() {
+        return timeControl;
+    }
+
+    public Board getBoard() {
+        return board;
+    }
+
+    public PositionHistory getPositionHistory() {
+        return positionHistory;
+    }
+
+    /**
+     * Legal moves in the current position. Generated at most once per ply and shared by
+     * move validation and the mate/stalemate check of the previous move.
+     */
+    public List<Move> getLegalMoves() {
+        if (legalMoves == null) {
+            legalMoves = board.legalMoves();
+        }
+        return legalMoves;
+    }
+
+    public boolean isLegal(Move move) {
+        return getLegalMoves().contains(move);
+    }
+
+    /**
+     * Apply a validated move to the board incrementally
+     */
+    public void applyMove(Move move) {
+        board.doMove(move);
+        legalMoves = null;
+        recordPosition();
+    }
+
+    public boolean isInCheck() {
+        return board.isKingAttacked();
+    }
+
+    /**
+     * Add the current board position to the repetition history (after each move)
+     */
+    private void recordPosition() {
+        positionHistory.push(board.getZobristKey(), board.getHalfMoveCounter());
+    }
+
+    /**
+     * Rebuild the repetition history from the positions since the last irreversible move
+     * (oldest first, the last one being the current position)
+     */
+    public void seedPositionHistory(List<String> fens) {
+        positionHistory.clear();
+        Board replay = new Board();
+        for (String fen : fens) {
+            replay.loadFromFen(fen);
+            positionHistory.push(replay.getZobristKey(), replay.getHalfMoveCounter());
+        }
+    }
+
+    public String getFen() {
+        return board.getFen();
+    }
+
+    public String getStatus() {
+        return status;
+    }
+
+    public void setStatus(String status) {
+        this.status = status;
+    }
+
+    public long getWhiteTimeLeftMs() {
+        return whiteTimeLeftMs;
+    }
+
+    public void setWhiteTimeLeftMs(long whiteTimeLeftMs) {
+        this.whiteTimeLeftMs = whiteTimeLeftMs;
+    }
+
+    public long getBlackTimeLeftMs() {
+        return blackTimeLeftMs;
+    }
+
+    public void setBlackTimeLeftMs(long blackTimeLeftMs) {
+        this.blackTimeLeftMs = blackTimeLeftMs;
+    }
+
+    public LocalDateTime getLastMoveAt() {
+        return lastMoveAt;
+    }
+
+    public void setLastMoveAt(LocalDateTime lastMoveAt) {
+        this.lastMoveAt = lastMoveAt;
+    }
+
+    public int getPlyCount() {
+        return plyCount;
+    }
+
+    public void setPlyCount(int plyCount) {
+        this.plyCount = plyCount;
+    }
+
+    public UUID getDrawOfferedById() {
+        return drawOfferedById;
+    }
+
+    public void setDrawOfferedById(UUID drawOfferedById) {
+        this.drawOfferedById = drawOfferedById;
+    }
+
+    public BotDifficulty getBotDifficulty() {
+        return botDifficulty;
+    }
+
+    // Helper methods
+    public boolean isActive() {
+        return "active".equals(status);
+    }
+
+    /**
+     * Clocks only run once each side has made its first move
+     */
+    public boolean isClockRunning() {
+        return isActive() && lastMoveAt != null && plyCount >= 2;
+    }
+
+    public boolean isWhiteToMove() {
+        return board.getSideToMove() == Side.WHITE;
+    }
+
+    /**
+     * The server-driven bot is to move in an active game
+     */
+    public boolean isBotToMove() {
+        if (botDifficulty == null || !isActive()) {
+            return false;
+        }
+        UUID toMove = isWhiteToMove() ? whiteId : blackId;
+        return toMove.toString().equals(BotService.getBotPlayerId());
+    }
+
+    public boolean isPlayerInGame(UUID userId) {
+        return whiteId.equals(userId) || blackId.equals(userId);
+    }
+
+    public boolean isPlayerWhite(UUID userId) {
+        return whiteId.equals(userId);
+    }
+}
@@ -0,0 +1,98 @@
+package com.chessonline.service;
+
+import com.chessonline.model.Game;
+import com.chessonline.repository.GameRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Registry of active games kept in memory.
+ * The database is only read when a game is not yet registered (e.g. after a restart).
+ */
+@Component
+public class LiveGameRegistry {
+    private static final Logger logger = LoggerFactory.getLogger(LiveGameRegistry.class);
+
+    private final Map<String, LiveGame> games = new ConcurrentHashMap<>();
+
+    private final GameRepository gameRepository;
+    private final GameMoveStore gameMoveStore;
+    private final MoveJournalWriter moveJournalWriter;
+
+    public LiveGameRegistry(GameRepository gameRepository, GameMoveStore gameMoveStore,
+                            MoveJournalWriter moveJournalWriter) {
+        this.gameRepository = gameRepository;
+        this.gameMoveStore = gameMoveStore;
+        this.moveJournalWriter = moveJournalWriter;
+    }
+
+    /**
+     * Get live state for a game, loading it from the database on first access
+     */
+    public LiveGame getOrLoad(String gameId) {
+        LiveGame live = games.get(gameId);
+        if (live != null) {
+            return live;
+        }
+
+        // Journaled moves of an evicted game must reach the database before it is reloaded
+        moveJournalWriter.flushPending(gameId);
+        Game game = gameRepository.findById(gameId)
+                .orElseThrow(() -> new RuntimeException("Game not found"));
+        if (!game.isActive()) {
+            // Finished games are never cached, callers see the persisted status
+            return LiveGame.fromGame(game);
+        }
+
+        return games.computeIfAbsent(gameId, id -> {
+            logger.debug("Loading live state for game {}", id);
+            LiveGame loaded = LiveGame.fromGame(game);
+            seedPositionHistory(loaded);
+            return loaded;
+        });
+    }
+
+    /**
+     * Restore repetition history from the moves played since the last capture or pawn move
+     */
+    private void seedPositionHistory(LiveGame live) {
+        int halfMoveClock = live.getPositionHistory().getHalfMoveClock();
+        int plyCount = live.getPlyCount();
+        if (halfMoveClock == 0 || plyCount == 0) {
+            return;
+        }
+
+        int anchorPly = Math.max(plyCount - halfMoveClock, 0);
+        List<String> fens = gameMoveStore.getFensFrom(live.getGameId(), anchorPly);
+        if (!fens.isEmpty()) {
+            live.seedPositionHistory(fens);
+        }
+    }
+
+    public Optional<LiveGame> get(String gameId) {
+        return Optional.ofNullable(games.get(gameId));
+    }
+
+    public void register(LiveGame live) {
+        games.put(live.getGameId(), live);
+    }
+
+    public void remove(String gameId) {
+        games.remove(gameId);
+    }
+
+    public Collection<LiveGame> getActiveGames() {
+        return games.values();
+    }
+
+    public int size() {
+        return games.size();
+    }
+}
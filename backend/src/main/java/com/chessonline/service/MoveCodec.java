@@ -0,0 +1,74 @@
+package com.chessonline.service;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Packs UCI moves into 16-bit codes: bits 0-5 from square, bits 6-11 to square
+ * (a1 = 0 ... h8 = 63), bits 12-14 promotion piece (0 none, 1 n, 2 b, 3 r, 4 q).
+ * Codes are stored big-endian, two bytes per ply, in games.move_codes.
+ */
+public final class MoveCodec {
+    private static final String PROMOTIONS = " nbrq";
+
+    private MoveCodec() {}
+
+    public static short encode(String uci) {
+        if (uci == null || uci.length() < 4 || uci.length() > 5) {
+            throw new IllegalArgumentException("Invalid UCI move: " + uci);
+        }
+        int from = square(uci.charAt(0), uci.charAt(1));
+        int to = square(uci.charAt(2), uci.charAt(3));
+        int promotion = 0;
+        if (uci.length() == 5) {
+            promotion = PROMOTIONS.indexOf(Character.toLowerCase(uci.charAt(4)));
+            if (promotion <= 0) {
+                throw new IllegalArgumentException("Invalid promotion in UCI move: " + uci);
+            }
+        }
+        return (short) (from | (to << 6) | (promotion << 12));
+    }
+
+    public static String decode(int code) {
+        int from = code & 0x3F;
+        int to = (code >>> 6) & 0x3F;
+        int promotion = (code >>> 12) & 0x7;
+        StringBuilder uci = new StringBuilder(5)
+                .append((char) ('a' + (from & 7))).append((char) ('1' + (from >>> 3)))
+                .append((char) ('a' + (to & 7))).append((char) ('1' + (to >>> 3)));
+        if (promotion > 0) {
+            uci.append(PROMOTIONS.charAt(promotion));
+        }
+        return uci.toString();
+    }
+
+    public static byte[] pack(List<String> moves) {
+        ByteBuffer buffer = ByteBuffer.allocate(moves.size() * 2);
+        for (String move : moves) {
+            buffer.putShort(encode(move));
+        }
+        return buffer.array();
+    }
+
+    public static List<String> unpack(byte[] codes) {
+        if (codes == null) {
+            return new ArrayList<>();
+        }
+        ByteBuffer buffer = ByteBuffer.wrap(codes);
+        List<String> moves = new ArrayList<>(codes.length / 2);
+        while (buffer.remaining() >= 2) {
+            moves.add(decode(buffer.getShort() & 0xFFFF));
+        }
+        return moves;
+    }
+
+    private static int square(char file, char rank) {
+        int f = Character.toLowerCase(file) - 'a';
+        int r = rank - '1';
+        if (f < 0 || f > 7 || r < 0 || r > 7) {
+            throw new IllegalArgumentException("Invalid square: " + file + rank);
+        }
+        return f + r * 8;
+    }
+}
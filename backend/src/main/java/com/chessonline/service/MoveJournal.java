@@ -0,0 +1,382 @@
+package com.chessonline.service;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.CRC32;
+
+/**
+ * Append-only, memory-mapped journal of applied moves.
+ * A move is acknowledged once its record is in the journal; MoveJournalWriter
+ * copies records to Postgres in batches and advances the checkpoint.
+ *
+ * The file is used as a ring: positions are logical and grow forever,
+ * the physical offset is position % capacity. Every record stores its own
+ * logical position, so stale records from an earlier lap are never replayed.
+ *
+ * Appends only copy the record into the map under the journal lock. Forcing to disk is a
+ * group commit outside it: one caller forces everything appended so far while the others
+ * wait, and each waiter returns as soon as a force has covered its record.
+ */
+@Component
+public class MoveJournal {
+    private static final Logger logger = LoggerFactory.getLogger(MoveJournal.class);
+
+    private static final int MAGIC = 0x4D4A524E; // "MJRN"
+    private static final int VERSION = 1;
+    private static final int HEADER_SIZE = 32;
+    private static final int RECORD_HEADER_SIZE = 8; // payload length + crc32
+    private static final int PADDING_MARKER = -1;
+
+    // Header layout
+    private static final int MAGIC_OFFSET = 0;
+    private static final int VERSION_OFFSET = 4;
+    private static final int CHECKPOINT_OFFSET = 8;
+    private static final int CAPACITY_OFFSET = 16;
+
+    @Value("${app.journal.path:data/move-journal.bin}")
+    private String journalPath;
+
+    @Value("${app.journal.size-mb:64}")
+    private int journalSizeMb;
+
+    @Value("${app.journal.fsync:true}")
+    private boolean fsync;
+
+    private FileChannel channel;
+    private MappedByteBuffer buffer;
+    private int capacity;
+    private long writePosition;
+    private long checkpointPosition;
+    private volatile long durablePosition; // everything before this is forced to disk
+    private final Object forceLock = new Object();
+
+    private final Queue<Entry> pending = new ConcurrentLinkedQueue<>();
+    private final Map<String, AtomicInteger> pendingByGame = new ConcurrentHashMap<>();
+
+    public static class Entry {
+        private final long position;
+        private final long endPosition;
+        private final UUID moveId;
+        private final String gameId;
+        private final int ply;
+        private final String move;
+        private final String fen;
+        private final long whiteTimeLeftMs;
+        private final long blackTimeLeftMs;
+        private final LocalDateTime lastMoveAt;
+        private final LocalDateTime createdAt;
+
+        Entry(long position, long endPosition, UUID moveId, String gameId, int ply, String move, String fen,
+              long whiteTimeLeftMs, long blackTimeLeftMs, LocalDateTime lastMoveAt, LocalDateTime createdAt) {
+            this.position = position;
+            this.endPosition = endPosition;
+            this.moveId = moveId;
+            this.gameId = gameId;
+            this.ply = ply;
+            this.move = move;
+            this.fen = fen;
+            this.whiteTimeLeftMs = whiteTimeLeftMs;
+            this.blackTimeLeftMs = blackTimeLeftMs;
+            this.lastMoveAt = lastMoveAt;
+            this.createdAt = createdAt;
+        }
+
+        public long getPosition() { return position; }
+        public long getEndPosition() { return endPosition; }
+        public UUID getMoveId() { return moveId; }
+        public String getGameId() { return gameId; }
+        public int getPly() { return ply; }
+        public String getMove() { return move; }
+        public String getFen() { return fen; }
+        public long getWhiteTimeLeftMs() { return whiteTimeLeftMs; }
+        public long getBlackTimeLeftMs() { return blackTimeLeftMs; }
+        public LocalDateTime getLastMoveAt() { return lastMoveAt; }
+        public LocalDateTime getCreatedAt() { return createdAt; }
+    }
+
+    @PostConstruct
+    public synchronized void open() throws IOException {
+        Path path = Paths.get(journalPath);
+        if (path.getParent() != null) {
+            Files.createDirectories(path.getParent());
+        }
+
+        boolean exists = Files.exists(path) && Files.size(path) > HEADER_SIZE;
+        channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+
+        if (exists) {
+            ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+            channel.read(header, 0);
+            if (header.getInt(MAGIC_OFFSET) != MAGIC || header.getInt(VERSION_OFFSET) != VERSION) {
+                throw new IOException("Unrecognised move journal file: " + path);
+            }
+            capacity = header.getInt(CAPACITY_OFFSET);
+        } else {
+            capacity = journalSizeMb * 1024 * 1024;
+        }
+
+        buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, (long) HEADER_SIZE + capacity);
+        if (!exists) {
+            buffer.putInt(MAGIC_OFFSET, MAGIC);
+            buffer.putInt(VERSION_OFFSET, VERSION);
+            buffer.putLong(CHECKPOINT_OFFSET, 0L);
+            buffer.putInt(CAPACITY_OFFSET, capacity);
+            buffer.force();
+        }
+
+        checkpointPosition = buffer.getLong(CHECKPOINT_OFFSET);
+        writePosition = recover(checkpointPosition);
+        durablePosition = writePosition;
+        logger.info("Move journal opened at {} ({} MB, {} unflushed moves)",
+                path, capacity / (1024 * 1024), pending.size());
+    }
+
+    @PreDestroy
+    public synchronized void close() throws IOException {
+        if (buffer != null) {
+            buffer.force();
+        }
+        if (channel != null) {
+            channel.close();
+        }
+    }
+
+    /**
+     * Append a move record. Returns once the record is in the journal (and forced to disk if fsync is enabled).
+     */
+    public Entry append(String gameId, int ply, String move, String fen,
+                        long whiteTimeLeftMs, long blackTimeLeftMs, LocalDateTime lastMoveAt) {
+        Entry entry = write(gameId, ply, move, fen, whiteTimeLeftMs, blackTimeLeftMs, lastMoveAt);
+        if (fsync) {
+            awaitDurable(entry.getEndPosition());
+        }
+        return entry;
+    }
+
+    private synchronized Entry write(String gameId, int ply, String move, String fen,
+                                     long whiteTimeLeftMs, long blackTimeLeftMs, LocalDateTime lastMoveAt) {
+        UUID moveId = UUID.randomUUID();
+        LocalDateTime createdAt = LocalDateTime.now();
+        byte[] gameIdBytes = gameId.getBytes(StandardCharsets.UTF_8);
+        byte[] moveBytes = move.getBytes(StandardCharsets.UTF_8);
+        byte[] fenBytes = fen.getBytes(StandardCharsets.UTF_8);
+
+        int payloadLength = 8 + 16 + 2 + gameIdBytes.length + 4 + 2 + moveBytes.length + 2 + fenBytes.length + 8 * 4;
+        int recordLength = RECORD_HEADER_SIZE + payloadLength;
+
+        long position = writePosition;
+        int tail = tailRemaining(position);
+        int needed = recordLength > tail ? tail + recordLength : recordLength;
+        if (needed > capacity - (writePosition - checkpointPosition)) {
+            throw new RuntimeException("Move journal is full");
+        }
+        if (recordLength > tail) {
+            // Record does not fit before the end of the ring, wrap to the start
+            if (tail >= RECORD_HEADER_SIZE) {
+                buffer.putInt(physical(position), PADDING_MARKER);
+            }
+            position += tail;
+        }
+
+        ByteBuffer payload = ByteBuffer.allocate(payloadLength);
+        payload.putLong(position);
+        payload.putLong(moveId.getMostSignificantBits());
+        payload.putLong(moveId.getLeastSignificantBits());
+        putBytes(payload, gameIdBytes);
+        payload.putInt(ply);
+        putBytes(payload, moveBytes);
+        putBytes(payload, fenBytes);
+        payload.putLong(whiteTimeLeftMs);
+        payload.putLong(blackTimeLeftMs);
+        payload.putLong(lastMoveAt != null ? Timestamp.valueOf(lastMoveAt).getTime() : -1L);
+        payload.putLong(Timestamp.valueOf(createdAt).getTime());
+
+        CRC32 crc = new CRC32();
+        crc.update(payload.array(), 0, payloadLength);
+
+        int offset = physical(position);
+        buffer.putInt(offset, payloadLength);
+        buffer.putInt(offset + 4, (int) crc.getValue());
+        buffer.put(offset + RECORD_HEADER_SIZE, payload.array(), 0, payloadLength);
+
+        writePosition = position + recordLength;
+        Entry entry = new Entry(position, writePosition, moveId, gameId, ply, move, fen,
+                whiteTimeLeftMs, blackTimeLeftMs, lastMoveAt, createdAt);
+        enqueue(entry);
+        return entry;
+    }
+
+    /**
+     * Group commit: force everything appended so far unless a concurrent force already covered end
+     */
+    private void awaitDurable(long end) {
+        if (durablePosition >= end) {
+            return;
+        }
+        synchronized (forceLock) {
+            if (durablePosition >= end) {
+                return; // forced by the caller that held the lock before us
+            }
+            long from = durablePosition;
+            long to;
+            synchronized (this) {
+                to = writePosition;
+            }
+            // The range may wrap around the end of the ring
+            while (from < to) {
+                int length = (int) Math.min(to - from, tailRemaining(from));
+                buffer.force(physical(from), length);
+                from += length;
+            }
+            durablePosition = to;
+        }
+    }
+
+    /**
+     * Oldest entries that are not yet persisted, in journal order
+     */
+    public List<Entry> peekPending(int max) {
+        List<Entry> batch = new ArrayList<>(Math.min(max, 64));
+        Iterator<Entry> iterator = pending.iterator();
+        while (iterator.hasNext() && batch.size() < max) {
+            batch.add(iterator.next());
+        }
+        return batch;
+    }
+
+    /**
+     * Mark a batch previously returned by peekPending as persisted
+     */
+    public synchronized void checkpoint(List<Entry> persisted) {
+        if (persisted.isEmpty()) {
+            return;
+        }
+        for (Entry entry : persisted) {
+            pending.poll();
+            AtomicInteger count = pendingByGame.get(entry.getGameId());
+            if (count != null && count.decrementAndGet() <= 0) {
+                pendingByGame.remove(entry.getGameId());
+            }
+        }
+        checkpointPosition = persisted.get(persisted.size() - 1).getEndPosition();
+        buffer.putLong(CHECKPOINT_OFFSET, checkpointPosition);
+        if (fsync) {
+            buffer.force(CHECKPOINT_OFFSET, 8);
+        }
+    }
+
+    public boolean hasPending() {
+        return !pending.isEmpty();
+    }
+
+    public boolean hasPending(String gameId) {
+        return pendingByGame.containsKey(gameId);
+    }
+
+    public int pendingCount() {
+        return pending.size();
+    }
+
+    private void enqueue(Entry entry) {
+        pending.add(entry);
+        pendingByGame.computeIfAbsent(entry.getGameId(), id -> new AtomicInteger()).incrementAndGet();
+    }
+
+    /**
+     * Scan records after the checkpoint and queue them for replay.
+     * Returns the position where the next record will be written.
+     */
+    private long recover(long from) {
+        long position = from;
+        while (position - from < capacity) {
+            int tail = tailRemaining(position);
+            if (tail < RECORD_HEADER_SIZE) {
+                position += tail;
+                continue;
+            }
+            int offset = physical(position);
+            int payloadLength = buffer.getInt(offset);
+            if (payloadLength == PADDING_MARKER) {
+                position += tail;
+                continue;
+            }
+            if (payloadLength <= 0 || payloadLength > tail - RECORD_HEADER_SIZE) {
+                break;
+            }
+
+            byte[] payloadBytes = new byte[payloadLength];
+            buffer.get(offset + RECORD_HEADER_SIZE, payloadBytes);
+            CRC32 crc = new CRC32();
+            crc.update(payloadBytes);
+            if ((int) crc.getValue() != buffer.getInt(offset + 4)) {
+                break;
+            }
+
+            ByteBuffer payload = ByteBuffer.wrap(payloadBytes);
+            if (payload.getLong() != position) {
+                // Left over from an earlier lap around the ring
+                break;
+            }
+            UUID moveId = new UUID(payload.getLong(), payload.getLong());
+            String gameId = getString(payload);
+            int ply = payload.getInt();
+            String move = getString(payload);
+            String fen = getString(payload);
+            long whiteTimeLeftMs = payload.getLong();
+            long blackTimeLeftMs = payload.getLong();
+            long lastMoveAtMs = payload.getLong();
+            long createdAtMs = payload.getLong();
+
+            long end = position + RECORD_HEADER_SIZE + payloadLength;
+            enqueue(new Entry(position, end, moveId, gameId, ply, move, fen, whiteTimeLeftMs, blackTimeLeftMs,
+                    lastMoveAtMs >= 0 ? new Timestamp(lastMoveAtMs).toLocalDateTime() : null,
+                    new Timestamp(createdAtMs).toLocalDateTime()));
+            position = end;
+        }
+        return position;
+    }
+
+    private int physical(long position) {
+        return HEADER_SIZE + (int) (position % capacity);
+    }
+
+    private int tailRemaining(long position) {
+        return capacity - (int) (position % capacity);
+    }
+
+    private static void putBytes(ByteBuffer payload, byte[] bytes) {
+        payload.putShort((short) bytes.length);
+        payload.put(bytes);
+    }
+
+    private static String getString(ByteBuffer payload) {
+        byte[] bytes = new byte[payload.getShort() & 0xFFFF];
+        payload.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,21 @@
+package com.chessonline.service;
+
+/**
+ * Published by {@link MoveJournalWriter} when a game's journaled moves do not continue its stored
+ * move codes. Those moves were skipped, so the game's live state is ahead of the database.
+ */
+public class MoveJournalGapEvent {
+    private final String gameId;
+    private final int storedPlies;
+    private final int journalPly;
+
+    public MoveJournalGapEvent(String gameId, int storedPlies, int journalPly) {
+        this.gameId = gameId;
+        this.storedPlies = storedPlies;
+        this.journalPly = journalPly;
+    }
+
+    public String getGameId() { return gameId; }
+    public int getStoredPlies() { return storedPlies; }
+    public int getJournalPly() { return journalPly; }
+}
@@ -0,0 +1,222 @@
+package com.chessonline.service;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Background writer that copies journaled moves to Postgres in JDBC batches.
+ * Each flush issues one games UPDATE per game (latest position, clocks, ply count
+ * and the packed codes of its new moves), inserts keyframe FENs every
+ * {@link GameMoveStore#KEYFRAME_INTERVAL} plies, then advances the journal checkpoint.
+ * A game whose moves do not continue its stored codes is quarantined: its entries are skipped
+ * and a {@link MoveJournalGapEvent} reloads it, while the other games in the batch commit.
+ */
+@Component
+public class MoveJournalWriter {
+    private static final Logger logger = LoggerFactory.getLogger(MoveJournalWriter.class);
+
+    // Appends only the codes past what is already stored, so replaying a batch after a crash is a no-op.
+    // Matches no row when stored codes end before the batch starts; see findGap.
+    private static final String UPDATE_GAME_SQL =
+            "UPDATE games SET fen_current = ?, white_time_left_ms = ?, black_time_left_ms = ?, last_move_at = ?, " +
+            "move_codes = COALESCE(move_codes, ''::bytea) || substring(?::bytea from octet_length(COALESCE(move_codes, ''::bytea)) - ? + 1), " +
+            "ply_count = GREATEST(ply_count, ?) WHERE id = ? AND octet_length(COALESCE(move_codes, ''::bytea)) >= ?";
+    private static final String STORED_CODES_SQL =
+            "SELECT octet_length(COALESCE(move_codes, ''::bytea)) FROM games WHERE id = ?";
+    private static final String INSERT_KEYFRAME_SQL =
+            "INSERT INTO game_keyframes (game_id, ply, fen) VALUES (?, ?, ?) ON CONFLICT (game_id, ply) DO NOTHING";
+
+    @Value("${app.journal.flush-interval-ms:50}")
+    private long flushIntervalMs;
+
+    @Value("${app.journal.batch-size:500}")
+    private int batchSize;
+
+    private final MoveJournal moveJournal;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final ApplicationEventPublisher eventPublisher;
+
+    private volatile Thread writerThread;
+    private final ScheduledExecutorService executor = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread thread = new Thread(r, "move-journal-writer");
+        thread.setDaemon(true);
+        writerThread = thread;
+        return thread;
+    });
+
+    public MoveJournalWriter(MoveJournal moveJournal, JdbcTemplate jdbcTemplate, TransactionTemplate transactionTemplate,
+                             ApplicationEventPublisher eventPublisher) {
+        this.moveJournal = moveJournal;
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+        this.eventPublisher = eventPublisher;
+    }
+
+    @PostConstruct
+    public void start() {
+        // Replay whatever the previous run acknowledged but did not persist before serving requests
+        if (moveJournal.hasPending()) {
+            logger.info("Replaying {} journaled moves into the database", moveJournal.pendingCount());
+            flush();
+        }
+        executor.scheduleWithFixedDelay(this::flushQuietly, flushIntervalMs, flushIntervalMs, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void stop() {
+        executor.shutdown();
+        try {
+            executor.awaitTermination(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        flushQuietly();
+    }
+
+    /**
+     * Make sure every journaled move of the game is in the database (read-your-writes for DB readers)
+     */
+    public void flushPending(String gameId) {
+        if (moveJournal.hasPending(gameId)) {
+            flushNow();
+        }
+    }
+
+    /**
+     * Flush the whole journal and wait for it to complete
+     */
+    public void flushNow() {
+        if (Thread.currentThread() == writerThread) {
+            flush();
+            return;
+        }
+        try {
+            executor.submit(this::flush).get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Interrupted while flushing move journal", e);
+        } catch (ExecutionException e) {
+            throw new RuntimeException("Failed to flush move journal: " + e.getCause().getMessage(), e.getCause());
+        }
+    }
+
+    private void flushQuietly() {
+        try {
+            flush();
+        } catch (Exception e) {
+            // Entries stay in the journal and are retried on the next run
+            logger.error("Move journal flush failed, {} moves pending", moveJournal.pendingCount(), e);
+        }
+    }
+
+    private synchronized void flush() {
+        while (true) {
+            List<MoveJournal.Entry> batch = moveJournal.peekPending(batchSize);
+            if (batch.isEmpty()) {
+                return;
+            }
+            List<MoveJournalGapEvent> gaps = transactionTemplate.execute(status -> write(batch));
+            moveJournal.checkpoint(batch);
+            logger.debug("Flushed {} journaled moves", batch.size());
+            for (MoveJournalGapEvent gap : gaps) {
+                eventPublisher.publishEvent(gap);
+            }
+        }
+    }
+
+    /**
+     * Write the batch, returning the games whose moves were skipped because of a gap
+     */
+    private List<MoveJournalGapEvent> write(List<MoveJournal.Entry> batch) {
+        Map<String, List<MoveJournal.Entry>> entriesByGame = new LinkedHashMap<>();
+        List<Object[]> keyframeRows = new ArrayList<>();
+        for (MoveJournal.Entry entry : batch) {
+            entriesByGame.computeIfAbsent(entry.getGameId(), id -> new ArrayList<>()).add(entry);
+            if (entry.getPly() % GameMoveStore.KEYFRAME_INTERVAL == 0) {
+                keyframeRows.add(new Object[] { entry.getGameId(), entry.getPly(), entry.getFen() });
+            }
+        }
+
+        List<Object[]> gameRows = new ArrayList<>(entriesByGame.size());
+        List<MoveJournal.Entry> firstEntries = new ArrayList<>(entriesByGame.size());
+        for (List<MoveJournal.Entry> entries : entriesByGame.values()) {
+            MoveJournal.Entry first = entries.get(0);
+            MoveJournal.Entry latest = entries.get(entries.size() - 1);
+            List<String> moves = new ArrayList<>(entries.size());
+            for (MoveJournal.Entry entry : entries) {
+                moves.add(entry.getMove());
+            }
+            int storedBefore = (first.getPly() - 1) * 2;
+            firstEntries.add(first);
+            gameRows.add(new Object[] {
+                    latest.getFen(),
+                    latest.getWhiteTimeLeftMs(),
+                    latest.getBlackTimeLeftMs(),
+                    latest.getLastMoveAt() != null ? Timestamp.valueOf(latest.getLastMoveAt()) : null,
+                    MoveCodec.pack(moves),
+                    storedBefore,
+                    latest.getPly(),
+                    latest.getGameId(),
+                    storedBefore
+            });
+        }
+
+        int[] updated = jdbcTemplate.batchUpdate(UPDATE_GAME_SQL, gameRows);
+        List<MoveJournalGapEvent> gaps = new ArrayList<>();
+        Set<String> skipped = new HashSet<>();
+        for (int i = 0; i < updated.length; i++) {
+            if (updated[i] == 0) {
+                MoveJournal.Entry first = firstEntries.get(i);
+                skipped.add(first.getGameId());
+                MoveJournalGapEvent gap = findGap(first);
+                if (gap != null) {
+                    gaps.add(gap);
+                }
+            }
+        }
+        if (!skipped.isEmpty()) {
+            keyframeRows.removeIf(row -> skipped.contains((String) row[0]));
+        }
+        if (!keyframeRows.isEmpty()) {
+            jdbcTemplate.batchUpdate(INSERT_KEYFRAME_SQL, keyframeRows);
+        }
+        return gaps;
+    }
+
+    /**
+     * A game update matched no row: fine if the game is gone, a gap in its move codes otherwise.
+     * The game's entries are dropped from the journal either way; on a gap its live state is
+     * reloaded from the database, so it continues from the moves that were stored.
+     */
+    private MoveJournalGapEvent findGap(MoveJournal.Entry first) {
+        List<Integer> stored = jdbcTemplate.queryForList(STORED_CODES_SQL, Integer.class, first.getGameId());
+        if (stored.isEmpty()) {
+            logger.debug("Journaled moves of deleted game {} skipped", first.getGameId());
+            return null;
+        }
+        int storedPlies = stored.get(0) / 2;
+        logger.error("Move codes of game {} end at ply {} but the journal continues at ply {}; "
+                + "skipping its journaled moves and reloading the game", first.getGameId(), storedPlies, first.getPly());
+        return new MoveJournalGapEvent(first.getGameId(), storedPlies, first.getPly());
+    }
+}
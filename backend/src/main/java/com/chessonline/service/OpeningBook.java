@@ -0,0 +1,298 @@
+package com.chessonline.service;
+
+import com.chessonline.model.BotDifficulty;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.bhlangonijr.chesslib.Board;
+import com.github.bhlangonijr.chesslib.move.Move;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.zip.CRC32;
+
+/**
+ * Memory-mapped opening book used by the bot and by game analysis to skip the engine in known theory.
+ *
+ * The file follows the Polyglot layout: 16-byte entries sorted by position key
+ * (key u64, move u16, weight u16, learn u32), found by binary search. Keys are chesslib
+ * Zobrist keys rather than the Polyglot random table, and the learn field holds an index
+ * into the opening names stored after the entries.
+ *
+ * The book is compiled from openings/openingLines.json on startup when the file is missing,
+ * was built from different lines, or was built with different Zobrist keys.
+ *
+ * openings/openingLines.json is a copy of frontend/src/data/openingLines.json, which is the source
+ * of truth: edit the frontend file and copy it over. The backend image is built from backend/ alone,
+ * so the copy is committed rather than generated; OpeningLinesCopyTest fails when the two differ.
+ */
+@Component
+public class OpeningBook {
+    private static final Logger logger = LoggerFactory.getLogger(OpeningBook.class);
+
+    static final int MAGIC = 0x4F424B31; // "OBK1"
+    static final int VERSION = 1;
+    static final int HEADER_SIZE = 32;
+    static final int ENTRY_SIZE = 16;
+    static final int NO_NAME = -1;
+    private static final String SOURCE = "openings/openingLines.json";
+
+    // Header layout
+    private static final int MAGIC_OFFSET = 0;
+    private static final int VERSION_OFFSET = 4;
+    private static final int ENTRY_COUNT_OFFSET = 8;
+    private static final int NAME_COUNT_OFFSET = 12;
+    private static final int START_KEY_OFFSET = 16;
+    private static final int CHECKSUM_OFFSET = 24;
+
+    private static final String PROMOTIONS = " nbrq";
+
+    @Value("${app.opening-book.enabled:true}")
+    private boolean enabled;
+
+    @Value("${app.opening-book.path:data/opening-book.bin}")
+    private String bookPath;
+
+    private final ObjectMapper objectMapper;
+    private FileChannel channel;
+    private MappedByteBuffer buffer;
+    private int entryCount;
+    private String[] names = new String[0];
+
+    public OpeningBook(ObjectMapper objectMapper) {
+        this.objectMapper = objectMapper;
+    }
+
+    /**
+     * A book move from a position
+     */
+    public static class BookMove {
+        private final String move;   // UCI, castling as king move (e1g1)
+        private final int weight;    // number of book lines through this move
+        private final String name;   // opening family, null where lines diverge
+
+        BookMove(String move, int weight, String name) {
+            this.move = move;
+            this.weight = weight;
+            this.name = name;
+        }
+
+        public String getMove() { return move; }
+        public int getWeight() { return weight; }
+        public String getName() { return name; }
+    }
+
+    @PostConstruct
+    public void open() {
+        if (!enabled) {
+            return;
+        }
+        // The book only saves engine time; without it everything falls back to Stockfish
+        try {
+            byte[] source;
+            try (InputStream in = OpeningBook.class.getClassLoader().getResourceAsStream(SOURCE)) {
+                if (in == null) {
+                    logger.warn("Opening book source {} not found, book disabled", SOURCE);
+                    return;
+                }
+                source = in.readAllBytes();
+            }
+            CRC32 crc = new CRC32();
+            crc.update(source);
+
+            Path path = Paths.get(bookPath);
+            if (!isCurrent(path, crc.getValue())) {
+                OpeningBookCompiler.compile(source, crc.getValue(), path, objectMapper);
+            }
+
+            channel = FileChannel.open(path, StandardOpenOption.READ);
+            buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            entryCount = buffer.getInt(ENTRY_COUNT_OFFSET);
+            names = readNames(buffer, buffer.getInt(NAME_COUNT_OFFSET), HEADER_SIZE + entryCount * ENTRY_SIZE);
+            logger.info("Opening book loaded from {} ({} entries, {} openings)", path, entryCount, names.length);
+        } catch (IOException | RuntimeException e) {
+            logger.warn("Could not load opening book: {}", e.getMessage());
+            entryCount = 0;
+        }
+    }
+
+    @PreDestroy
+    public void close() throws IOException {
+        if (channel != null) {
+            channel.close();
+        }
+    }
+
+    public boolean isLoaded() {
+        return entryCount > 0;
+    }
+
+    /**
+     * Book moves from the position, most played first; empty outside the book
+     */
+    public List<BookMove> lookup(Board board) {
+        List<BookMove> moves = new ArrayList<>();
+        if (entryCount == 0) {
+            return moves;
+        }
+        long key = board.getZobristKey();
+
+        // Lower bound of key among the sorted entries
+        int low = 0, high = entryCount;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (Long.compare(keyAt(mid), key) < 0) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        for (int i = low; i < entryCount && keyAt(i) == key; i++) {
+            int offset = HEADER_SIZE + i * ENTRY_SIZE;
+            int nameIndex = buffer.getInt(offset + 12);
+            moves.add(new BookMove(decodeMove(buffer.getShort(offset + 8) & 0xFFFF),
+                    buffer.getShort(offset + 10) & 0xFFFF,
+                    nameIndex >= 0 && nameIndex < names.length ? names[nameIndex] : null));
+        }
+        return moves;
+    }
+
+    public List<BookMove> lookup(String fen) {
+        Board board = new Board();
+        board.loadFromFen(fen);
+        return lookup(board);
+    }
+
+    /**
+     * The book entry for a move played from the position, or null if the move is not in the book
+     */
+    public BookMove find(Board board, String uciMove) {
+        for (BookMove bookMove : lookup(board)) {
+            if (bookMove.getMove().equals(uciMove)) {
+                return bookMove;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * A legal book move for the bot, or null outside the book.
+     * Weaker bots pick more evenly among the book moves, stronger ones favour the main lines.
+     */
+    public String pickMove(String fen, BotDifficulty difficulty) {
+        Board board = new Board();
+        board.loadFromFen(fen);
+        List<String> legal = new ArrayList<>();
+        for (Move move : board.legalMoves()) {
+            legal.add(move.toString());
+        }
+
+        List<BookMove> candidates = new ArrayList<>();
+        for (BookMove bookMove : lookup(board)) {
+            if (legal.contains(bookMove.getMove())) {
+                candidates.add(bookMove);
+            }
+        }
+        if (candidates.isEmpty()) {
+            return null;
+        }
+
+        double exponent = weightExponent(difficulty);
+        double total = 0;
+        double[] weights = new double[candidates.size()];
+        for (int i = 0; i < weights.length; i++) {
+            weights[i] = Math.pow(candidates.get(i).getWeight(), exponent);
+            total += weights[i];
+        }
+        double roll = ThreadLocalRandom.current().nextDouble(total);
+        for (int i = 0; i < weights.length; i++) {
+            roll -= weights[i];
+            if (roll < 0) {
+                return candidates.get(i).getMove();
+            }
+        }
+        return candidates.get(candidates.size() - 1).getMove();
+    }
+
+    private static double weightExponent(BotDifficulty difficulty) {
+        return switch (difficulty) {
+            case BEGINNER -> 0.0;      // any book move
+            case INTERMEDIATE -> 1.0;  // proportional to how often the move is played
+            case ADVANCED -> 2.0;
+            case EXPERT -> 4.0;        // almost always the main line
+        };
+    }
+
+    private long keyAt(int index) {
+        return buffer.getLong(HEADER_SIZE + index * ENTRY_SIZE);
+    }
+
+    /**
+     * The book on disk was compiled from these lines with the current Zobrist keys
+     */
+    private boolean isCurrent(Path path, long checksum) throws IOException {
+        if (!Files.exists(path) || Files.size(path) < HEADER_SIZE) {
+            return false;
+        }
+        ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+        try (FileChannel file = FileChannel.open(path, StandardOpenOption.READ)) {
+            file.read(header, 0);
+        }
+        return header.getInt(MAGIC_OFFSET) == MAGIC
+                && header.getInt(VERSION_OFFSET) == VERSION
+                && header.getLong(START_KEY_OFFSET) == new Board().getZobristKey()
+                && header.getLong(CHECKSUM_OFFSET) == checksum;
+    }
+
+    private static String[] readNames(ByteBuffer buffer, int count, int offset) {
+        String[] result = new String[count];
+        for (int i = 0; i < count; i++) {
+            int length = buffer.getShort(offset) & 0xFFFF;
+            byte[] bytes = new byte[length];
+            buffer.get(offset + 2, bytes);
+            result[i] = new String(bytes, StandardCharsets.UTF_8);
+            offset += 2 + length;
+        }
+        return result;
+    }
+
+    /**
+     * Polyglot move bits: to file 0-2, to rank 3-5, from file 6-8, from rank 9-11, promotion 12-14
+     */
+    static int encodeMove(String uci) {
+        int fromFile = uci.charAt(0) - 'a';
+        int fromRank = uci.charAt(1) - '1';
+        int toFile = uci.charAt(2) - 'a';
+        int toRank = uci.charAt(3) - '1';
+        int promotion = uci.length() > 4 ? PROMOTIONS.indexOf(Character.toLowerCase(uci.charAt(4))) : 0;
+        return toFile | toRank << 3 | fromFile << 6 | fromRank << 9 | Math.max(promotion, 0) << 12;
+    }
+
+    static String decodeMove(int move) {
+        StringBuilder uci = new StringBuilder(5)
+                .append((char) ('a' + (move >> 6 & 7)))
+                .append((char) ('1' + (move >> 9 & 7)))
+                .append((char) ('a' + (move & 7)))
+                .append((char) ('1' + (move >> 3 & 7)));
+        int promotion = move >> 12 & 7;
+        if (promotion > 0 && promotion < PROMOTIONS.length()) {
+            uci.append(PROMOTIONS.charAt(promotion));
+        }
+        return uci.toString();
+    }
+}
@@ -0,0 +1,151 @@
+package com.chessonline.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.bhlangonijr.chesslib.Board;
+import com.github.bhlangonijr.chesslib.move.Move;
+import com.github.bhlangonijr.chesslib.move.MoveList;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Compiles opening lines ({"lines": {"Name": {"moves": [SAN...]}}}) into the book file read by {@link OpeningBook}.
+ * Every position on a line gets an entry for the move played from it; the weight is the number
+ * of lines through that position and move, and the name is the common family of those lines
+ * (e.g. "Kings_Gambit" for the accepted and declined lines).
+ */
+class OpeningBookCompiler {
+    private static final Logger logger = LoggerFactory.getLogger(OpeningBookCompiler.class);
+
+    private static class Accumulator {
+        private final long key;
+        private final int move;
+        private int weight;
+        private String name;
+
+        Accumulator(long key, int move) {
+            this.key = key;
+            this.move = move;
+        }
+    }
+
+    private OpeningBookCompiler() {}
+
+    /**
+     * Write the book for the given lines to target, replacing any existing file
+     */
+    static void compile(byte[] source, long sourceChecksum, Path target, ObjectMapper objectMapper) throws IOException {
+        JsonNode lines = objectMapper.readTree(source).path("lines");
+        Map<String, Accumulator> entries = new LinkedHashMap<>();
+        List<String> skipped = new ArrayList<>();
+
+        Iterator<Map.Entry<String, JsonNode>> fields = lines.fields();
+        while (fields.hasNext()) {
+            Map.Entry<String, JsonNode> line = fields.next();
+            StringBuilder san = new StringBuilder();
+            for (JsonNode move : line.getValue().path("moves")) {
+                san.append(move.asText()).append(' ');
+            }
+
+            MoveList moves = new MoveList();
+            try {
+                moves.loadFromSan(san.toString().trim());
+            } catch (RuntimeException e) {
+                skipped.add(line.getKey());
+                continue;
+            }
+
+            Board board = new Board();
+            for (Move move : moves) {
+                long key = board.getZobristKey();
+                int encoded = OpeningBook.encodeMove(move.toString());
+                Accumulator entry = entries.computeIfAbsent(key + ":" + encoded, k -> new Accumulator(key, encoded));
+                entry.name = ++entry.weight == 1 ? line.getKey()
+                        : entry.name != null ? commonFamily(entry.name, line.getKey()) : null;
+                board.doMove(move);
+            }
+        }
+        if (!skipped.isEmpty()) {
+            logger.warn("Opening book skipped unreadable lines: {}", skipped);
+        }
+
+        // Entries sorted by key, most played move first within a position
+        List<Accumulator> sorted = new ArrayList<>(entries.values());
+        sorted.sort(Comparator.comparingLong((Accumulator a) -> a.key).thenComparingInt(a -> -a.weight));
+
+        Map<String, Integer> nameIndex = new LinkedHashMap<>();
+        for (Accumulator entry : sorted) {
+            if (entry.name != null) {
+                nameIndex.putIfAbsent(entry.name, nameIndex.size());
+            }
+        }
+
+        int namesSize = 0;
+        for (String name : nameIndex.keySet()) {
+            namesSize += 2 + name.getBytes(StandardCharsets.UTF_8).length;
+        }
+        ByteBuffer buffer = ByteBuffer.allocate(OpeningBook.HEADER_SIZE + sorted.size() * OpeningBook.ENTRY_SIZE + namesSize);
+        buffer.putInt(OpeningBook.MAGIC);
+        buffer.putInt(OpeningBook.VERSION);
+        buffer.putInt(sorted.size());
+        buffer.putInt(nameIndex.size());
+        buffer.putLong(new Board().getZobristKey());
+        buffer.putLong(sourceChecksum);
+        for (Accumulator entry : sorted) {
+            buffer.putLong(entry.key);
+            buffer.putShort((short) entry.move);
+            buffer.putShort((short) Math.min(entry.weight, 0xFFFF));
+            buffer.putInt(entry.name != null ? nameIndex.get(entry.name) : OpeningBook.NO_NAME);
+        }
+        for (String name : nameIndex.keySet()) {
+            byte[] bytes = name.getBytes(StandardCharsets.UTF_8);
+            buffer.putShort((short) bytes.length);
+            buffer.put(bytes);
+        }
+        buffer.flip();
+
+        // Write beside the target and move into place so readers never see a partial book
+        if (target.getParent() != null) {
+            Files.createDirectories(target.getParent());
+        }
+        Path temp = target.resolveSibling(target.getFileName() + ".tmp");
+        try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            channel.force(true);
+        }
+        Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        logger.info("Compiled opening book {} ({} positions/moves from {} lines)", target, sorted.size(), lines.size());
+    }
+
+    /**
+     * Longest common prefix of two opening names in whole words ("Kings_Gambit_Accepted",
+     * "Kings_Gambit_Declined" -> "Kings_Gambit"), or null when they share less than two words
+     */
+    static String commonFamily(String a, String b) {
+        String[] left = a.split("_");
+        String[] right = b.split("_");
+        int common = 0;
+        while (common < left.length && common < right.length && left[common].equals(right[common])) {
+            common++;
+        }
+        return common < 2 ? null : String.join("_", List.of(left).subList(0, common));
+    }
+}
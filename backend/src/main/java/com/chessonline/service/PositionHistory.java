@@ -0,0 +1,63 @@
+package com.chessonline.service;
+
+import java.util.Arrays;
+
+/**
+ * Zobrist hashes of the positions reached since the last irreversible move
+ * (capture or pawn move), plus the halfmove clock.
+ * Earlier positions can never repeat, so the array is reset on every
+ * irreversible move and a repetition lookup scans at most 150 plies
+ * (the 75-move rule ends the game before that).
+ */
+public class PositionHistory {
+    private static final int INITIAL_CAPACITY = 32;
+
+    private long[] hashes = new long[INITIAL_CAPACITY];
+    private int size;
+    private int halfMoveClock;
+
+    /**
+     * Record the position reached after a move
+     */
+    public void push(long hash, int halfMoveClock) {
+        if (halfMoveClock == 0) {
+            size = 0;
+        }
+        if (size == hashes.length) {
+            hashes = Arrays.copyOf(hashes, size * 2);
+        }
+        hashes[size++] = hash;
+        this.halfMoveClock = halfMoveClock;
+    }
+
+    /**
+     * Number of times the current position has occurred (1 if it is new)
+     */
+    public int repetitionCount() {
+        if (size == 0) {
+            return 0;
+        }
+        long current = hashes[size - 1];
+        int count = 1;
+        // Same side to move only: step back two plies at a time
+        for (int i = size - 3; i >= 0; i -= 2) {
+            if (hashes[i] == current) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    public int getHalfMoveClock() {
+        return halfMoveClock;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public void clear() {
+        size = 0;
+        halfMoveClock = 0;
+    }
+}
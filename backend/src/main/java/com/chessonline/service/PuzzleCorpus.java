@@ -0,0 +1,387 @@
+package com.chessonline.service;
+
+import com.chessonline.model.Puzzle;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import jakarta.annotation.PreDestroy;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.util.Random;
+
+/**
+ * Memory-mapped, columnar puzzle corpus compiled from the Lichess puzzle CSV by {@link PuzzleCorpusCompiler}.
+ *
+ * Rows are sorted by rating, so a rating range is a binary search and a random row in it.
+ * Fixed-width columns (id, themes, rating, packed FEN) are read by row index; solutions and
+ * opening tags are blobs addressed through offset columns. Nothing is held on the heap apart from
+ * the theme names: a {@link Puzzle} is only built for a row that is actually served.
+ *
+ * The corpus is recompiled when the CSV has changed or puzzle.max.load differs; without the CSV
+ * an existing corpus is used as it is.
+ */
+@Component
+public class PuzzleCorpus {
+    private static final Logger log = LoggerFactory.getLogger(PuzzleCorpus.class);
+
+    static final int MAGIC = 0x505A4331; // "PZC1"
+    static final int VERSION = 2;        // 2: moves in MoveCodec codes
+    static final int HEADER_SIZE = 64;
+    static final int THEME_WORDS = 2;    // theme bitset per row, up to 128 themes
+    static final int FEN_SIZE = 38;      // 64 nibbles, flags, en passant file, halfmove, fullmove
+
+    // Header layout
+    static final int MAGIC_OFFSET = 0;
+    static final int VERSION_OFFSET = 4;
+    static final int COUNT_OFFSET = 8;
+    static final int THEME_COUNT_OFFSET = 12;
+    static final int SOURCE_SIZE_OFFSET = 16;
+    static final int SOURCE_MODIFIED_OFFSET = 24;
+    static final int MAX_LOAD_OFFSET = 32;
+    static final int MOVE_COUNT_OFFSET = 40;
+    static final int TAG_BYTES_OFFSET = 48;
+
+    // Piece nibbles in the packed FEN; 0 is an empty square
+    static final String PIECES = ".PNBRQKpnbrqk";
+
+    @Value("${puzzle.csv.path:puzzles/lichess_db_puzzle.csv.zst}")
+    private String puzzleCsvPath;
+
+    @Value("${puzzle.max.load:250000}")
+    private int maxPuzzlesToLoad;
+
+    @Value("${puzzle.corpus.path:data/puzzle-corpus.bin}")
+    private String corpusPath;
+
+    private FileChannel channel;
+    private MappedByteBuffer buffer;
+    private volatile int count;
+    private String[] themeNames = new String[0];
+
+    // Column offsets
+    private int idsAt, themesAt, idOrderAt, moveOffsetsAt, tagOffsetsAt, ratingsAt, deviationsAt, fensAt, movesAt, tagsAt;
+
+    /**
+     * Map the corpus, compiling it first when it is missing or out of date
+     */
+    public synchronized void open() throws IOException {
+        Path source = Paths.get(puzzleCsvPath);
+        Path path = Paths.get(corpusPath);
+        if (Files.exists(source)) {
+            long size = Files.size(source);
+            long modified = Files.getLastModifiedTime(source).toMillis();
+            if (!isCurrent(path, size, modified)) {
+                log.info("Compiling puzzle corpus {} from {} (max: {})", path, source, maxPuzzlesToLoad);
+                PuzzleCorpusCompiler.compile(source, size, modified, maxPuzzlesToLoad, path);
+            }
+        } else if (!Files.exists(path)) {
+            throw new RuntimeException("Neither puzzle CSV " + source + " nor corpus " + path + " exists");
+        } else {
+            log.warn("Puzzle CSV {} not found, using existing corpus {}", source, path);
+        }
+
+        close();
+        channel = FileChannel.open(path, StandardOpenOption.READ);
+        buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        if (buffer.getInt(MAGIC_OFFSET) != MAGIC || buffer.getInt(VERSION_OFFSET) != VERSION) {
+            throw new RuntimeException("Unsupported puzzle corpus " + path);
+        }
+        int rows = buffer.getInt(COUNT_OFFSET);
+        long moveCount = buffer.getLong(MOVE_COUNT_OFFSET);
+        long tagBytes = buffer.getLong(TAG_BYTES_OFFSET);
+
+        idsAt = HEADER_SIZE;
+        themesAt = idsAt + rows * 8;
+        idOrderAt = themesAt + rows * 8 * THEME_WORDS;
+        moveOffsetsAt = idOrderAt + rows * 4;
+        tagOffsetsAt = moveOffsetsAt + (rows + 1) * 4;
+        ratingsAt = tagOffsetsAt + (rows + 1) * 4;
+        deviationsAt = ratingsAt + rows * 2;
+        fensAt = deviationsAt + rows * 2;
+        movesAt = fensAt + rows * FEN_SIZE;
+        tagsAt = (int) (movesAt + moveCount * 2);
+        themeNames = readNames(buffer, buffer.getInt(THEME_COUNT_OFFSET), (int) (tagsAt + tagBytes));
+        count = rows;
+        log.info("Puzzle corpus mapped from {} ({} puzzles, {} MB)", path, rows, channel.size() >> 20);
+    }
+
+    @PreDestroy
+    public synchronized void close() throws IOException {
+        count = 0;
+        if (channel != null) {
+            channel.close();
+            channel = null;
+        }
+    }
+
+    public int size() {
+        return count;
+    }
+
+    /**
+     * The puzzle in the given row, rows being ordered by rating
+     */
+    public Puzzle get(int row) {
+        Puzzle puzzle = new Puzzle();
+        puzzle.setId(unpackId(buffer.getLong(idsAt + row * 8)));
+        puzzle.setFen(unpackFen(buffer, fensAt + row * FEN_SIZE));
+        puzzle.setMoves(readMoves(row));
+        puzzle.setRating(buffer.getShort(ratingsAt + row * 2));
+        puzzle.setRatingDeviation(buffer.getShort(deviationsAt + row * 2));
+        puzzle.setThemes(readThemes(row));
+        puzzle.setOpeningTags(readTags(row));
+        puzzle.setFetchedAt(LocalDateTime.now());
+        return puzzle;
+    }
+
+    /**
+     * The puzzle at the given position in id order, which unlike row order does not shift with ratings
+     */
+    public Puzzle getInIdOrder(int index) {
+        return get(buffer.getInt(idOrderAt + index * 4));
+    }
+
+    /**
+     * The puzzle with the given Lichess id, or null
+     */
+    public Puzzle findById(String id) {
+        if (id == null || id.isEmpty() || id.length() > 8) {
+            return null;
+        }
+        long key = packId(id);
+        int low = 0, high = count - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            int row = buffer.getInt(idOrderAt + mid * 4);
+            int cmp = Long.compareUnsigned(buffer.getLong(idsAt + row * 8), key);
+            if (cmp == 0) {
+                return get(row);
+            }
+            if (cmp < 0) {
+                low = mid + 1;
+            } else {
+                high = mid - 1;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * A random puzzle rated within [minRating, maxRating], or null if there is none
+     */
+    public Puzzle randomInRange(int minRating, int maxRating, Random random) {
+        int from = firstRowRatedAtLeast(minRating);
+        int to = firstRowRatedAtLeast(maxRating + 1);
+        return from < to ? get(from + random.nextInt(to - from)) : null;
+    }
+
+    private int firstRowRatedAtLeast(int rating) {
+        int low = 0, high = count;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (buffer.getShort(ratingsAt + mid * 2) < rating) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    private String readMoves(int row) {
+        int from = buffer.getInt(moveOffsetsAt + row * 4);
+        int to = buffer.getInt(moveOffsetsAt + (row + 1) * 4);
+        StringBuilder moves = new StringBuilder((to - from) * 5);
+        for (int i = from; i < to; i++) {
+            if (i > from) {
+                moves.append(' ');
+            }
+            moves.append(MoveCodec.decode(buffer.getShort(movesAt + i * 2) & 0xFFFF));
+        }
+        return moves.toString();
+    }
+
+    private String readThemes(int row) {
+        StringBuilder themes = new StringBuilder();
+        for (int word = 0; word < THEME_WORDS; word++) {
+            long bits = buffer.getLong(themesAt + (row * THEME_WORDS + word) * 8);
+            while (bits != 0) {
+                int index = word * 64 + Long.numberOfTrailingZeros(bits);
+                bits &= bits - 1;
+                if (index < themeNames.length) {
+                    if (themes.length() > 0) {
+                        themes.append(' ');
+                    }
+                    themes.append(themeNames[index]);
+                }
+            }
+        }
+        return themes.length() > 0 ? themes.toString() : null;
+    }
+
+    private String readTags(int row) {
+        int from = buffer.getInt(tagOffsetsAt + row * 4);
+        int to = buffer.getInt(tagOffsetsAt + (row + 1) * 4);
+        if (from == to) {
+            return null;
+        }
+        byte[] bytes = new byte[to - from];
+        buffer.get(tagsAt + from, bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * The corpus on disk was compiled from this CSV with the current load limit
+     */
+    private boolean isCurrent(Path path, long sourceSize, long sourceModified) throws IOException {
+        if (!Files.exists(path) || Files.size(path) < HEADER_SIZE) {
+            return false;
+        }
+        ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+        try (FileChannel file = FileChannel.open(path, StandardOpenOption.READ)) {
+            file.read(header, 0);
+        }
+        return header.getInt(MAGIC_OFFSET) == MAGIC
+                && header.getInt(VERSION_OFFSET) == VERSION
+                && header.getLong(SOURCE_SIZE_OFFSET) == sourceSize
+                && header.getLong(SOURCE_MODIFIED_OFFSET) == sourceModified
+                && header.getInt(MAX_LOAD_OFFSET) == maxPuzzlesToLoad;
+    }
+
+    private static String[] readNames(ByteBuffer buffer, int count, int offset) {
+        String[] result = new String[count];
+        for (int i = 0; i < count; i++) {
+            int length = buffer.getShort(offset) & 0xFFFF;
+            byte[] bytes = new byte[length];
+            buffer.get(offset + 2, bytes);
+            result[i] = new String(bytes, StandardCharsets.UTF_8);
+            offset += 2 + length;
+        }
+        return result;
+    }
+
+    /**
+     * Up to 8 ASCII characters, left-aligned, so unsigned comparison is lexicographic order
+     */
+    static long packId(String id) {
+        long packed = 0;
+        for (int i = 0; i < 8; i++) {
+            packed = packed << 8 | (i < id.length() ? id.charAt(i) & 0xFF : 0);
+        }
+        return packed;
+    }
+
+    static String unpackId(long packed) {
+        StringBuilder id = new StringBuilder(8);
+        for (int shift = 56; shift >= 0; shift -= 8) {
+            int c = (int) (packed >>> shift & 0xFF);
+            if (c == 0) {
+                break;
+            }
+            id.append((char) c);
+        }
+        return id.toString();
+    }
+
+    /**
+     * Pack a FEN into FEN_SIZE bytes: a nibble per square from a8 to h1, then side to move and
+     * castling flags (bit 0 black, bits 1-4 KQkq), the en passant file (-1 for none) and the move counters
+     */
+    static void packFen(String fen, ByteBuffer out) {
+        String[] fields = fen.trim().split("\\s+");
+        byte[] squares = new byte[64];
+        int square = 0;
+        for (char c : fields[0].toCharArray()) {
+            if (c == '/') {
+                continue;
+            }
+            if (Character.isDigit(c)) {
+                square += c - '0';
+            } else {
+                int piece = PIECES.indexOf(c);
+                if (piece <= 0 || square >= 64) {
+                    throw new IllegalArgumentException("Bad FEN placement: " + fields[0]);
+                }
+                squares[square++] = (byte) piece;
+            }
+        }
+        if (square != 64) {
+            throw new IllegalArgumentException("Bad FEN placement: " + fields[0]);
+        }
+        for (int i = 0; i < 64; i += 2) {
+            out.put((byte) (squares[i] << 4 | squares[i + 1]));
+        }
+
+        int flags = fields.length > 1 && fields[1].equals("b") ? 1 : 0;
+        String castling = fields.length > 2 ? fields[2] : "-";
+        for (int i = 0; i < 4; i++) {
+            if (castling.indexOf("KQkq".charAt(i)) >= 0) {
+                flags |= 2 << i;
+            }
+        }
+        out.put((byte) flags);
+        String enPassant = fields.length > 3 ? fields[3] : "-";
+        out.put((byte) (enPassant.equals("-") ? -1 : enPassant.charAt(0) - 'a'));
+        out.putShort((short) (fields.length > 4 ? Integer.parseInt(fields[4]) : 0));
+        out.putShort((short) (fields.length > 5 ? Integer.parseInt(fields[5]) : 1));
+    }
+
+    static String unpackFen(ByteBuffer buffer, int offset) {
+        StringBuilder fen = new StringBuilder(90);
+        int empty = 0;
+        for (int square = 0; square < 64; square++) {
+            int packed = buffer.get(offset + square / 2);
+            int piece = (square % 2 == 0 ? packed >> 4 : packed) & 0xF;
+            if (piece == 0) {
+                empty++;
+            } else {
+                if (empty > 0) {
+                    fen.append(empty);
+                    empty = 0;
+                }
+                fen.append(PIECES.charAt(piece));
+            }
+            if (square % 8 == 7) {
+                if (empty > 0) {
+                    fen.append(empty);
+                    empty = 0;
+                }
+                if (square < 63) {
+                    fen.append('/');
+                }
+            }
+        }
+
+        int flags = buffer.get(offset + 32);
+        boolean black = (flags & 1) != 0;
+        fen.append(black ? " b " : " w ");
+        int castlingStart = fen.length();
+        for (int i = 0; i < 4; i++) {
+            if ((flags & 2 << i) != 0) {
+                fen.append("KQkq".charAt(i));
+            }
+        }
+        if (fen.length() == castlingStart) {
+            fen.append('-');
+        }
+        int enPassant = buffer.get(offset + 33);
+        fen.append(' ');
+        if (enPassant < 0) {
+            fen.append('-');
+        } else {
+            fen.append((char) ('a' + enPassant)).append(black ? '3' : '6');
+        }
+        fen.append(' ').append(buffer.getShort(offset + 34)).append(' ').append(buffer.getShort(offset + 36));
+        return fen.toString();
+    }
+}
@@ -0,0 +1,265 @@
+package com.chessonline.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedOutputStream;
+import java.io.BufferedReader;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Compiles the Lichess puzzle CSV (PuzzleId,FEN,Moves,Rating,RatingDeviation,Popularity,NbPlays,Themes,GameUrl,OpeningTags)
+ * into the columnar file read by {@link PuzzleCorpus}. Columns are collected in primitive arrays,
+ * rows are ordered by rating and an id index is written beside them.
+ */
+class PuzzleCorpusCompiler {
+    private static final Logger log = LoggerFactory.getLogger(PuzzleCorpusCompiler.class);
+    private static final int MAX_THEMES = PuzzleCorpus.THEME_WORDS * 64;
+
+    private int rows;
+    private long[] ids = new long[1024];
+    private short[] ratings = new short[1024];
+    private short[] deviations = new short[1024];
+    private long[] themes = new long[1024 * PuzzleCorpus.THEME_WORDS];
+    private byte[] fens = new byte[1024 * PuzzleCorpus.FEN_SIZE];
+    private int[] moveOffsets = new int[1025];
+    private short[] moves = new short[4096];
+    private int[] tagOffsets = new int[1025];
+    private byte[] tags = new byte[16384];
+    private final Map<String, Integer> themeIndex = new LinkedHashMap<>();
+
+    private PuzzleCorpusCompiler() {}
+
+    /**
+     * Write the corpus for the CSV (zstd-compressed when it ends in .zst) to target, replacing any existing file
+     */
+    static void compile(Path source, long sourceSize, long sourceModified, int maxLoad, Path target) throws IOException {
+        long start = System.currentTimeMillis();
+        PuzzleCorpusCompiler compiler = new PuzzleCorpusCompiler();
+        Process process = source.toString().endsWith(".zst")
+                ? new ProcessBuilder("zstdcat", source.toString()).start() : null;
+        try (InputStream in = process != null ? process.getInputStream() : Files.newInputStream(source);
+             BufferedReader reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8), 65536)) {
+            String line;
+            int lineNum = 0;
+            while ((line = reader.readLine()) != null && (maxLoad == 0 || compiler.rows < maxLoad)) {
+                lineNum++;
+                if (lineNum == 1 || line.isBlank()) continue; // skip header
+                try {
+                    compiler.add(line.split(",", 10));
+                } catch (RuntimeException e) {
+                    log.warn("Failed to parse puzzle line {}: {}", lineNum, e.getMessage());
+                }
+                if (compiler.rows % 100000 == 0 && compiler.rows > 0) {
+                    log.info("  Compiled {} puzzles...", compiler.rows);
+                }
+            }
+        } finally {
+            if (process != null) {
+                process.destroy();
+            }
+        }
+        compiler.write(target, sourceSize, sourceModified, maxLoad);
+        log.info("Compiled puzzle corpus {} ({} puzzles, {} themes) in {} ms",
+                target, compiler.rows, compiler.themeIndex.size(), System.currentTimeMillis() - start);
+    }
+
+    private void add(String[] parts) {
+        if (parts.length < 4) {
+            throw new IllegalArgumentException("missing columns");
+        }
+        String id = parts[0].trim();
+        if (id.isEmpty() || id.length() > 8) {
+            throw new IllegalArgumentException("bad id " + id);
+        }
+        int rating = Integer.parseInt(parts[3].trim());
+        String[] solution = parts[2].trim().split(" ");
+        ensureCapacity(solution.length, parts.length > 9 ? parts[9].length() * 3 : 0);
+        int row = rows;
+
+        // Validate the whole row before anything is appended
+        ByteBuffer fen = ByteBuffer.wrap(fens, row * PuzzleCorpus.FEN_SIZE, PuzzleCorpus.FEN_SIZE);
+        PuzzleCorpus.packFen(parts[1], fen);
+        int moveCount = moveOffsets[row];
+        for (String move : solution) {
+            moves[moveCount++] = MoveCodec.encode(move);
+        }
+
+        ids[row] = PuzzleCorpus.packId(id);
+        ratings[row] = (short) Math.max(Short.MIN_VALUE, Math.min(Short.MAX_VALUE, rating));
+        deviations[row] = parts.length > 4 && !parts[4].isBlank() ? (short) Integer.parseInt(parts[4].trim()) : 0;
+        if (parts.length > 7) {
+            for (String theme : parts[7].trim().split(" ")) {
+                if (!theme.isEmpty()) {
+                    setTheme(row, theme);
+                }
+            }
+        }
+        int tagBytes = tagOffsets[row];
+        if (parts.length > 9) {
+            byte[] bytes = parts[9].trim().getBytes(StandardCharsets.UTF_8);
+            System.arraycopy(bytes, 0, tags, tagBytes, bytes.length);
+            tagBytes += bytes.length;
+        }
+        moveOffsets[row + 1] = moveCount;
+        tagOffsets[row + 1] = tagBytes;
+        rows++;
+    }
+
+    private void setTheme(int row, String theme) {
+        Integer index = themeIndex.get(theme);
+        if (index == null) {
+            if (themeIndex.size() >= MAX_THEMES) {
+                log.warn("Puzzle theme {} dropped, the corpus holds at most {} themes", theme, MAX_THEMES);
+                themeIndex.put(theme, -1);
+                return;
+            }
+            index = themeIndex.size();
+            themeIndex.put(theme, index);
+        }
+        if (index >= 0) {
+            themes[row * PuzzleCorpus.THEME_WORDS + index / 64] |= 1L << (index % 64);
+        }
+    }
+
+    private void ensureCapacity(int extraMoves, int extraTagBytes) {
+        if (rows + 1 >= ids.length) {
+            int capacity = ids.length * 2;
+            ids = Arrays.copyOf(ids, capacity);
+            ratings = Arrays.copyOf(ratings, capacity);
+            deviations = Arrays.copyOf(deviations, capacity);
+            themes = Arrays.copyOf(themes, capacity * PuzzleCorpus.THEME_WORDS);
+            fens = Arrays.copyOf(fens, capacity * PuzzleCorpus.FEN_SIZE);
+            moveOffsets = Arrays.copyOf(moveOffsets, capacity + 1);
+            tagOffsets = Arrays.copyOf(tagOffsets, capacity + 1);
+        }
+        if (moveOffsets[rows] + extraMoves > moves.length) {
+            moves = Arrays.copyOf(moves, Math.max(moves.length * 2, moveOffsets[rows] + extraMoves));
+        }
+        if (tagOffsets[rows] + extraTagBytes > tags.length) {
+            tags = Arrays.copyOf(tags, Math.max(tags.length * 2, tagOffsets[rows] + extraTagBytes));
+        }
+    }
+
+    private void write(Path target, long sourceSize, long sourceModified, int maxLoad) throws IOException {
+        // Rows by rating, then in CSV order: rating in the high bits, row in the low ones
+        long[] byRating = new long[rows];
+        for (int row = 0; row < rows; row++) {
+            byRating[row] = (long) (ratings[row] - Short.MIN_VALUE) << 32 | row;
+        }
+        Arrays.sort(byRating);
+        int[] order = new int[rows];
+        for (int i = 0; i < rows; i++) {
+            order[i] = (int) byRating[i];
+        }
+
+        // Output rows by id
+        Integer[] idOrder = new Integer[rows];
+        for (int i = 0; i < rows; i++) {
+            idOrder[i] = i;
+        }
+        Arrays.sort(idOrder, (a, b) -> Long.compareUnsigned(ids[order[a]], ids[order[b]]));
+
+        int themeCount = 0;
+        int namesSize = 0;
+        for (Map.Entry<String, Integer> theme : themeIndex.entrySet()) {
+            if (theme.getValue() >= 0) {
+                themeCount++;
+                namesSize += 2 + theme.getKey().getBytes(StandardCharsets.UTF_8).length;
+            }
+        }
+        long moveCount = moveOffsets[rows];
+        long tagBytes = tagOffsets[rows];
+        long size = PuzzleCorpus.HEADER_SIZE + (long) rows * (8 + 8 * PuzzleCorpus.THEME_WORDS + 4 + 2 + 2 + PuzzleCorpus.FEN_SIZE)
+                + 2L * (rows + 1) * 4 + moveCount * 2 + tagBytes + namesSize;
+        if (size > Integer.MAX_VALUE) {
+            throw new RuntimeException("Puzzle corpus of " + size + " bytes is too large to map; lower puzzle.max.load");
+        }
+
+        if (target.getParent() != null) {
+            Files.createDirectories(target.getParent());
+        }
+        Path temp = target.resolveSibling(target.getFileName() + ".tmp");
+        try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Channels.newOutputStream(channel), 1 << 16));
+            out.writeInt(PuzzleCorpus.MAGIC);
+            out.writeInt(PuzzleCorpus.VERSION);
+            out.writeInt(rows);
+            out.writeInt(themeCount);
+            out.writeLong(sourceSize);
+            out.writeLong(sourceModified);
+            out.writeInt(maxLoad);
+            out.writeInt(0);
+            out.writeLong(moveCount);
+            out.writeLong(tagBytes);
+            out.write(new byte[PuzzleCorpus.HEADER_SIZE - 56]);
+
+            for (int row : order) {
+                out.writeLong(ids[row]);
+            }
+            for (int row : order) {
+                for (int word = 0; word < PuzzleCorpus.THEME_WORDS; word++) {
+                    out.writeLong(themes[row * PuzzleCorpus.THEME_WORDS + word]);
+                }
+            }
+            for (Integer i : idOrder) {
+                out.writeInt(i);
+            }
+            int offset = 0;
+            for (int row : order) {
+                out.writeInt(offset);
+                offset += moveOffsets[row + 1] - moveOffsets[row];
+            }
+            out.writeInt(offset);
+            offset = 0;
+            for (int row : order) {
+                out.writeInt(offset);
+                offset += tagOffsets[row + 1] - tagOffsets[row];
+            }
+            out.writeInt(offset);
+            for (int row : order) {
+                out.writeShort(ratings[row]);
+            }
+            for (int row : order) {
+                out.writeShort(deviations[row]);
+            }
+            for (int row : order) {
+                out.write(fens, row * PuzzleCorpus.FEN_SIZE, PuzzleCorpus.FEN_SIZE);
+            }
+            for (int row : order) {
+                for (int i = moveOffsets[row]; i < moveOffsets[row + 1]; i++) {
+                    out.writeShort(moves[i]);
+                }
+            }
+            for (int row : order) {
+                out.write(tags, tagOffsets[row], tagOffsets[row + 1] - tagOffsets[row]);
+            }
+            for (Map.Entry<String, Integer> theme : themeIndex.entrySet()) {
+                if (theme.getValue() >= 0) {
+                    byte[] bytes = theme.getKey().getBytes(StandardCharsets.UTF_8);
+                    out.writeShort(bytes.length);
+                    out.write(bytes);
+                }
+            }
+            out.flush();
+            channel.force(true);
+        }
+        // Move into place so readers never see a partial corpus
+        Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+}
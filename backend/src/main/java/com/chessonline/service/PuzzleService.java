@@ -13,14 +13,12 @@ import com.chessonline.repository.UserStatsRepository;
 import com.chessonline.repository.PuzzleRatingHistoryRepository;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
-import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
 import jakarta.annotation.PostConstruct;
 import jakarta.persistence.EntityManager;
 import jakarta.persistence.PersistenceContext;
 import jakarta.persistence.Query;
-import java.io.*;
 import java.time.LocalDateTime;
 import java.util.*;
 import java.util.stream.Collectors;
@@ -32,24 +30,16 @@ import java.util.UUID;
 public class PuzzleService {
     
     private static final Logger log = LoggerFactory.getLogger(PuzzleService.class);
-    private static final int RATING_BUCKET_SIZE = 100; // Group puzzles by 100 rating points
     private static final int PUZZLE_RATING_K = 32;
     
-    @Value("${puzzle.csv.path:puzzles/lichess_db_puzzle.csv.zst}")
-    private String puzzleCsvPath;
-    
-    @Value("${puzzle.max.load:250000}")
-    private int maxPuzzlesToLoad;
-    
     private final UserPuzzleSolutionRepository userPuzzleSolutionRepository;
     private final PuzzleRepository puzzleRepository;
     private final UserStatsRepository userStatsRepository;
     private final UserRepository userRepository;
     private final PuzzleRatingHistoryRepository puzzleRatingHistoryRepository;
+    private final PuzzleCorpus puzzleCorpus;
     
     private Map<String, Puzzle> puzzleCache = new ConcurrentHashMap<>();
-    private List<Puzzle> allPuzzles = null;
-    private Map<Integer, List<Puzzle>> ratingIndex = new ConcurrentHashMap<>(); // Rating bucket -> puzzles
     private Random random = new Random();
     private volatile boolean initialized = false;
     private final CountDownLatch initLatch = new CountDownLatch(1);
@@ -61,12 +51,14 @@ public class PuzzleService {
                          PuzzleRepository puzzleRepository,
                          UserStatsRepository userStatsRepository,
                          UserRepository userRepository,
-                         PuzzleRatingHistoryRepository puzzleRatingHistoryRepository) {
+                         PuzzleRatingHistoryRepository puzzleRatingHistoryRepository,
+                         PuzzleCorpus puzzleCorpus) {
         this.userPuzzleSolutionRepository = userPuzzleSolutionRepository;
         this.puzzleRepository = puzzleRepository;
         this.userStatsRepository = userStatsRepository;
         this.userRepository = userRepository;
         this.puzzleRatingHistoryRepository = puzzleRatingHistoryRepository;
+        this.puzzleCorpus = puzzleCorpus;
     }
     
     /**
@@ -401,17 +393,10 @@ public class PuzzleService {
                 }
             }
             
-            List<Puzzle> puzzles = allPuzzles;
-            if (puzzles == null) {
-                log.error("Puzzles list is null after initialization");
-                return null;
-            }
-            
-            for (Puzzle p : puzzles) {
-                if (p.getId().equals(puzzleId)) {
-                    puzzleCache.put(puzzleId, p);
-                    return p;
-                }
+            Puzzle p = puzzleCorpus.findById(puzzleId);
+            if (p != null) {
+                puzzleCache.put(puzzleId, p);
+                return p;
             }
             log.warn("Puzzle not found: {}", puzzleId);
         } catch (Exception e) {
@@ -462,12 +447,12 @@ public class PuzzleService {
                 }
             }
             
-            List<Puzzle> puzzles = allPuzzles;
-            if (puzzles == null || puzzles.isEmpty()) {
-                log.error("Puzzles list is null or empty");
+            int size = puzzleCorpus.size();
+            if (size == 0) {
+                log.error("Puzzle corpus is empty");
                 return null;
             }
-            Puzzle puzzle = puzzles.get(Math.abs(index) % puzzles.size());
+            Puzzle puzzle = puzzleCorpus.getInIdOrder(Math.abs(index) % size);
             puzzleCache.put(puzzle.getId(), puzzle);
             return puzzle;
         } catch (Exception e) {
@@ -490,28 +475,12 @@ public class PuzzleService {
                 }
             }
             
-            // Use rating index for faster lookup
-            int minBucket = (minRating / RATING_BUCKET_SIZE) * RATING_BUCKET_SIZE;
-            int maxBucket = (maxRating / RATING_BUCKET_SIZE) * RATING_BUCKET_SIZE;
-            
-            List<Puzzle> candidates = new ArrayList<>();
-            for (int bucket = minBucket; bucket <= maxBucket; bucket += RATING_BUCKET_SIZE) {
-                List<Puzzle> bucketPuzzles = ratingIndex.get(bucket);
-                if (bucketPuzzles != null) {
-                    for (Puzzle p : bucketPuzzles) {
-                        if (p.getRating() >= minRating && p.getRating() <= maxRating) {
-                            candidates.add(p);
-                        }
-                    }
-                }
-            }
-            
-            if (candidates.isEmpty()) {
+            // Corpus rows are ordered by rating, so the range is found by binary search
+            Puzzle puzzle = puzzleCorpus.randomInRange(minRating, maxRating, random);
+            if (puzzle == null) {
                 log.warn("No puzzles found for rating range {}-{}", minRating, maxRating);
                 return null;
             }
-            
-            Puzzle puzzle = candidates.get(random.nextInt(candidates.size()));
             puzzleCache.put(puzzle.getId(), puzzle);
             return puzzle;
         } catch (Exception e) {
@@ -520,75 +489,20 @@ public class PuzzleService {
         return null;
     }
     
-    private synchronized List<Puzzle> loadAllPuzzles() throws Exception {
-        if (initialized && allPuzzles != null) {
-            log.info("Returning cached puzzles: {} total", allPuzzles.size());
-            return allPuzzles;
+    /**
+     * Map the compiled puzzle corpus, compiling it from the CSV first if needed
+     */
+    private synchronized void loadAllPuzzles() throws Exception {
+        if (initialized) {
+            return;
         }
-        
-        log.info("Loading puzzles from CSV file: {} (max: {})", puzzleCsvPath, maxPuzzlesToLoad);
-        List<Puzzle> puzzles = new ArrayList<>(maxPuzzlesToLoad);
-        Map<Integer, List<Puzzle>> tempIndex = new HashMap<>();
-        
-        ProcessBuilder pb = new ProcessBuilder("zstdcat", puzzleCsvPath);
-        Process process = pb.start();
-        
-        try (BufferedReader reader = new BufferedReader(new InputStreamReader(process.getInputStream()), 65536)) {
-            String line;
-            int lineNum = 0;
-            int loadedCount = 0;
-            
-            while ((line = reader.readLine()) != null && (maxPuzzlesToLoad == 0 || loadedCount < maxPuzzlesToLoad)) {
-                lineNum++;
-                if (lineNum == 1 || line.trim().isEmpty()) continue; // skip header
-                
-                String[] parts = line.split(",", 10);
-                if (parts.length < 4) continue;
-                
-                try {
-                    Puzzle p = new Puzzle();
-                    p.setId(parts[0].trim());
-                    p.setFen(parts[1].trim());
-                    p.setMoves(parts[2].trim());
-                    int rating = Integer.parseInt(parts[3].trim());
-                    p.setRating(rating);
-                    
-                    // Parse themes if available (index 7)
-                    if (parts.length > 7 && !parts[7].trim().isEmpty()) {
-                        p.setThemes(parts[7].trim());
-                    }
-                    if (parts.length > 9 && !parts[9].trim().isEmpty()) {
-                        p.setOpeningTags(parts[9].trim());
-                    }
-                    p.setFetchedAt(LocalDateTime.now());
-                    puzzles.add(p);
-                    
-                    // Add to rating index
-                    int bucket = (rating / RATING_BUCKET_SIZE) * RATING_BUCKET_SIZE;
-                    tempIndex.computeIfAbsent(bucket, k -> new ArrayList<>()).add(p);
-                    
-                    loadedCount++;
-                    
-                    if (loadedCount % 10000 == 0) {
-                        log.info("  Loaded {} puzzles...", loadedCount);
-                    }
-                } catch (Exception e) {
-                    log.warn("Failed to parse puzzle line {}: {}", lineNum, e.getMessage());
-                }
-            }
+        try {
+            puzzleCorpus.open();
         } finally {
-            process.destroy();
+            // Waiting requests fail fast with "No puzzle available" instead of blocking forever
+            initialized = true;
+            initLatch.countDown();
         }
-        
-        log.info("Successfully loaded {} puzzles from CSV", puzzles.size());
-        log.info("Created rating index with {} buckets", tempIndex.size());
-        
-        allPuzzles = puzzles;
-        ratingIndex = new ConcurrentHashMap<>(tempIndex);
-        initialized = true;
-        initLatch.countDown();
-        
-        return puzzles;
     }
 
     private Puzzle getRandomPuzzleByOpeningAndThemes(
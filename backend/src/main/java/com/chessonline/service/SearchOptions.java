@@ -0,0 +1,96 @@
+package com.chessonline.service;
+
+/**
+ * Limits and engine options for one search.
+ * Any combination of depth, movetime and nodes may be set; the engine stops at whichever is reached first.
+ * Hash and threads are engine-wide options and are restored when the engine returns to the pool.
+ */
+public class SearchOptions {
+    private Integer depth;
+    private Long moveTimeMs;
+    private Long nodes;
+    private int multiPv = 1;
+    private Integer hashMb;
+    private Integer threads;
+
+    public static SearchOptions depth(int depth) {
+        SearchOptions options = new SearchOptions();
+        options.depth = depth;
+        return options;
+    }
+
+    public static SearchOptions nodes(long nodes) {
+        SearchOptions options = new SearchOptions();
+        options.nodes = nodes;
+        return options;
+    }
+
+    public static SearchOptions moveTime(long moveTimeMs) {
+        SearchOptions options = new SearchOptions();
+        options.moveTimeMs = moveTimeMs;
+        return options;
+    }
+
+    public SearchOptions withDepth(Integer depth) {
+        this.depth = depth;
+        return this;
+    }
+
+    public SearchOptions withMoveTime(Long moveTimeMs) {
+        this.moveTimeMs = moveTimeMs;
+        return this;
+    }
+
+    public SearchOptions withNodes(Long nodes) {
+        this.nodes = nodes;
+        return this;
+    }
+
+    public SearchOptions withMultiPv(int multiPv) {
+        this.multiPv = Math.max(1, multiPv);
+        return this;
+    }
+
+    public SearchOptions withHashMb(Integer hashMb) {
+        this.hashMb = hashMb;
+        return this;
+    }
+
+    public SearchOptions withThreads(Integer threads) {
+        this.threads = threads;
+        return this;
+    }
+
+    public Integer getDepth() { return depth; }
+    public Long getMoveTimeMs() { return moveTimeMs; }
+    public Long getNodes() { return nodes; }
+    public int getMultiPv() { return multiPv; }
+    public Integer getHashMb() { return hashMb; }
+    public Integer getThreads() { return threads; }
+
+    /**
+     * Plain depth search of the main line only, the kind of result the evaluation cache holds
+     */
+    public boolean isDepthOnly() {
+        return depth != null && moveTimeMs == null && nodes == null && multiPv == 1;
+    }
+
+    /**
+     * UCI go command; movetime is always bounded by the caller's cap
+     */
+    String toGoCommand(long maxMoveTimeMs) {
+        StringBuilder command = new StringBuilder("go");
+        if (depth != null) {
+            command.append(" depth ").append(depth);
+        }
+        if (nodes != null) {
+            command.append(" nodes ").append(nodes);
+        }
+        command.append(" movetime ").append(effectiveMoveTime(maxMoveTimeMs));
+        return command.toString();
+    }
+
+    long effectiveMoveTime(long maxMoveTimeMs) {
+        return moveTimeMs != null ? Math.min(moveTimeMs, maxMoveTimeMs) : maxMoveTimeMs;
+    }
+}
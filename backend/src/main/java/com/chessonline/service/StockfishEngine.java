@@ -0,0 +1,300 @@
+package com.chessonline.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.*;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * One running Stockfish process speaking UCI.
+ * A virtual reader thread parses every output line into a {@link UciEvent} and queues it;
+ * callers consume events with deadlines instead of blocking on individual reads.
+ * Instances are owned by {@link StockfishEnginePool} and used by one thread at a time.
+ */
+public class StockfishEngine {
+    private static final Logger logger = LoggerFactory.getLogger(StockfishEngine.class);
+    private static final long TIMEOUT_MS = 30_000;
+    // Time allowed past movetime for bestmove, and again after "stop"
+    private static final long STOP_GRACE_MS = 2_000;
+    private static final int DEFAULT_HASH_MB = 16;
+    private static final int DEFAULT_THREADS = 1;
+
+    private final int id;
+    private final Process process;
+    private final BufferedReader reader;
+    private final BufferedWriter writer;
+    private final BlockingQueue<UciEvent> events = new LinkedBlockingQueue<>();
+    private volatile boolean broken;
+    // Engine-wide options currently set, restored to defaults on reset
+    private int multiPv = 1;
+    private int hashMb = DEFAULT_HASH_MB;
+    private int threads = DEFAULT_THREADS;
+
+    /**
+     * Outcome of one search; lines holds the latest scored info per MultiPV rank (index 0 = best line)
+     */
+    public static class SearchResult {
+        private final UciEvent[] lines;
+        private String bestMove;
+        private String ponderMove;
+        private boolean timedOut;
+
+        SearchResult(int multiPv) {
+            this.lines = new UciEvent[multiPv];
+        }
+
+        public UciEvent getLastInfo() { return lines[0]; }
+
+        /**
+         * Scored lines in rank order; fewer than requested when the position has fewer legal moves
+         */
+        public List<UciEvent> getLines() {
+            List<UciEvent> result = new ArrayList<>(lines.length);
+            for (UciEvent line : lines) {
+                if (line != null) {
+                    result.add(line);
+                }
+            }
+            return result;
+        }
+
+        public String getBestMove() { return bestMove; }
+        public String getPonderMove() { return ponderMove; }
+        public boolean isTimedOut() { return timedOut; }
+    }
+
+    private StockfishEngine(int id, Process process) {
+        this.id = id;
+        this.process = process;
+        this.reader = new BufferedReader(new InputStreamReader(process.getInputStream()));
+        this.writer = new BufferedWriter(new OutputStreamWriter(process.getOutputStream()));
+        Thread.ofVirtual().name("stockfish-reader-" + id).start(this::readLoop);
+    }
+
+    /**
+     * Start a process and complete the uci/isready handshake
+     */
+    public static StockfishEngine start(int id, String command) throws IOException {
+        ProcessBuilder pb = new ProcessBuilder(command);
+        pb.redirectErrorStream(true);
+        StockfishEngine engine = new StockfishEngine(id, pb.start());
+        try {
+            engine.send("uci");
+            engine.waitFor(UciEvent.Type.UCIOK, TIMEOUT_MS);
+            engine.ping(TIMEOUT_MS);
+        } catch (IOException | InterruptedException e) {
+            engine.close();
+            if (e instanceof InterruptedException) {
+                Thread.currentThread().interrupt();
+            }
+            throw new IOException("Failed to start Stockfish engine", e);
+        }
+        logger.info("Stockfish engine {} started", id);
+        return engine;
+    }
+
+    public int getId() {
+        return id;
+    }
+
+    public boolean isAlive() {
+        return !broken && process.isAlive();
+    }
+
+    /**
+     * Mark the process as unusable (protocol error or timeout); the pool replaces it on return
+     */
+    public void markBroken() {
+        broken = true;
+    }
+
+    /**
+     * Clear hash tables, search state, strength limits and per-search options before the next checkout
+     */
+    public void reset() throws IOException, InterruptedException {
+        send("setoption name UCI_LimitStrength value false");
+        send("setoption name Skill Level value 20");
+        setMultiPv(1);
+        setHash(DEFAULT_HASH_MB);
+        setThreads(DEFAULT_THREADS);
+        send("ucinewgame");
+        ping(TIMEOUT_MS);
+    }
+
+    /**
+     * isready/readyok round trip, used as a health check
+     */
+    public void ping(long timeoutMs) throws IOException, InterruptedException {
+        send("isready");
+        waitFor(UciEvent.Type.READYOK, timeoutMs);
+    }
+
+    public void send(String command) throws IOException {
+        writer.write(command);
+        writer.newLine();
+        writer.flush();
+        logger.debug("Sent to Stockfish {}: {}", id, command);
+    }
+
+    /**
+     * Search a position until depth or movetime is reached, whichever comes first
+     */
+    public SearchResult search(String fen, int depth, long moveTimeMs) throws IOException, InterruptedException {
+        return search(fen, SearchOptions.depth(depth), moveTimeMs);
+    }
+
+    /**
+     * Search a position within the given limits, never longer than maxMoveTimeMs.
+     * If bestmove does not arrive shortly after movetime, "stop" is sent; an engine that
+     * ignores it is marked broken and the partial result is returned.
+     */
+    public SearchResult search(String fen, SearchOptions options, long maxMoveTimeMs) throws IOException, InterruptedException {
+        setMultiPv(options.getMultiPv());
+        if (options.getHashMb() != null) {
+            setHash(options.getHashMb());
+        }
+        if (options.getThreads() != null) {
+            setThreads(options.getThreads());
+        }
+
+        events.clear();
+        send("position fen " + fen);
+        send(options.toGoCommand(maxMoveTimeMs));
+
+        SearchResult result = new SearchResult(options.getMultiPv());
+        long moveTimeMs = options.effectiveMoveTime(maxMoveTimeMs);
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(moveTimeMs + STOP_GRACE_MS);
+        boolean stopSent = false;
+        while (true) {
+            UciEvent event = nextEvent(deadline);
+            if (event == null) {
+                result.timedOut = true;
+                if (stopSent) {
+                    markBroken();
+                    return result;
+                }
+                send("stop");
+                stopSent = true;
+                deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(STOP_GRACE_MS);
+                continue;
+            }
+            switch (event.getType()) {
+                case INFO:
+                    int rank = event.getMultiPv();
+                    if (event.hasScore() && rank >= 1 && rank <= result.lines.length) {
+                        result.lines[rank - 1] = event;
+                    }
+                    break;
+                case BESTMOVE:
+                    result.bestMove = event.getBestMove();
+                    result.ponderMove = event.getPonderMove();
+                    return result;
+                case EOF:
+                    markBroken();
+                    throw new IOException("Stockfish exited during search");
+                default:
+                    break;
+            }
+        }
+    }
+
+    private void setMultiPv(int value) throws IOException {
+        if (multiPv != value) {
+            send("setoption name MultiPV value " + value);
+            multiPv = value;
+        }
+    }
+
+    private void setHash(int value) throws IOException, InterruptedException {
+        if (hashMb != value) {
+            send("setoption name Hash value " + value);
+            hashMb = value;
+            ping(TIMEOUT_MS); // wait for the table to be reallocated
+        }
+    }
+
+    private void setThreads(int value) throws IOException, InterruptedException {
+        if (threads != value) {
+            send("setoption name Threads value " + value);
+            threads = value;
+            ping(TIMEOUT_MS);
+        }
+    }
+
+    /**
+     * Skip events until one of the given type arrives
+     */
+    public UciEvent waitFor(UciEvent.Type type, long timeoutMs) throws IOException, InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeoutMs);
+        while (true) {
+            UciEvent event = nextEvent(deadline);
+            if (event == null) {
+                markBroken();
+                throw new IOException("Timeout waiting for " + type);
+            }
+            if (event.getType() == UciEvent.Type.EOF) {
+                markBroken();
+                throw new IOException("Stockfish exited before " + type);
+            }
+            if (event.getType() == type) {
+                return event;
+            }
+        }
+    }
+
+    /**
+     * Next queued event, null once the deadline (System.nanoTime based) has passed
+     */
+    private UciEvent nextEvent(long deadline) throws InterruptedException {
+        long remaining = deadline - System.nanoTime();
+        if (remaining <= 0) {
+            return events.poll();
+        }
+        return events.poll(remaining, TimeUnit.NANOSECONDS);
+    }
+
+    private void readLoop() {
+        try {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (logger.isTraceEnabled()) {
+                    logger.trace("Received from Stockfish {}: {}", id, line);
+                }
+                events.offer(UciEvent.parse(line));
+            }
+        } catch (IOException e) {
+            logger.debug("Stockfish {} output closed: {}", id, e.getMessage());
+        }
+        events.offer(UciEvent.EOF);
+    }
+
+    /**
+     * Send quit and make sure the process is gone
+     */
+    public void close() {
+        try {
+            send("quit");
+        } catch (IOException e) {
+            logger.debug("Could not send quit to Stockfish {}", id);
+        }
+        try {
+            process.waitFor(1, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        if (process.isAlive()) {
+            process.destroyForcibly();
+        }
+        try {
+            writer.close();
+            reader.close();
+        } catch (IOException e) {
+            logger.debug("Error closing Stockfish {} streams", id);
+        }
+    }
+}
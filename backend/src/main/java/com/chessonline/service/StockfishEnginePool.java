@@ -0,0 +1,281 @@
+package com.chessonline.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.util.concurrent.BlockingDeque;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingDeque;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Fixed-size pool of warm Stockfish processes.
+ * Engines are started once and reused: checkout hands out an idle engine,
+ * return resets it (ucinewgame, default strength) and puts it back.
+ * Dead or broken engines are replaced in the background. At most
+ * app.stockfish.max-queue callers wait for an engine; beyond that, and after
+ * app.stockfish.acquire-timeout-ms, checkout fails fast.
+ * Each engine is an independent session, so up to pool-size searches
+ * (one per core by default) run in parallel.
+ */
+@Component
+public class StockfishEnginePool {
+    private static final Logger logger = LoggerFactory.getLogger(StockfishEnginePool.class);
+    private static final long HEALTH_CHECK_TIMEOUT_MS = 2_000;
+
+    @Value("${app.stockfish.command:/usr/games/stockfish}")
+    private String command;
+
+    @Value("${app.stockfish.pool-size:0}")
+    private int poolSize;
+
+    @Value("${app.stockfish.max-queue:32}")
+    private int maxQueue;
+
+    @Value("${app.stockfish.acquire-timeout-ms:10000}")
+    private long acquireTimeoutMs;
+
+    private final BlockingDeque<StockfishEngine> idle = new LinkedBlockingDeque<>();
+    // Engines started or being started, idle or checked out
+    private final AtomicInteger engineCount = new AtomicInteger();
+    private final AtomicInteger waiting = new AtomicInteger();
+    private final AtomicInteger nextId = new AtomicInteger();
+    private final ExecutorService starter = Executors.newSingleThreadExecutor(r -> {
+        Thread thread = new Thread(r, "stockfish-pool");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private volatile boolean closed;
+
+    private final MeterRegistry meterRegistry;
+    private Timer waitTimer;
+    private Counter rejectedCounter;
+
+    public StockfishEnginePool(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+    }
+
+    @PostConstruct
+    public void warmUp() {
+        if (poolSize <= 0) {
+            poolSize = Runtime.getRuntime().availableProcessors();
+        }
+        waitTimer = meterRegistry.timer("stockfish.pool.wait");
+        rejectedCounter = meterRegistry.counter("stockfish.pool.rejected");
+        meterRegistry.gauge("stockfish.pool.engines", engineCount, AtomicInteger::get);
+        meterRegistry.gauge("stockfish.pool.waiting", waiting, AtomicInteger::get);
+        meterRegistry.gauge("stockfish.pool.idle", idle, BlockingDeque::size);
+        for (int i = 0; i < poolSize; i++) {
+            starter.execute(this::startReplacement);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        closed = true;
+        starter.shutdownNow();
+        StockfishEngine engine;
+        while ((engine = idle.pollFirst()) != null) {
+            engine.close();
+        }
+    }
+
+    /**
+     * Check out an engine; the caller must hand it back with {@link #release}
+     */
+    public StockfishEngine acquire() {
+        if (closed) {
+            throw new RuntimeException("Engine pool is shut down");
+        }
+        long start = System.nanoTime();
+        try {
+            return checkout();
+        } finally {
+            waitTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    private StockfishEngine checkout() {
+        StockfishEngine engine = pollIdle();
+        if (engine != null) {
+            return engine;
+        }
+
+        // Pool not full yet (cold start or an engine failed to start): start one inline
+        if (reserveSlot()) {
+            try {
+                return StockfishEngine.start(nextId.incrementAndGet(), command);
+            } catch (IOException e) {
+                engineCount.decrementAndGet();
+                logger.error("Could not start Stockfish engine", e);
+                throw new RuntimeException("Stockfish engine unavailable");
+            }
+        }
+
+        if (waiting.incrementAndGet() > maxQueue) {
+            waiting.decrementAndGet();
+            rejectedCounter.increment();
+            throw new RuntimeException("All engines are busy, try again later");
+        }
+        try {
+            long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(acquireTimeoutMs);
+            while (true) {
+                long remaining = deadline - System.nanoTime();
+                engine = remaining > 0 ? idle.pollFirst(remaining, TimeUnit.NANOSECONDS) : null;
+                if (engine == null) {
+                    rejectedCounter.increment();
+                    throw new RuntimeException("Timed out waiting for a Stockfish engine");
+                }
+                if (engine.isAlive()) {
+                    return engine;
+                }
+                discard(engine);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Interrupted while waiting for a Stockfish engine");
+        } finally {
+            waiting.decrementAndGet();
+        }
+    }
+
+    /**
+     * Check out an idle engine without waiting, or null if none is free
+     */
+    public StockfishEngine tryAcquire() {
+        return closed ? null : pollIdle();
+    }
+
+    /**
+     * Return a checked-out engine, resetting it for the next user
+     */
+    public void release(StockfishEngine engine) {
+        if (engine == null) {
+            return;
+        }
+        if (closed) {
+            engine.close();
+            return;
+        }
+        if (engine.isAlive()) {
+            try {
+                engine.reset();
+                idle.offerFirst(engine);
+                return;
+            } catch (IOException e) {
+                logger.warn("Stockfish engine {} failed to reset: {}", engine.getId(), e.getMessage());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        discard(engine);
+    }
+
+    /**
+     * Ping idle engines and top the pool back up to its configured size
+     */
+    @Scheduled(fixedDelayString = "${app.stockfish.health-check-interval-ms:30000}")
+    public void checkHealth() {
+        if (closed) {
+            return;
+        }
+        int count = idle.size();
+        for (int i = 0; i < count; i++) {
+            StockfishEngine engine = idle.pollLast();
+            if (engine == null) {
+                break;
+            }
+            try {
+                if (engine.isAlive()) {
+                    engine.ping(HEALTH_CHECK_TIMEOUT_MS);
+                    idle.offerFirst(engine);
+                    continue;
+                }
+            } catch (IOException e) {
+                logger.warn("Stockfish engine {} failed health check: {}", engine.getId(), e.getMessage());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                idle.offerFirst(engine);
+                return;
+            }
+            discard(engine);
+        }
+        for (int i = engineCount.get(); i < poolSize; i++) {
+            starter.execute(this::startReplacement);
+        }
+    }
+
+    public int getPoolSize() {
+        return poolSize;
+    }
+
+    public int getIdleCount() {
+        return idle.size();
+    }
+
+    public int getEngineCount() {
+        return engineCount.get();
+    }
+
+    public int getWaitingCount() {
+        return waiting.get();
+    }
+
+    private StockfishEngine pollIdle() {
+        StockfishEngine engine;
+        while ((engine = idle.pollFirst()) != null) {
+            if (engine.isAlive()) {
+                return engine;
+            }
+            discard(engine);
+        }
+        return null;
+    }
+
+    private boolean reserveSlot() {
+        while (true) {
+            int current = engineCount.get();
+            if (current >= poolSize) {
+                return false;
+            }
+            if (engineCount.compareAndSet(current, current + 1)) {
+                return true;
+            }
+        }
+    }
+
+    /**
+     * Close a dead engine and start a replacement in the background
+     */
+    private void discard(StockfishEngine engine) {
+        logger.warn("Replacing Stockfish engine {}", engine.getId());
+        engine.close();
+        engineCount.decrementAndGet();
+        if (!closed) {
+            starter.execute(this::startReplacement);
+        }
+    }
+
+    private void startReplacement() {
+        if (closed || !reserveSlot()) {
+            return;
+        }
+        try {
+            idle.offerLast(StockfishEngine.start(nextId.incrementAndGet(), command));
+        } catch (IOException e) {
+            engineCount.decrementAndGet();
+            logger.error("Could not start Stockfish engine: {}", e.getMessage());
+        }
+    }
+}
@@ -1,320 +1,343 @@
 package com.chessonline.service;
 
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import com.chessonline.model.BotDifficulty;
 
-import java.io.*;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
 import java.util.concurrent.TimeUnit;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
-import java.util.concurrent.Future;
-import java.util.concurrent.TimeoutException;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
 
 @Service
 public class StockfishService {
     private static final Logger logger = LoggerFactory.getLogger(StockfishService.class);
-    private static final String STOCKFISH_COMMAND = "/usr/games/stockfish";
     private static final int DEFAULT_DEPTH = 20;
-    private static final long TIMEOUT_SECONDS = 30;
-    private static final long ANALYSIS_TIMEOUT_SECONDS = 60; // Timeout per position analysis (60s for complex positions)
-    
-    // Thread-local storage for persistent Stockfish process
-    private final ThreadLocal<Process> processHolder = new ThreadLocal<>();
-    private final ThreadLocal<BufferedReader> readerHolder = new ThreadLocal<>();
-    private final ThreadLocal<BufferedWriter> writerHolder = new ThreadLocal<>();
-    private final ThreadLocal<ExecutorService> executorHolder = new ThreadLocal<>();
-    
-    // Patterns for parsing Stockfish output
-    private static final Pattern SCORE_CP_PATTERN = Pattern.compile("score cp (-?\\d+)");
-    private static final Pattern SCORE_MATE_PATTERN = Pattern.compile("score mate (-?\\d+)");
-    private static final Pattern BESTMOVE_PATTERN = Pattern.compile("bestmove ([a-h][1-8][a-h][1-8][qrbn]?)");
+    private static final long TIMEOUT_MS = 30_000;
+    private static final long ANALYSIS_TIMEOUT_MS = 60_000; // movetime cap per position analysis (60s for complex positions)
+    private static final long PREFETCH_TTL_MS = 10 * 60 * 1000L; // unused prefetches (missed predictions)
+
+    // Upper bounds for caller-supplied search options
+    @Value("${app.stockfish.max-multipv:5}")
+    private int maxMultiPv;
+
+    @Value("${app.stockfish.max-hash-mb:256}")
+    private int maxHashMb;
+
+    @Value("${app.stockfish.max-threads:2}")
+    private int maxThreads;
+
+    private final StockfishEnginePool enginePool;
+    private final EvaluationCache evaluationCache;
+    private final Timer searchTimer;
+    private final Map<String, Prefetch> prefetches = new ConcurrentHashMap<>();
+
+    /**
+     * A background bot search, taken by the first bot move in the same position
+     */
+    private record Prefetch(CompletableFuture<PositionEvaluation> result, long startedAt) {}
+
+    public StockfishService(StockfishEnginePool enginePool, EvaluationCache evaluationCache, MeterRegistry meterRegistry) {
+        this.enginePool = enginePool;
+        this.evaluationCache = evaluationCache;
+        this.searchTimer = meterRegistry.timer("stockfish.search");
+    }
 
     public static class PositionEvaluation {
         private int evaluation;  // in centipawns (from white's perspective)
         private String bestMove; // in UCI format (e.g., "e2e4")
         private boolean isMate;
         private int mateIn;      // moves until mate (if isMate is true)
+        private int depth;       // search depth reached, 0 if not searched
+        private String ponderMove; // expected reply (second move of the PV), if known
 
         public PositionEvaluation(int evaluation, String bestMove, boolean isMate, int mateIn) {
+            this(evaluation, bestMove, isMate, mateIn, 0);
+        }
+
+        public PositionEvaluation(int evaluation, String bestMove, boolean isMate, int mateIn, int depth) {
             this.evaluation = evaluation;
             this.bestMove = bestMove;
             this.isMate = isMate;
             this.mateIn = mateIn;
+            this.depth = depth;
         }
 
         public int getEvaluation() { return evaluation; }
         public String getBestMove() { return bestMove; }
         public boolean isMate() { return isMate; }
         public int getMateIn() { return mateIn; }
+        public int getDepth() { return depth; }
+        public String getPonderMove() { return ponderMove; }
+        public void setPonderMove(String ponderMove) { this.ponderMove = ponderMove; }
     }
 
     /**
-     * Start a persistent Stockfish engine for multiple analyses
-     * Must call stopEngine() when done
+     * One ranked line of a MultiPV search
      */
-    public synchronized void startEngine() throws IOException {
-        if (processHolder.get() != null) {
-            logger.debug("Stockfish engine already running");
-            return;
-        }
+    public static class PositionLine {
+        private final int rank;
+        private final PositionEvaluation evaluation;
+        private final List<String> pv;
 
-        logger.info("Starting persistent Stockfish engine");
-        ProcessBuilder pb = new ProcessBuilder(STOCKFISH_COMMAND);
-        pb.redirectErrorStream(true);
-        Process stockfish = pb.start();
-        
-        BufferedReader reader = new BufferedReader(new InputStreamReader(stockfish.getInputStream()));
-        BufferedWriter writer = new BufferedWriter(new OutputStreamWriter(stockfish.getOutputStream()));
-        ExecutorService executor = Executors.newSingleThreadExecutor();
-
-        try {
-            // Initialize UCI protocol
-            sendCommand(writer, "uci");
-            waitForResponse(reader, "uciok", executor);
-
-            sendCommand(writer, "isready");
-            waitForResponse(reader, "readyok", executor);
-            
-            processHolder.set(stockfish);
-            readerHolder.set(reader);
-            writerHolder.set(writer);
-            executorHolder.set(executor);
-            logger.info("Stockfish engine started and initialized successfully");
-        } catch (IOException | InterruptedException e) {
-            reader.close();
-            writer.close();
-            executor.shutdownNow();
-            stockfish.destroyForcibly();
-            throw new IOException("Failed to start Stockfish engine", e);
+        public PositionLine(int rank, PositionEvaluation evaluation, List<String> pv) {
+            this.rank = rank;
+            this.evaluation = evaluation;
+            this.pv = pv;
         }
+
+        public int getRank() { return rank; }
+        public int getEvaluation() { return evaluation.getEvaluation(); }
+        public boolean isMate() { return evaluation.isMate(); }
+        public int getMateIn() { return evaluation.getMateIn(); }
+        public int getDepth() { return evaluation.getDepth(); }
+        public String getMove() { return evaluation.getBestMove(); }
+        public List<String> getPv() { return pv; }
     }
 
     /**
-     * Stop the persistent Stockfish engine
+     * Analyze a single position on a pooled engine at the bot's strength
      */
-    public synchronized void stopEngine() {
-        Process stockfish = processHolder.get();
-        BufferedWriter writer = writerHolder.get();
-        BufferedReader reader = readerHolder.get();
-        ExecutorService executor = executorHolder.get();
+    public PositionEvaluation analyzePosition(String fen, BotDifficulty difficulty) throws IOException, InterruptedException {
+        // Cache hits never touch the pool; strength-limited results are never cached (see search)
+        String profile = profileOf(difficulty);
+        int depth = depthOf(difficulty);
+        if (difficulty == null) {
+            PositionEvaluation cached = evaluationCache.get(fen, profile, depth);
+            if (cached != null) {
+                return cached;
+            }
+        }
 
-        if (stockfish == null) {
-            return;
+        // A background search of the same position (pondering) is taken instead of repeated
+        Prefetch pending = prefetches.remove(prefetchKey(fen, profile));
+        if (pending != null) {
+            try {
+                return pending.result().get();
+            } catch (ExecutionException e) {
+                logger.debug("Prefetch of position failed, searching again: {}", e.getCause().getMessage());
+            }
         }
 
+        StockfishEngine engine = enginePool.acquire();
         try {
-            if (writer != null) {
-                try {
-                    sendCommand(writer, "quit");
-                    writer.close();
-                } catch (IOException e) {
-                    logger.warn("Error closing writer", e);
-                }
-            }
-            if (reader != null) {
-                try {
-                    reader.close();
-                } catch (IOException e) {
-                    logger.warn("Error closing reader", e);
-                }
-            }
-            if (executor != null) {
-                executor.shutdownNow();
-            }
-            if (stockfish != null) {
-                try {
-                    stockfish.waitFor(TIMEOUT_SECONDS, TimeUnit.SECONDS);
-                    if (stockfish.isAlive()) {
-                        stockfish.destroyForcibly();
-                    }
-                } catch (InterruptedException e) {
-                    stockfish.destroyForcibly();
-                    Thread.currentThread().interrupt();
-                }
-            }
-            logger.info("Stockfish engine stopped");
+            applyBotStrength(engine, difficulty);
+            return search(engine, fen, SearchOptions.depth(depth), profile);
         } finally {
-            processHolder.remove();
-            readerHolder.remove();
-            writerHolder.remove();
-            executorHolder.remove();
+            enginePool.release(engine);
         }
     }
 
     /**
-     * Analyze a position using persistent engine (must call startEngine first)
+     * Search a position at the bot's strength in the background, only if an engine is idle.
+     * The next {@link #analyzePosition} of the position takes the result, finished or still running;
+     * it is used once, like any strength-limited search.
+     * @return false if no engine was free
      */
-    public synchronized PositionEvaluation analyzePositionWithEngine(String fen, int depth) throws IOException, InterruptedException {
-        BufferedReader reader = readerHolder.get();
-        BufferedWriter writer = writerHolder.get();
-        ExecutorService executor = executorHolder.get();
-
-        if (reader == null || writer == null) {
-            throw new IllegalStateException("Engine not started. Call startEngine() first");
+    public boolean prefetch(String fen, BotDifficulty difficulty) {
+        String profile = profileOf(difficulty);
+        int depth = depthOf(difficulty);
+        String key = prefetchKey(fen, profile);
+        long now = System.currentTimeMillis();
+        prefetches.values().removeIf(p -> p.result().isDone() && now - p.startedAt() > PREFETCH_TTL_MS);
+        if (prefetches.containsKey(key)
+                || (difficulty == null && evaluationCache.contains(fen, profile, depth))) {
+            return true;
+        }
+        StockfishEngine engine = enginePool.tryAcquire();
+        if (engine == null) {
+            return false;
+        }
+        Prefetch prefetch = new Prefetch(new CompletableFuture<>(), now);
+        if (prefetches.putIfAbsent(key, prefetch) != null) {
+            enginePool.release(engine);
+            return true;
         }
+        Thread.ofVirtual().name("stockfish-prefetch").start(() -> {
+            try {
+                applyBotStrength(engine, difficulty);
+                prefetch.result().complete(search(engine, fen, SearchOptions.depth(depth), profile));
+            } catch (Exception e) {
+                prefetch.result().completeExceptionally(e);
+                prefetches.remove(key, prefetch);
+            } finally {
+                enginePool.release(engine);
+            }
+        });
+        return true;
+    }
 
+    private static String prefetchKey(String fen, String profile) {
+        return profile + "|" + EvaluationCache.normalizeFen(fen);
+    }
+
+    /**
+     * Analyze a position on an engine checked out from {@link StockfishEnginePool}.
+     * Stateless apart from the engine, so different engines can be searched concurrently.
+     */
+    public PositionEvaluation analyzePositionWithEngine(StockfishEngine engine, String fen, int depth) throws IOException, InterruptedException {
         if (depth <= 0) {
             depth = DEFAULT_DEPTH;
         }
+        PositionEvaluation cached = evaluationCache.get(fen, EvaluationCache.FULL_STRENGTH, depth);
+        if (cached != null) {
+            return cached;
+        }
+        return search(engine, fen, SearchOptions.depth(depth), EvaluationCache.FULL_STRENGTH);
+    }
 
-        long analysisStart = System.currentTimeMillis();
-        logger.debug("Analyzing position at depth {}", depth);
-        
-        // Set position and analyze
-        sendCommand(writer, "position fen " + fen);
-        sendCommand(writer, "go depth " + depth);
+    /**
+     * Main-line evaluation under arbitrary limits (nodes, movetime); only plain depth searches use the cache
+     */
+    public PositionEvaluation analyzePositionWithEngine(StockfishEngine engine, String fen, SearchOptions options) throws IOException, InterruptedException {
+        if (options.isDepthOnly()) {
+            return analyzePositionWithEngine(engine, fen, options.getDepth());
+        }
+        return search(engine, fen, options, EvaluationCache.FULL_STRENGTH);
+    }
 
-        // Parse analysis results with timeout
-        String lastInfoLine = null;
-        String bestMove = null;
-        
+    /**
+     * Top lines of a position (MultiPV) with their principal variations, on a pooled engine
+     */
+    public List<PositionLine> analyzeLines(String fen, SearchOptions options) throws IOException, InterruptedException {
+        options.withMultiPv(Math.min(options.getMultiPv(), maxMultiPv));
+        if (options.getHashMb() != null) {
+            options.withHashMb(Math.max(1, Math.min(options.getHashMb(), maxHashMb)));
+        }
+        if (options.getThreads() != null) {
+            options.withThreads(Math.max(1, Math.min(options.getThreads(), maxThreads)));
+        }
+
+        StockfishEngine engine = enginePool.acquire();
         try {
-            while (true) {
-                // Read line with timeout
-                Future<String> lineFuture = executor.submit(reader::readLine);
-                String line = lineFuture.get(ANALYSIS_TIMEOUT_SECONDS, TimeUnit.SECONDS);
-                
-                if (line == null) {
-                    break; // EOF
-                }
-                
-                if (line.startsWith("info") && line.contains("score")) {
-                    lastInfoLine = line;
-                }
-                if (line.startsWith("bestmove")) {
-                    Matcher matcher = BESTMOVE_PATTERN.matcher(line);
-                    if (matcher.find()) {
-                        bestMove = matcher.group(1);
-                    }
-                    break;
-                }
-            }
-        } catch (TimeoutException e) {
-            logger.warn("Stockfish analysis timeout after {} seconds for FEN, returning partial results", ANALYSIS_TIMEOUT_SECONDS);
-            // Return whatever partial result we have instead of failing
-            if (lastInfoLine != null && bestMove != null) {
-                logger.info("Returning partial analysis result (got evaluation but analysis timed out)");
-                return parseEvaluation(lastInfoLine, bestMove);
+            long start = System.currentTimeMillis();
+            StockfishEngine.SearchResult result = engine.search(fen, options, ANALYSIS_TIMEOUT_MS);
+            searchTimer.record(System.currentTimeMillis() - start, TimeUnit.MILLISECONDS);
+
+            List<PositionLine> lines = new ArrayList<>();
+            int rank = 1;
+            for (UciEvent info : result.getLines()) {
+                List<String> pv = info.getPv() != null ? List.of(info.getPv().split(" ")) : List.of();
+                String firstMove = pv.isEmpty() ? result.getBestMove() : pv.get(0);
+                lines.add(new PositionLine(rank++, parseEvaluation(info, firstMove), pv));
             }
-            // If we don't even have evaluation, use a neutral eval
-            logger.warn("No evaluation received before timeout, returning neutral eval 0");
-            return new PositionEvaluation(0, "a2a3", false, 0);
-        } catch (java.util.concurrent.ExecutionException e) {
+            return lines;
+        } finally {
+            enginePool.release(engine);
+        }
+    }
+
+    public PositionEvaluation analyzePositionWithEngine(StockfishEngine engine, String fen, BotDifficulty difficulty) throws IOException, InterruptedException {
+        if (difficulty == null) {
+            return analyzePositionWithEngine(engine, fen, DEFAULT_DEPTH);
+        }
+        applyBotStrength(engine, difficulty);
+        String profile = profileOf(difficulty);
+        int depth = depthOf(difficulty);
+        return search(engine, fen, SearchOptions.depth(depth), profile);
+    }
+
+    private PositionEvaluation search(StockfishEngine engine, String fen, SearchOptions options, String profile) throws IOException, InterruptedException {
+        long analysisStart = System.currentTimeMillis();
+        logger.debug("Analyzing position at depth {} nodes {}", options.getDepth(), options.getNodes());
+
+        // Depth/nodes are the target; movetime bounds the search and the engine enforces it
+        StockfishEngine.SearchResult result;
+        try {
+            result = engine.search(fen, options, ANALYSIS_TIMEOUT_MS);
+        } catch (IOException e) {
             logger.warn("Stockfish analysis execution error, returning neutral eval", e);
             return new PositionEvaluation(0, "a2a3", false, 0);
         }
 
         long analysisDuration = System.currentTimeMillis() - analysisStart;
+        searchTimer.record(analysisDuration, TimeUnit.MILLISECONDS);
         logger.debug("Position analysis completed in {}ms", analysisDuration);
 
+        if (result.isTimedOut()) {
+            logger.warn("Stockfish did not finish within {}ms, returning partial results", ANALYSIS_TIMEOUT_MS);
+        }
+
         // Parse evaluation from last info line
-        if (lastInfoLine != null && bestMove != null) {
-            return parseEvaluation(lastInfoLine, bestMove);
+        UciEvent lastInfo = result.getLastInfo();
+        String bestMove = result.getBestMove();
+        if (lastInfo != null && bestMove != null) {
+            PositionEvaluation evaluation = parseEvaluation(lastInfo, bestMove);
+            evaluation.setPonderMove(result.getPonderMove());
+            // Limited strength picks a random weaker move on purpose; caching it would replay the same mistake
+            if (!result.isTimedOut() && options.isDepthOnly() && EvaluationCache.FULL_STRENGTH.equals(profile)) {
+                evaluationCache.put(fen, profile, evaluation);
+            }
+            return evaluation;
         } else {
-            logger.warn("Failed to get evaluation for FEN (lastInfo: {}, bestMove: {}), returning neutral eval", lastInfoLine != null, bestMove != null);
+            logger.warn("Failed to get evaluation for FEN (lastInfo: {}, bestMove: {}), returning neutral eval", lastInfo != null, bestMove != null);
             // Return neutral evaluation instead of throwing
             return new PositionEvaluation(0, "a2a3", false, 0);
         }
     }
 
-    public synchronized PositionEvaluation analyzePositionWithEngine(String fen, BotDifficulty difficulty) throws IOException, InterruptedException {
-        BufferedReader reader = readerHolder.get();
-        BufferedWriter writer = writerHolder.get();
-        ExecutorService executor = executorHolder.get();
-
-        if (reader == null || writer == null) {
-            throw new IllegalStateException("Engine not started. Call startEngine() first");
-        }
-
-        applyBotStrength(difficulty, writer, reader, executor);
-        return analyzePositionWithEngine(fen, difficulty != null ? difficulty.getDepth() : DEFAULT_DEPTH);
-    }
-
-    private void sendCommand(BufferedWriter writer, String command) throws IOException {
-        writer.write(command);
-        writer.newLine();
-        writer.flush();
-        logger.debug("Sent to Stockfish: {}", command);
+    /**
+     * Cache profile of a search; only full-strength results are stored
+     */
+    private static String profileOf(BotDifficulty difficulty) {
+        return difficulty != null ? difficulty.name() : EvaluationCache.FULL_STRENGTH;
     }
 
-    private void waitForResponse(BufferedReader reader, String expectedResponse, ExecutorService executor) throws IOException, InterruptedException {
-        try {
-            while (true) {
-                Future<String> lineFuture = executor.submit(reader::readLine);
-                String line = lineFuture.get(TIMEOUT_SECONDS, TimeUnit.SECONDS);
-                
-                if (line == null) {
-                    throw new IOException("EOF reached before expected response: " + expectedResponse);
-                }
-                
-                logger.debug("Received from Stockfish: {}", line);
-                if (line.contains(expectedResponse)) {
-                    return;
-                }
-            }
-        } catch (TimeoutException e) {
-            throw new IOException("Timeout waiting for response: " + expectedResponse, e);
-        } catch (java.util.concurrent.ExecutionException e) {
-            throw new IOException("Error waiting for response: " + expectedResponse, e);
-        }
+    private static int depthOf(BotDifficulty difficulty) {
+        return difficulty != null ? difficulty.getDepth() : DEFAULT_DEPTH;
     }
 
-    private void applyBotStrength(BotDifficulty difficulty, BufferedWriter writer, BufferedReader reader, ExecutorService executor) throws IOException, InterruptedException {
+    private void applyBotStrength(StockfishEngine engine, BotDifficulty difficulty) throws IOException, InterruptedException {
         if (difficulty == null) {
             return;
         }
 
-        sendCommand(writer, "setoption name UCI_LimitStrength value true");
-        sendCommand(writer, "setoption name UCI_Elo value " + difficulty.getElo());
-        sendCommand(writer, "setoption name Skill Level value " + difficulty.getSkillLevel());
-        sendCommand(writer, "isready");
-        waitForResponse(reader, "readyok", executor);
+        engine.send("setoption name UCI_LimitStrength value true");
+        engine.send("setoption name UCI_Elo value " + difficulty.getElo());
+        engine.send("setoption name Skill Level value " + difficulty.getSkillLevel());
+        engine.ping(TIMEOUT_MS);
     }
 
-    private PositionEvaluation parseEvaluation(String infoLine, String bestMove) {
-        // Try to parse centipawn score
-        Matcher cpMatcher = SCORE_CP_PATTERN.matcher(infoLine);
-        if (cpMatcher.find()) {
-            int evaluation = Integer.parseInt(cpMatcher.group(1));
-            return new PositionEvaluation(evaluation, bestMove, false, 0);
+    private PositionEvaluation parseEvaluation(UciEvent info, String bestMove) {
+        // Centipawn score
+        if (!info.isMate()) {
+            return new PositionEvaluation(info.getScore(), bestMove, false, 0, info.getDepth());
         }
 
-        // Try to parse mate score
-        Matcher mateMatcher = SCORE_MATE_PATTERN.matcher(infoLine);
-        if (mateMatcher.find()) {
-            int mateIn = Integer.parseInt(mateMatcher.group(1));
-            
-            // Convert mate score to centipawn values based on moves to mate
-            // This provides more useful gradations than just ±50000 for all mates
-            // Formula: base 10000 + bonus for being closer to mate
-            int absMateIn = Math.abs(mateIn);
-            int evaluation;
-            
-            if (absMateIn == 0) {
-                // Mate on board (shouldn't happen in analysis, but handle it)
-                evaluation = mateIn >= 0 ? 50000 : -50000;
-            } else if (absMateIn == 1) {
-                // Mate in 1: very strong advantage
-                evaluation = mateIn > 0 ? 10000 : -10000;
-            } else {
-                // Mate in N: scale from 10000 down to 3000 as distance increases
-                // Cap at mate in 20 (beyond that, use minimum advantage of 3000)
-                int cappedMateIn = Math.min(absMateIn, 20);
-                // Linear interpolation from 10000 (mate in 1) to 3000 (mate in 20+)
-                evaluation = mateIn > 0 
-                    ? 10000 - ((cappedMateIn - 1) * 350)  // Decreases by ~350 per move
-                    : -10000 + ((cappedMateIn - 1) * 350);
-            }
-            
-            return new PositionEvaluation(evaluation, bestMove, true, mateIn);
+        // Mate score
+        int mateIn = info.getScore();
+        
+        // Convert mate score to centipawn values based on moves to mate
+        // This provides more useful gradations than just ±50000 for all mates
+        // Formula: base 10000 + bonus for being closer to mate
+        int absMateIn = Math.abs(mateIn);
+        int evaluation;
+        
+        if (absMateIn == 0) {
+            // Mate on board (shouldn't happen in analysis, but handle it)
+            evaluation = mateIn >= 0 ? 50000 : -50000;
+        } else if (absMateIn == 1) {
+            // Mate in 1: very strong advantage
+            evaluation = mateIn > 0 ? 10000 : -10000;
+        } else {
+            // Mate in N: scale from 10000 down to 3000 as distance increases
+            // Cap at mate in 20 (beyond that, use minimum advantage of 3000)
+            int cappedMateIn = Math.min(absMateIn, 20);
+            // Linear interpolation from 10000 (mate in 1) to 3000 (mate in 20+)
+            evaluation = mateIn > 0 
+                ? 10000 - ((cappedMateIn - 1) * 350)  // Decreases by ~350 per move
+                : -10000 + ((cappedMateIn - 1) * 350);
         }
-
-        logger.warn("Could not parse evaluation from: {}", infoLine);
-        return new PositionEvaluation(0, bestMove, false, 0);
+        
+        return new PositionEvaluation(evaluation, bestMove, true, mateIn, info.getDepth());
     }
 }
@@ -0,0 +1,111 @@
+package com.chessonline.service;
+
+/**
+ * One parsed line of Stockfish output.
+ * Only the fields used by the server are extracted; everything else is kept in {@link #getLine()}.
+ */
+public class UciEvent {
+
+    public enum Type {
+        UCIOK, READYOK, INFO, BESTMOVE, OTHER, EOF
+    }
+
+    public static final UciEvent EOF = new UciEvent(Type.EOF, null);
+
+    private final Type type;
+    private final String line;
+
+    // info fields
+    private int depth;
+    private int multiPv = 1;
+    private boolean hasScore;
+    private boolean mate;
+    private int score;    // centipawns, or moves to mate when mate is set
+    private String pv;
+
+    // bestmove fields
+    private String bestMove;
+    private String ponderMove;
+
+    private UciEvent(Type type, String line) {
+        this.type = type;
+        this.line = line;
+    }
+
+    public static UciEvent parse(String line) {
+        if (line.startsWith("info ")) {
+            return parseInfo(line);
+        }
+        if (line.startsWith("bestmove")) {
+            UciEvent event = new UciEvent(Type.BESTMOVE, line);
+            String[] tokens = line.split(" ");
+            if (tokens.length > 1 && !"(none)".equals(tokens[1])) {
+                event.bestMove = tokens[1];
+            }
+            if (tokens.length > 3 && "ponder".equals(tokens[2])) {
+                event.ponderMove = tokens[3];
+            }
+            return event;
+        }
+        if (line.equals("readyok")) {
+            return new UciEvent(Type.READYOK, line);
+        }
+        if (line.equals("uciok")) {
+            return new UciEvent(Type.UCIOK, line);
+        }
+        return new UciEvent(Type.OTHER, line);
+    }
+
+    private static UciEvent parseInfo(String line) {
+        UciEvent event = new UciEvent(Type.INFO, line);
+        String[] tokens = line.split(" ");
+        for (int i = 1; i < tokens.length; i++) {
+            switch (tokens[i]) {
+                case "string":
+                    return event; // free text up to the end of the line
+                case "depth":
+                    event.depth = parseInt(tokens, ++i);
+                    break;
+                case "multipv":
+                    event.multiPv = parseInt(tokens, ++i);
+                    break;
+                case "score":
+                    if (i + 2 < tokens.length) {
+                        event.mate = "mate".equals(tokens[i + 1]);
+                        event.score = parseInt(tokens, i + 2);
+                        event.hasScore = true;
+                        i += 2;
+                    }
+                    break;
+                case "pv":
+                    event.pv = line.substring(line.indexOf(" pv ") + 4);
+                    return event;
+                default:
+                    break;
+            }
+        }
+        return event;
+    }
+
+    private static int parseInt(String[] tokens, int index) {
+        if (index >= tokens.length) {
+            return 0;
+        }
+        try {
+            return Integer.parseInt(tokens[index]);
+        } catch (NumberFormatException e) {
+            return 0;
+        }
+    }
+
+    public Type getType() { return type; }
+    public String getLine() { return line; }
+    public int getDepth() { return depth; }
+    public int getMultiPv() { return multiPv; }
+    public boolean hasScore() { return hasScore; }
+    public boolean isMate() { return mate; }
+    public int getScore() { return score; }
+    public String getPv() { return pv; }
+    public String getBestMove() { return bestMove; }
+    public String getPonderMove() { return ponderMove; }
+}
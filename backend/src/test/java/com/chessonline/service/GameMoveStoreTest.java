@@ -0,0 +1,113 @@
+package com.chessonline.service;
+
+import com.chessonline.model.Move;
+import com.chessonline.repository.MoveRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.EmptyResultDataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.startsWith;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+class GameMoveStoreTest {
+    private static final String GAME_ID = "game-1";
+    private static final String START_FEN = "rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR w KQkq - 0 1";
+
+    // Piece placement, side to move and castling rights after 1. e4 e5 2. Nf3
+    private static final String AFTER_E4_E5 = "rnbqkbnr/pppp1ppp/8/4p3/4P3/8/PPPP1PPP/RNBQKBNR w KQkq";
+    private static final String AFTER_NF3 = "rnbqkbnr/pppp1ppp/8/4p3/4P3/5N2/PPPP1PPP/RNBQKB1R b KQkq";
+
+    private JdbcTemplate jdbcTemplate;
+    private MoveRepository moveRepository;
+    private GameMoveStore store;
+
+    @BeforeEach
+    void setUp() {
+        jdbcTemplate = mock(JdbcTemplate.class);
+        moveRepository = mock(MoveRepository.class);
+        store = new GameMoveStore(jdbcTemplate, moveRepository);
+    }
+
+    @Test
+    void getMovesRebuildsTheGameFromMoveCodes() {
+        storedGame(MoveCodec.pack(List.of("e2e4", "e7e5", "g1f3")), 3);
+
+        List<Move> moves = store.getMoves(GAME_ID);
+
+        assertThat(moves).extracting(Move::getSan).containsExactly("e2e4", "e7e5", "g1f3");
+        assertThat(moves).extracting(Move::getMoveNumber).containsExactly(1, 2, 3);
+        assertThat(moves.get(1).getFen()).startsWith(AFTER_E4_E5);
+        assertThat(moves.get(2).getFen()).startsWith(AFTER_NF3);
+        assertThat(moves.get(2).getId()).isEqualTo(GameMoveStore.moveId(GAME_ID, 3));
+        verifyNoInteractions(moveRepository);
+    }
+
+    @Test
+    void getMovesFallsBackToMoveRowsWithoutCompleteCodes() {
+        // Games recorded before the packed format: codes missing or shorter than ply_count
+        Move row = new Move(null, 1, "e2e4", "fen");
+        when(moveRepository.findByGameIdOrderByMoveNumber(GAME_ID)).thenReturn(List.of(row));
+
+        storedGame(null, 1);
+        assertThat(store.getMoves(GAME_ID)).containsExactly(row);
+
+        storedGame(MoveCodec.pack(List.of("e2e4")), 2);
+        assertThat(store.getMoves(GAME_ID)).containsExactly(row);
+    }
+
+    @Test
+    void getFensFromReplaysFromTheClosestKeyframe() {
+        storedGame(MoveCodec.pack(List.of("e2e4", "e7e5", "g1f3")), 3);
+        String keyframe = AFTER_E4_E5 + " - 0 2";
+        Map<String, Object> keyframeRow = new HashMap<>();
+        keyframeRow.put("ply", 2);
+        keyframeRow.put("fen", keyframe);
+        when(jdbcTemplate.queryForList(startsWith("SELECT ply, fen FROM game_keyframes"), eq(GAME_ID), eq(2)))
+                .thenReturn(List.of(keyframeRow));
+
+        List<String> fens = store.getFensFrom(GAME_ID, 2);
+
+        assertThat(fens).hasSize(2);
+        assertThat(fens.get(0)).isEqualTo(keyframe);
+        assertThat(fens.get(1)).startsWith(AFTER_NF3);
+    }
+
+    @Test
+    void getFensFromStartsAtTheInitialPositionWithoutKeyframe() {
+        storedGame(MoveCodec.pack(List.of("e2e4", "e7e5", "g1f3")), 3);
+        when(jdbcTemplate.queryForList(startsWith("SELECT ply, fen FROM game_keyframes"), eq(GAME_ID), eq(0)))
+                .thenReturn(List.of());
+
+        List<String> fens = store.getFensFrom(GAME_ID, 0);
+
+        assertThat(fens).hasSize(4);
+        assertThat(fens.get(0)).isEqualTo(START_FEN);
+        assertThat(fens.get(2)).startsWith(AFTER_E4_E5);
+        assertThat(fens.get(3)).startsWith(AFTER_NF3);
+    }
+
+    @Test
+    void unknownGameIsReported() {
+        when(jdbcTemplate.queryForMap(anyString(), eq(GAME_ID))).thenThrow(new EmptyResultDataAccessException(1));
+
+        assertThatThrownBy(() -> store.getMoves(GAME_ID)).hasMessage("Game not found");
+    }
+
+    private void storedGame(byte[] moveCodes, int plyCount) {
+        Map<String, Object> row = new HashMap<>();
+        row.put("move_codes", moveCodes);
+        row.put("ply_count", plyCount);
+        when(jdbcTemplate.queryForMap(anyString(), eq(GAME_ID))).thenReturn(row);
+    }
+}
@@ -0,0 +1,216 @@
+package com.chessonline.service;
+
+import com.chessonline.repository.GameRepository;
+import com.chessonline.repository.LobbyGameRepository;
+import com.chessonline.repository.UserRepository;
+import com.github.bhlangonijr.chesslib.Board;
+import com.github.bhlangonijr.chesslib.Piece;
+import com.github.bhlangonijr.chesslib.PieceType;
+import com.github.bhlangonijr.chesslib.move.Move;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verifyNoInteractions;
+
+/**
+ * Regression check for the move path of long games. A 300-ply game goes through
+ * {@link GameService#makeMove} with the real live registry, game workers and move journal;
+ * the database side is mocked and must never be touched while the game is live, since reading
+ * the move history per move is what made long games slow. Move timings are only logged.
+ */
+class GameServiceMoveCostTest {
+    private static final Logger logger = LoggerFactory.getLogger(GameServiceMoveCostTest.class);
+
+    private static final String START_FEN = "rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR w KQkq - 0 1";
+    private static final int PLIES = 300;
+    private static final int WINDOW = 100;
+    private static final int WARMUP_GAMES = 3;
+
+    @TempDir
+    Path tempDir;
+
+    private final UUID whiteId = UUID.randomUUID();
+    private final UUID blackId = UUID.randomUUID();
+
+    private GameService gameService;
+    private LiveGameRegistry liveGameRegistry;
+    private MoveJournal moveJournal;
+    private GameCommandExecutor gameCommandExecutor;
+    private GameRepository gameRepository;
+    private GameMoveStore gameMoveStore;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        gameRepository = mock(GameRepository.class);
+        gameMoveStore = mock(GameMoveStore.class);
+        MoveJournalWriter moveJournalWriter = mock(MoveJournalWriter.class);
+        liveGameRegistry = new LiveGameRegistry(gameRepository, gameMoveStore, moveJournalWriter);
+
+        moveJournal = new MoveJournal();
+        ReflectionTestUtils.setField(moveJournal, "journalPath", tempDir.resolve("move-journal.bin").toString());
+        ReflectionTestUtils.setField(moveJournal, "journalSizeMb", 16);
+        ReflectionTestUtils.setField(moveJournal, "fsync", false);
+        moveJournal.open();
+
+        gameCommandExecutor = new GameCommandExecutor();
+        ReflectionTestUtils.setField(gameCommandExecutor, "workerThreads", 1);
+        gameCommandExecutor.start();
+
+        gameService = new GameService();
+        ReflectionTestUtils.setField(gameService, "gameRepository", gameRepository);
+        ReflectionTestUtils.setField(gameService, "userRepository", mock(UserRepository.class));
+        ReflectionTestUtils.setField(gameService, "ratingService", mock(RatingService.class));
+        ReflectionTestUtils.setField(gameService, "lobbyGameRepository", mock(LobbyGameRepository.class));
+        ReflectionTestUtils.setField(gameService, "liveGameRegistry", liveGameRegistry);
+        ReflectionTestUtils.setField(gameService, "moveJournal", moveJournal);
+        ReflectionTestUtils.setField(gameService, "moveJournalWriter", moveJournalWriter);
+        ReflectionTestUtils.setField(gameService, "transactionTemplate", mock(TransactionTemplate.class));
+        ReflectionTestUtils.setField(gameService, "clockEngine", mock(ClockEngine.class));
+        ReflectionTestUtils.setField(gameService, "gameCommandExecutor", gameCommandExecutor);
+        ReflectionTestUtils.setField(gameService, "gameMoveStore", gameMoveStore);
+        ReflectionTestUtils.setField(gameService, "gameEventTrace", mock(GameEventTrace.class));
+        ReflectionTestUtils.setField(gameService, "eventPublisher", mock(ApplicationEventPublisher.class));
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        gameCommandExecutor.stop();
+        moveJournal.close();
+    }
+
+    @Test
+    void longGameNeverReadsMoveHistory() {
+        List<String> moves = longGame(PLIES, new Random(42));
+
+        for (int i = 0; i < WARMUP_GAMES; i++) {
+            play("warmup-" + i, moves);
+        }
+        long[] nanos = play("measured", moves);
+
+        long early = median(Arrays.copyOfRange(nanos, 0, WINDOW));
+        long late = median(Arrays.copyOfRange(nanos, PLIES - WINDOW, PLIES));
+        logger.info("Median move cost: {} us at plies 1-{}, {} us at plies {}-{}",
+                early / 1000, WINDOW, late / 1000, PLIES - WINDOW + 1, PLIES);
+
+        LiveGame live = liveGameRegistry.get("measured").orElseThrow();
+        assertThat(live.isActive()).isTrue();
+        assertThat(live.getPlyCount()).isEqualTo(PLIES);
+        assertThat(moveJournal.pendingCount()).isEqualTo((WARMUP_GAMES + 1) * PLIES);
+        verifyNoInteractions(gameRepository, gameMoveStore);
+    }
+
+    /**
+     * Play the moves in a fresh live game and return the wall time of each one
+     */
+    private long[] play(String gameId, List<String> moves) {
+        LiveGame live = new LiveGame(gameId, whiteId, blackId, "60+0", START_FEN);
+        live.setWhiteTimeLeftMs(60 * 60 * 1000L);
+        live.setBlackTimeLeftMs(60 * 60 * 1000L);
+        liveGameRegistry.register(live);
+
+        long[] nanos = new long[moves.size()];
+        for (int ply = 0; ply < moves.size(); ply++) {
+            UUID player = ply % 2 == 0 ? whiteId : blackId;
+            long start = System.nanoTime();
+            gameService.makeMove(gameId, player, moves.get(ply));
+            nanos[ply] = System.nanoTime() - start;
+        }
+        return nanos;
+    }
+
+    /**
+     * A legal game that is still going after the given number of plies: random moves that
+     * capture only when nothing else is legal (so material does not run out), avoid repeating a position more than twice
+     * and push a pawn before the 75-move rule can end the game.
+     */
+    private static List<String> longGame(int plies, Random random) {
+        Board board = new Board();
+        board.loadFromFen(START_FEN);
+        Map<String, Integer> seen = new HashMap<>();
+        List<String> moves = new ArrayList<>(plies);
+        while (moves.size() < plies) {
+            List<Move> candidates = new ArrayList<>(board.legalMoves());
+            Collections.shuffle(candidates, random);
+            if (board.getHalfMoveCounter() > 100) {
+                candidates.sort(Comparator.comparing(move -> !isPawnMove(board, move)));
+            }
+
+            Move chosen = null;
+            for (Move move : candidates) {
+                if (isQuiet(board, move) && keepsGameGoing(board, move, seen)) {
+                    chosen = move;
+                    break;
+                }
+            }
+            for (int i = 0; chosen == null && i < candidates.size(); i++) {
+                // Only a capture gets out of check
+                if (keepsGameGoing(board, candidates.get(i), seen)) {
+                    chosen = candidates.get(i);
+                }
+            }
+            if (chosen == null) {
+                throw new IllegalStateException("No move keeps the game going after " + moves.size() + " plies");
+            }
+            board.doMove(chosen);
+            seen.merge(positionKey(board), 1, Integer::sum);
+            moves.add(chosen.toString());
+        }
+        return moves;
+    }
+
+    private static boolean isPawnMove(Board board, Move move) {
+        return board.getPiece(move.getFrom()).getPieceType() == PieceType.PAWN;
+    }
+
+    private static boolean isQuiet(Board board, Move move) {
+        boolean capture = board.getPiece(move.getTo()) != Piece.NONE
+                || isPawnMove(board, move) && move.getFrom().getFile() != move.getTo().getFile();
+        return !capture && move.getPromotion() == Piece.NONE;
+    }
+
+    private static boolean keepsGameGoing(Board board, Move move, Map<String, Integer> seen) {
+        board.doMove(move);
+        try {
+            return !board.legalMoves().isEmpty()
+                    && !board.isInsufficientMaterial()
+                    && board.getHalfMoveCounter() < 140
+                    && seen.getOrDefault(positionKey(board), 0) < 2;
+        } finally {
+            board.undoMove();
+        }
+    }
+
+    /**
+     * FEN without the move counters, so repeated positions compare equal
+     */
+    private static String positionKey(Board board) {
+        String[] fields = board.getFen().split(" ");
+        return String.join(" ", Arrays.copyOf(fields, 4));
+    }
+
+    private static long median(long[] values) {
+        long[] sorted = values.clone();
+        Arrays.sort(sorted);
+        return sorted[sorted.length / 2];
+    }
+}
@@ -0,0 +1,87 @@
+package com.chessonline.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class MoveCodecTest {
+
+    @Test
+    void encodeDecodeRoundTripsEverySquarePair() {
+        for (int from = 0; from < 64; from++) {
+            for (int to = 0; to < 64; to++) {
+                String uci = square(from) + square(to);
+                assertThat(MoveCodec.decode(MoveCodec.encode(uci) & 0xFFFF)).isEqualTo(uci);
+            }
+        }
+    }
+
+    @Test
+    void encodeDecodeRoundTripsPromotions() {
+        for (String move : List.of("e7e8q", "e7e8r", "e7e8b", "e7e8n", "b2a1q", "h2h1n")) {
+            assertThat(MoveCodec.decode(MoveCodec.encode(move) & 0xFFFF)).isEqualTo(move);
+        }
+        assertThat(MoveCodec.decode(MoveCodec.encode("E7E8Q") & 0xFFFF)).isEqualTo("e7e8q");
+    }
+
+    @Test
+    void encodeUsesDocumentedBitLayout() {
+        assertThat(MoveCodec.encode("a1a1")).isEqualTo((short) 0);
+        assertThat(MoveCodec.encode("e2e4")).isEqualTo((short) (12 | 28 << 6));
+        assertThat(MoveCodec.encode("h7h8q") & 0xFFFF).isEqualTo(55 | 63 << 6 | 4 << 12);
+    }
+
+    @Test
+    void packUnpackRoundTripsAGame() {
+        List<String> moves = List.of("e2e4", "e7e5", "g1f3", "b8c6", "f1c4", "g8f6", "e1g1", "f6e4", "d7d8q");
+        byte[] packed = MoveCodec.pack(moves);
+
+        assertThat(packed).hasSize(moves.size() * 2);
+        assertThat(MoveCodec.unpack(packed)).isEqualTo(moves);
+    }
+
+    @Test
+    void unpackAppendedCodesEqualsPackOfWholeGame() {
+        // MoveJournalWriter appends each batch's codes to what is already stored
+        List<String> first = List.of("d2d4", "d7d5");
+        List<String> second = List.of("c2c4", "e7e6", "b1c3");
+        byte[] stored = MoveCodec.pack(first);
+        byte[] appended = MoveCodec.pack(second);
+        byte[] combined = new byte[stored.length + appended.length];
+        System.arraycopy(stored, 0, combined, 0, stored.length);
+        System.arraycopy(appended, 0, combined, stored.length, appended.length);
+
+        List<String> all = new ArrayList<>(first);
+        all.addAll(second);
+        assertThat(combined).isEqualTo(MoveCodec.pack(all));
+        assertThat(MoveCodec.unpack(combined)).isEqualTo(all);
+    }
+
+    @Test
+    void unpackHandlesMissingAndTruncatedCodes() {
+        assertThat(MoveCodec.unpack(null)).isEmpty();
+        assertThat(MoveCodec.unpack(new byte[0])).isEmpty();
+
+        byte[] packed = MoveCodec.pack(List.of("e2e4", "e7e5"));
+        byte[] truncated = java.util.Arrays.copyOf(packed, 3);
+        assertThat(MoveCodec.unpack(truncated)).containsExactly("e2e4");
+    }
+
+    @Test
+    void encodeRejectsMalformedMoves() {
+        assertThatThrownBy(() -> MoveCodec.encode(null)).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> MoveCodec.encode("e2")).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> MoveCodec.encode("e2e4qq")).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> MoveCodec.encode("i2i4")).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> MoveCodec.encode("e0e9")).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> MoveCodec.encode("e7e8k")).isInstanceOf(IllegalArgumentException.class);
+    }
+
+    private static String square(int index) {
+        return "" + (char) ('a' + index % 8) + (char) ('1' + index / 8);
+    }
+}
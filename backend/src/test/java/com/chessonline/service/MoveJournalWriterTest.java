@@ -0,0 +1,106 @@
+package com.chessonline.service;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.ArgumentCaptor;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.startsWith;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+class MoveJournalWriterTest {
+    private static final String FEN = "rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR w KQkq - 0 1";
+
+    @TempDir
+    Path tempDir;
+
+    private MoveJournal moveJournal;
+    private JdbcTemplate jdbcTemplate;
+    private ApplicationEventPublisher eventPublisher;
+    private MoveJournalWriter writer;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        moveJournal = new MoveJournal();
+        ReflectionTestUtils.setField(moveJournal, "journalPath", tempDir.resolve("move-journal.bin").toString());
+        ReflectionTestUtils.setField(moveJournal, "journalSizeMb", 1);
+        ReflectionTestUtils.setField(moveJournal, "fsync", false);
+        moveJournal.open();
+
+        jdbcTemplate = mock(JdbcTemplate.class);
+        TransactionTemplate transactionTemplate = mock(TransactionTemplate.class);
+        when(transactionTemplate.execute(any())).thenAnswer(invocation ->
+                invocation.<TransactionCallback<?>>getArgument(0).doInTransaction(null));
+        eventPublisher = mock(ApplicationEventPublisher.class);
+
+        writer = new MoveJournalWriter(moveJournal, jdbcTemplate, transactionTemplate, eventPublisher);
+        ReflectionTestUtils.setField(writer, "batchSize", 500);
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        writer.stop();
+        moveJournal.close();
+    }
+
+    @Test
+    void gapInOneGameIsQuarantinedWhileTheOthersCommit() {
+        journal("game-a", 1, 32);
+        journal("game-b", 3, 32); // stored codes end at ply 1, ply 2 is missing
+        when(jdbcTemplate.batchUpdate(startsWith("UPDATE games"), anyList())).thenReturn(new int[] { 1, 0 });
+        when(jdbcTemplate.queryForList(startsWith("SELECT octet_length"), eq(Integer.class), eq("game-b")))
+                .thenReturn(List.of(2));
+
+        writer.flushNow();
+
+        assertThat(moveJournal.pendingCount()).isZero();
+
+        ArgumentCaptor<MoveJournalGapEvent> gap = ArgumentCaptor.forClass(MoveJournalGapEvent.class);
+        verify(eventPublisher).publishEvent(gap.capture());
+        assertThat(gap.getValue().getGameId()).isEqualTo("game-b");
+        assertThat(gap.getValue().getStoredPlies()).isEqualTo(1);
+        assertThat(gap.getValue().getJournalPly()).isEqualTo(3);
+
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<List<Object[]>> keyframes = ArgumentCaptor.forClass(List.class);
+        verify(jdbcTemplate).batchUpdate(startsWith("INSERT INTO game_keyframes"), keyframes.capture());
+        assertThat(keyframes.getValue()).extracting(row -> row[0]).containsExactly("game-a");
+    }
+
+    @Test
+    void movesOfDeletedGameAreDroppedWithoutReload() {
+        journal("game-a", 1, 2);
+        when(jdbcTemplate.batchUpdate(startsWith("UPDATE games"), anyList())).thenReturn(new int[] { 0 });
+        when(jdbcTemplate.queryForList(startsWith("SELECT octet_length"), eq(Integer.class), eq("game-a")))
+                .thenReturn(List.of());
+
+        writer.flushNow();
+
+        assertThat(moveJournal.pendingCount()).isZero();
+        verifyNoInteractions(eventPublisher);
+    }
+
+    private void journal(String gameId, int fromPly, int toPly) {
+        String[] shuffle = { "g1f3", "g8f6", "f3g1", "f6g8" };
+        for (int ply = fromPly; ply <= toPly; ply++) {
+            moveJournal.append(gameId, ply, shuffle[(ply - 1) % shuffle.length], FEN, 60000, 60000, LocalDateTime.now());
+        }
+    }
+}
@@ -0,0 +1,107 @@
+package com.chessonline.service;
+
+import com.github.bhlangonijr.chesslib.Board;
+import com.github.bhlangonijr.chesslib.move.Move;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Moves per second of move validation plus the game-end check, before and after single-pass
+ * validation. {@code parseFenEveryMove} is the old path: a new board from the stored FEN to
+ * validate each move, then a second board from the new FEN for the mate and stalemate checks.
+ * {@code liveBoard} is the current one: the live game's board, its cached legal moves and the
+ * same game-end checks as {@code GameService}. Both replay the Opera Game (33 plies).
+ *
+ * Run with {@code mvn test-compile exec:java -Dexec.classpathScope=test
+ * -Dexec.mainClass=com.chessonline.service.MoveValidationBenchmark}.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@State(Scope.Thread)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MoveValidationBenchmark {
+    private static final String START_FEN = "rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR w KQkq - 0 1";
+    private static final int PLIES = 33;
+    private static final List<String> OPERA_GAME = List.of(
+            "e2e4", "e7e5", "g1f3", "d7d6", "d2d4", "c8g4", "d4e5", "g4f3", "d1f3", "d6e5",
+            "f1c4", "g8f6", "f3b3", "d8e7", "b1c3", "c7c6", "c1g5", "b7b5", "c3b5", "c6b5",
+            "c4b5", "b8d7", "e1c1", "a8d8", "d1d7", "d8d7", "h1d1", "e7e6", "b5d7", "f6d7",
+            "b3b8", "d7b8", "d1d8");
+
+    private final UUID whiteId = UUID.randomUUID();
+    private final UUID blackId = UUID.randomUUID();
+
+    @Benchmark
+    @OperationsPerInvocation(PLIES)
+    public int liveBoard() {
+        LiveGame live = new LiveGame("benchmark", whiteId, blackId, "5+0", START_FEN);
+        int ended = 0;
+        for (String uci : OPERA_GAME) {
+            Move move = new Move(uci, live.getBoard().getSideToMove());
+            if (!live.isLegal(move)) {
+                throw new IllegalStateException("Illegal move " + uci);
+            }
+            live.applyMove(move);
+            if (isOver(live)) {
+                ended++;
+            }
+        }
+        return ended;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(PLIES)
+    public int parseFenEveryMove() {
+        String fen = START_FEN;
+        int ended = 0;
+        for (String uci : OPERA_GAME) {
+            Board board = new Board();
+            board.loadFromFen(fen);
+            Move move = new Move(uci, board.getSideToMove());
+            if (!board.legalMoves().contains(move)) {
+                throw new IllegalStateException("Illegal move " + uci);
+            }
+            board.doMove(move);
+            fen = board.getFen();
+
+            Board check = new Board();
+            check.loadFromFen(fen);
+            if (check.isMated() || check.isStaleMate() || check.isInsufficientMaterial()) {
+                ended++;
+            }
+        }
+        return ended;
+    }
+
+    /**
+     * The checks of GameService.checkGameEnd
+     */
+    private static boolean isOver(LiveGame live) {
+        if (live.getLegalMoves().isEmpty() || live.getBoard().isInsufficientMaterial()) {
+            return true;
+        }
+        PositionHistory history = live.getPositionHistory();
+        return history.repetitionCount() >= 5 || history.getHalfMoveClock() >= 150;
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(MoveValidationBenchmark.class.getSimpleName()).build()).run();
+    }
+}
@@ -0,0 +1,23 @@
+package com.chessonline.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+class OpeningLinesCopyTest {
+    private static final Path SOURCE = Path.of("../frontend/src/data/openingLines.json");
+    private static final Path COPY = Path.of("src/main/resources/openings/openingLines.json");
+
+    @Test
+    void bookLinesMatchTheFrontendLines() throws Exception {
+        assumeTrue(Files.exists(SOURCE), "frontend sources are not checked out next to the backend");
+
+        assertThat(Files.readAllBytes(COPY))
+                .as("%s is copied from %s; copy it over again", COPY, SOURCE)
+                .isEqualTo(Files.readAllBytes(SOURCE));
+    }
+}
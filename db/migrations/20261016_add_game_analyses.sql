@@ -0,0 +1,14 @@
+-- Migration: Stored game analyses
+-- Finished analyses are kept per game id, SHA-256 of start position + moves, and depth,
+-- so repeated analysis requests are answered without running the engine again.
+-- game_id is not a foreign key: ad-hoc move lists can be analysed under any id.
+
+CREATE TABLE IF NOT EXISTS game_analyses (
+  id UUID PRIMARY KEY DEFAULT gen_random_uuid(),
+  game_id VARCHAR(64) NOT NULL,
+  depth INTEGER NOT NULL,
+  moves_hash VARCHAR(64) NOT NULL,
+  result TEXT NOT NULL,
+  created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+  UNIQUE (game_id, moves_hash, depth)
+);
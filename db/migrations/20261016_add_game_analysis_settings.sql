@@ -0,0 +1,8 @@
+-- Migration: Key stored analyses by analysis settings
+-- A result computed with one setting (e.g. adaptive or uniform search) must not be served for another.
+-- Rows stored before this migration have an empty tag and are never matched again.
+
+ALTER TABLE game_analyses ADD COLUMN IF NOT EXISTS settings VARCHAR(32) NOT NULL DEFAULT '';
+ALTER TABLE game_analyses DROP CONSTRAINT IF EXISTS game_analyses_game_id_moves_hash_depth_key;
+ALTER TABLE game_analyses ADD CONSTRAINT game_analyses_game_id_moves_hash_settings_depth_key
+  UNIQUE (game_id, moves_hash, settings, depth);
@@ -0,0 +1,4 @@
+-- Migration: Store the bot difficulty on bot games
+-- The server plays the bot's replies itself, so it needs the level without a client request
+
+ALTER TABLE games ADD COLUMN IF NOT EXISTS bot_difficulty VARCHAR(16);
@@ -0,0 +1,10 @@
+-- Migration: Add per-game ply counter
+-- Lets the move write path and game responses avoid counting the moves table
+
+ALTER TABLE games ADD COLUMN IF NOT EXISTS ply_count INTEGER NOT NULL DEFAULT 0;
+
+-- Backfill existing games
+UPDATE games g
+SET ply_count = m.cnt
+FROM (SELECT game_id, COUNT(*) AS cnt FROM moves GROUP BY game_id) m
+WHERE m.game_id = g.id AND g.ply_count <> m.cnt;
@@ -0,0 +1,35 @@
+-- Migration: Packed move storage
+-- games.move_codes holds one 16-bit code per ply (from | to << 6 | promotion << 12, big-endian),
+-- game_keyframes holds a FEN every 32 plies for random access. The moves table is kept read-only
+-- for history recorded before this migration.
+
+ALTER TABLE games ADD COLUMN IF NOT EXISTS move_codes BYTEA;
+
+CREATE TABLE IF NOT EXISTS game_keyframes (
+  game_id VARCHAR(10) NOT NULL REFERENCES games(id) ON DELETE CASCADE,
+  ply INTEGER NOT NULL,
+  fen TEXT NOT NULL,
+  PRIMARY KEY (game_id, ply)
+);
+
+-- Backfill codes from existing move rows (san holds UCI, e.g. e2e4 / e7e8q)
+UPDATE games g
+SET move_codes = m.codes
+FROM (
+  SELECT game_id,
+         string_agg(
+           int2send((
+             (ascii(substr(lower(san), 1, 1)) - 97) + (ascii(substr(san, 2, 1)) - 49) * 8
+             + ((ascii(substr(lower(san), 3, 1)) - 97) + (ascii(substr(san, 4, 1)) - 49) * 8) * 64
+             + (CASE lower(substr(san, 5, 1)) WHEN 'n' THEN 1 WHEN 'b' THEN 2 WHEN 'r' THEN 3 WHEN 'q' THEN 4 ELSE 0 END) * 4096
+           )::smallint),
+           ''::bytea ORDER BY move_number
+         ) AS codes
+  FROM moves
+  GROUP BY game_id
+) m
+WHERE m.game_id = g.id AND g.move_codes IS NULL;
+
+INSERT INTO game_keyframes (game_id, ply, fen)
+SELECT game_id, move_number, fen FROM moves WHERE move_number % 32 = 0
+ON CONFLICT (game_id, ply) DO NOTHING;
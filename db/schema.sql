@@ -55,13 +55,24 @@ CREATE TABLE games (
   white_time_left_ms BIGINT,
   black_time_left_ms BIGINT,
   last_move_at TIMESTAMP,
+  ply_count INTEGER NOT NULL DEFAULT 0, -- number of half-moves played
+  move_codes BYTEA, -- packed 16-bit move codes, one per ply
   draw_offered_by_id UUID REFERENCES users(id),
+  bot_difficulty VARCHAR(16), -- BEGINNER..EXPERT for games against the bot, NULL otherwise
   rated BOOLEAN DEFAULT FALSE,
   created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
   finished_at TIMESTAMP
 );
 
--- Moves
+-- Keyframe FENs of packed move histories (every 32 plies)
+CREATE TABLE game_keyframes (
+  game_id VARCHAR(10) NOT NULL REFERENCES games(id) ON DELETE CASCADE,
+  ply INTEGER NOT NULL,
+  fen TEXT NOT NULL,
+  PRIMARY KEY (game_id, ply)
+);
+
+-- Moves (legacy per-ply rows, read only for games recorded before move_codes)
 CREATE TABLE moves (
   id UUID PRIMARY KEY DEFAULT gen_random_uuid(),
   game_id VARCHAR(10) NOT NULL REFERENCES games(id) ON DELETE CASCADE,
@@ -83,6 +94,18 @@ CREATE TABLE rating_history (
   created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP
 );
 
+-- Stored engine analyses (per game id, move sequence hash and depth)
+CREATE TABLE game_analyses (
+  id UUID PRIMARY KEY DEFAULT gen_random_uuid(),
+  game_id VARCHAR(64) NOT NULL,
+  depth INTEGER NOT NULL,
+  moves_hash VARCHAR(64) NOT NULL,
+  settings VARCHAR(32) NOT NULL DEFAULT '', -- analysis version and mode the result was computed with
+  result TEXT NOT NULL,
+  created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+  UNIQUE (game_id, moves_hash, settings, depth)
+);
+
 -- Puzzles (from Lichess API)
 CREATE TABLE puzzles (
   id VARCHAR(10) PRIMARY KEY,
@@ -315,6 +315,20 @@ class ApiService {
     }).then(res => res.data);
   }
 
+  // Background analysis: progress is pushed to the submitting user on /user/queue/analysis
+  submitAnalysisJob(gameId: string, moves: string[], startFen?: string, depth?: number): Promise<any> {
+    return this.client.post(`/games/${gameId}/analysis-jobs`, {
+      gameId,
+      moves,
+      startFen: startFen || 'rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR w KQkq - 0 1',
+      depth: depth || 20
+    }).then(res => res.data);
+  }
+
+  getAnalysisJob(jobId: string): Promise<any> {
+    return this.client.get(`/games/analysis-jobs/${jobId}`).then(res => res.data);
+  }
+
   // Puzzle endpoints
   getDailyPuzzle(): Promise<any> {
     return this.client.get('/puzzles/daily').then(res => res.data);
@@ -388,7 +402,7 @@ class ApiService {
       });
   }
 
-  getBotMove(gameId: string, difficulty: string = 'INTERMEDIATE'): Promise<{ move: string; game: GameResponse }> {
+  requestBotMove(gameId: string, difficulty: string = 'INTERMEDIATE'): Promise<{ gameId: string; status: string }> {
     return this.client.post(`/bot/move/${gameId}`, null, {
       params: {
         difficulty
@@ -3,7 +3,7 @@ import { useParams } from 'react-router-dom';
 import { Chess } from 'chess.js';
 import { ChessBoardWrapper, Modal } from './common';
 import { apiService, User } from '../api';
-import { wsService, GameUpdate } from '../websocket';
+import { wsService, GameUpdate, ClockSync } from '../websocket';
 import { useTranslation } from '../i18n/LanguageContext';
 import './Game.css';
 
@@ -47,7 +47,10 @@ export const GameView: React.FC = () => {
   const [whiteTimeBase, setWhiteTimeBase] = useState<number>(0);
   const [blackTimeBase, setBlackTimeBase] = useState<number>(0);
   const [lastMoveAt, setLastMoveAt] = useState<number | null>(null);
-  const [timeUpdateReceivedAt, setTimeUpdateReceivedAt] = useState<number>(Date.now());
+  const [clockSnapshotAt, setClockSnapshotAt] = useState<number>(Date.now());
+  // Estimated server clock minus client clock, and the server time of the clocks shown
+  const clockOffsetRef = useRef<number | null>(null);
+  const clockServerTimeRef = useRef<number | null>(null);
   const [boardPosition, setBoardPosition] = useState<string>('start');
   const [moveHistory, setMoveHistory] = useState<string[]>([]);
   const [moveFens, setMoveFens] = useState<string[]>([]);
@@ -108,8 +111,8 @@ export const GameView: React.FC = () => {
       if (game.status !== 'active') return;
       
       const turn = chessInstance.turn();
-      // Count elapsed time from the last server update moment
-      const elapsedMs = Date.now() - timeUpdateReceivedAt;
+      // Count elapsed time from the moment the server took the last clock snapshot
+      const elapsedMs = Date.now() - clockSnapshotAt;
       
       if (turn === 'w') {
         setWhiteTimeLeftMs(Math.max(whiteTimeBase - elapsedMs, 0));
@@ -124,25 +127,39 @@ export const GameView: React.FC = () => {
         timerRef.current = null;
       }
     };
-  }, [game, chessInstance, wsConnected, lastMoveAt, whiteTimeBase, blackTimeBase, timeUpdateReceivedAt]);
+  }, [game, chessInstance, wsConnected, lastMoveAt, whiteTimeBase, blackTimeBase, clockSnapshotAt]);
 
   useEffect(() => {
+    clockServerTimeRef.current = null;
     loadGame();
     loadCurrentUser();
     // Connect to WebSocket
     const token = apiService.getToken();
+    let closed = false;
+    let unsubscribeClock = () => {};
+    let unsubscribeReconnect = () => {};
     if (token && gameId) {
+      const subscribe = () => {
+        // Subscribe to game updates and clock snapshots, then ask for authoritative clocks
+        wsService.subscribeToGame(gameId, handleGameUpdate);
+        unsubscribeClock = wsService.subscribeToClock(gameId, handleClockSync);
+        wsService.requestClockSync(gameId);
+      };
       wsService.connect(token)
         .then(() => {
+          if (closed) return;
           setWsConnected(true);
-          // Subscribe to game updates
-          wsService.subscribeToGame(gameId, handleGameUpdate);
+          subscribe();
+          unsubscribeReconnect = wsService.onReconnect(subscribe);
         })
         .catch((err) => {
           console.error('WebSocket connection failed:', err);
         });
     }
     return () => {
+      closed = true;
+      unsubscribeReconnect();
+      unsubscribeClock();
       if (gameId) {
         wsService.unsubscribeFromGame(gameId);
       }
@@ -166,27 +183,31 @@ export const GameView: React.FC = () => {
       
       setIsGettingBotMove(true);
       try {
-        // Get bot move from API
-        const response = await apiService.getBotMove(gameId, botDifficultyRef.current);
-        const botMove = response.move;
-        
-        // Apply bot move using sendMove (will be confirmed by WebSocket)
-        wsService.sendMove(gameId, botMove);
-        
-        console.log('Bot move sent:', botMove);
+        // The server plays the bot move in the background; it arrives as a game update
+        await apiService.requestBotMove(gameId, botDifficultyRef.current);
       } catch (err) {
-        console.error('Error getting bot move:', err);
-      } finally {
+        console.error('Error requesting bot move:', err);
         setIsGettingBotMove(false);
       }
     };
 
-    // Delay to give board time to render and prevent race conditions
-    const timeoutId = setTimeout(makeBotMove, 500);
+    // The server replies to our move on its own; only ask if no reply has arrived by then
+    const timeoutId = setTimeout(makeBotMove, 3000);
     
     return () => clearTimeout(timeoutId);
   }, [isBotGame, game, currentUser, gameId, chessInstance, isGettingBotMove]);
 
+  // A new position means the bot has moved; ask again if nothing arrives in time
+  useEffect(() => {
+    if (!isGettingBotMove) return;
+    const retryId = setTimeout(() => setIsGettingBotMove(false), 15000);
+    return () => clearTimeout(retryId);
+  }, [isGettingBotMove]);
+
+  useEffect(() => {
+    setIsGettingBotMove(false);
+  }, [chessInstance]);
+
   useEffect(() => {
     const handleResize = () => {
       const isMobile = window.innerWidth <= 768;
@@ -217,6 +238,27 @@ export const GameView: React.FC = () => {
     toastTimeoutRef.current = window.setTimeout(() => setToast(null), timeout);
   };
 
+  // Client time at which a server clock snapshot was taken. The offset keeps the largest
+  // serverTimestamp - receipt sample, i.e. the one delayed least by the network.
+  const snapshotClientTime = (serverTimestamp: number) => {
+    const sample = serverTimestamp - Date.now();
+    if (clockOffsetRef.current === null || sample > clockOffsetRef.current) {
+      clockOffsetRef.current = sample;
+    }
+    return serverTimestamp - clockOffsetRef.current;
+  };
+
+  const handleClockSync = (sync: ClockSync) => {
+    // Snapshots can overtake each other; never step back to older clocks
+    if (clockServerTimeRef.current !== null && sync.serverTimestamp < clockServerTimeRef.current) return;
+    clockServerTimeRef.current = sync.serverTimestamp;
+    setWhiteTimeLeftMs(sync.whiteTimeLeftMs);
+    setWhiteTimeBase(sync.whiteTimeLeftMs);
+    setBlackTimeLeftMs(sync.blackTimeLeftMs);
+    setBlackTimeBase(sync.blackTimeLeftMs);
+    setClockSnapshotAt(snapshotClientTime(sync.serverTimestamp));
+  };
+
   const handleGameUpdate = (update: GameUpdate) => {
     console.log('📨 Game update received:', {
       fen: update.fenCurrent,
@@ -298,9 +340,14 @@ export const GameView: React.FC = () => {
         setBlackTimeLeftMs(update.blackTimeLeftMs);
         setBlackTimeBase(update.blackTimeLeftMs);
       }
-      // Save timestamp when time update is received
+      // Project the clocks from the moment the server took the snapshot
       if (update.whiteTimeLeftMs !== undefined || update.blackTimeLeftMs !== undefined) {
-        setTimeUpdateReceivedAt(Date.now());
+        if (update.serverTimestamp !== undefined) {
+          clockServerTimeRef.current = update.serverTimestamp;
+          setClockSnapshotAt(snapshotClientTime(update.serverTimestamp));
+        } else {
+          setClockSnapshotAt(Date.now());
+        }
       }
       if (update.lastMoveAt) {
         setLastMoveAt(new Date(update.lastMoveAt).getTime());
@@ -376,11 +423,14 @@ export const GameView: React.FC = () => {
         drawOfferedById: gameResponse.drawOfferedById,
       };
       setGame(gameData);
-      setWhiteTimeLeftMs(gameData.whiteTimeLeftMs || 0);
-      setBlackTimeLeftMs(gameData.blackTimeLeftMs || 0);
-      setWhiteTimeBase(gameData.whiteTimeLeftMs || 0);
-      setBlackTimeBase(gameData.blackTimeLeftMs || 0);
-      setTimeUpdateReceivedAt(Date.now()); // Remember time update moment
+      // The REST response has no server timestamp; keep clocks from a sync snapshot that came first
+      if (clockServerTimeRef.current === null) {
+        setWhiteTimeLeftMs(gameData.whiteTimeLeftMs || 0);
+        setBlackTimeLeftMs(gameData.blackTimeLeftMs || 0);
+        setWhiteTimeBase(gameData.whiteTimeLeftMs || 0);
+        setBlackTimeBase(gameData.blackTimeLeftMs || 0);
+        setClockSnapshotAt(Date.now());
+      }
       if (gameData.lastMoveAt) {
         setLastMoveAt(new Date(gameData.lastMoveAt).getTime());
       } else {
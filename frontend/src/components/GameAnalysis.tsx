@@ -4,6 +4,7 @@ import { Chess } from 'chess.js';
 import { ChessBoardWrapper } from './common';
 import './GameAnalysis.css';
 import { apiService, User } from '../api';
+import { wsService, AnalysisProgress } from '../websocket';
 import { useTranslation } from '../i18n/LanguageContext';
 import { MoveAnalysis, GameAnalysisResult } from '../utils/analysisTypes';
 
@@ -120,6 +121,56 @@ export const GameAnalysis: React.FC = () => {
     }
   }, [selectedMoveIndex]);
 
+  // Resolve with the job result, updating progress as analysed moves arrive
+  const waitForAnalysis = (jobId: string, totalMoves: number): Promise<any> =>
+    new Promise((resolve, reject) => {
+      let done = false;
+      let unsubscribe: () => void = () => {};
+      let poll: ReturnType<typeof setInterval> | undefined;
+
+      const showProgress = (completed: number, lastMove?: any) => {
+        setProgress(Math.min(99, Math.floor((completed / Math.max(1, totalMoves)) * 100)));
+        if (lastMove) {
+          setCurrentMove(`${lastMove.moveNumber}${lastMove.whiteMove ? '.' : '...'} ${lastMove.move}`);
+        }
+      };
+      const finish = (result: any, failure?: string) => {
+        if (done) return;
+        done = true;
+        clearInterval(poll);
+        unsubscribe();
+        if (failure !== undefined) {
+          reject(new Error(failure));
+        } else {
+          resolve(result);
+        }
+      };
+
+      unsubscribe = wsService.subscribeToAnalysis(jobId, (message: AnalysisProgress) => {
+        if (message.type === 'move') {
+          showProgress(message.index + 1, message.move);
+        } else if (message.type === 'completed') {
+          finish(message.result);
+        } else {
+          finish(null, message.error || t('analysisUnknownError'));
+        }
+      });
+      poll = setInterval(async () => {
+        try {
+          const status = await apiService.getAnalysisJob(jobId);
+          if (status.status === 'COMPLETED') {
+            finish(status.result);
+          } else if (status.status === 'FAILED') {
+            finish(null, status.error || t('analysisUnknownError'));
+          } else {
+            showProgress(status.completedMoves, status.moves?.[status.moves.length - 1]);
+          }
+        } catch (err) {
+          finish(null, err instanceof Error ? err.message : t('analysisUnknownError'));
+        }
+      }, 2000);
+    });
+
   // Analyze game using backend Stockfish
   const startAnalysis = async () => {
     if (!game || moves.length === 0) {
@@ -135,41 +186,15 @@ export const GameAnalysis: React.FC = () => {
       // Extract moves in SAN format
       const sanMoves = moves.map((m: any) => m.san || m.move || '');
       
-      // Setup chess instance for visualizing progress
-      const chess = new Chess();
-      if (game?.startFen) {
-        chess.load(game.startFen);
-      }
-      
-      // Simulate progress with move-by-move visualization
-      let moveIndex = 0;
-      const progressInterval = setInterval(() => {
-        if (moveIndex < sanMoves.length) {
-          try {
-            chess.move(sanMoves[moveIndex]);
-            // Update position visualization
-            const moveNum = Math.floor(moveIndex / 2) + 1;
-            const color = moveIndex % 2 === 0 ? '.' : '...';
-            setCurrentMove(`${moveNum}${color} ${sanMoves[moveIndex]}`);
-            moveIndex++;
-            // Cap visualization at 90% - remaining 10% after API response
-            setProgress(Math.min(90, Math.floor((moveIndex / sanMoves.length) * 90)));
-          } catch (e) {
-            console.error('Invalid move during visualization:', sanMoves[moveIndex]);
-            moveIndex++;
-          }
-        }
-      }, 300); // Update every 300ms for smooth visualization
-
-      // Call backend API for analysis
-      const response = await apiService.analyzeGame(
+      // Run the analysis as a background job; analysed moves stream in over
+      // WebSocket, with status polling as the fallback
+      const job = await apiService.submitAnalysisJob(
         gameId!,
         sanMoves,
         game.startFen || 'rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR w KQkq - 0 1',
         20 // depth
       );
-
-      clearInterval(progressInterval);
+      const response = await waitForAnalysis(job.jobId, sanMoves.length);
 
       // Transform backend response to frontend format
       const analysisResults: MoveAnalysis[] = response.moves.map((m: any) => ({
@@ -19,12 +19,35 @@ interface GameUpdate {
   createdAt?: string;
   finishedAt?: string;
   drawOfferedById?: string | null;
+  serverTimestamp?: number;  // Epoch ms when the clock snapshot was taken
+}
+
+interface ClockSync {
+  gameId: string;
+  status: string;
+  sideToMove: 'w' | 'b';
+  clockRunning: boolean;
+  whiteTimeLeftMs: number;
+  blackTimeLeftMs: number;
+  serverTimestamp: number;  // Epoch ms when the clock snapshot was taken
+}
+
+interface AnalysisProgress {
+  jobId: string;
+  type: 'move' | 'completed' | 'failed';
+  index: number;
+  totalMoves: number;
+  move?: any;
+  result?: any;
+  error?: string;
 }
 
 class WebSocketService {
   private client: Client | null = null;
   private subscriptions: Map<string, StompSubscription> = new Map();
   private connected: boolean = false;
+  private hasConnected: boolean = false;
+  private reconnectListeners: Set<() => void> = new Set();
 
   connect(token: string): Promise<void> {
     return new Promise((resolve, reject) => {
@@ -62,7 +85,14 @@ class WebSocketService {
 
       this.client.onConnect = () => {
         console.log('✅ WebSocket connected successfully');
+        const reconnected = this.hasConnected;
         this.connected = true;
+        this.hasConnected = true;
+        if (reconnected) {
+          // Subscriptions died with the old session, let their owners subscribe again
+          this.subscriptions.clear();
+          this.reconnectListeners.forEach((listener) => listener());
+        }
         resolve();
       };
 
@@ -96,10 +126,19 @@ class WebSocketService {
       this.subscriptions.clear();
       this.client.deactivate();
       this.connected = false;
+      this.hasConnected = false;
       this.client = null;
     }
   }
 
+  // Called after the client reconnects on its own; returns a function removing the listener
+  onReconnect(listener: () => void): () => void {
+    this.reconnectListeners.add(listener);
+    return () => {
+      this.reconnectListeners.delete(listener);
+    };
+  }
+
   subscribeToGame(gameId: string, callback: (update: GameUpdate) => void): () => void {
     if (!this.client) {
       console.warn('❌ WebSocket client not initialized');
@@ -208,6 +247,52 @@ class WebSocketService {
     });
   }
 
+  // Clock snapshots of a game: the low-rate broadcast (when enabled on the server)
+  // and the replies to requestClockSync
+  subscribeToClock(gameId: string, callback: (sync: ClockSync) => void): () => void {
+    if (!this.client || !this.client.connected) {
+      console.warn('❌ Cannot subscribe to clock sync: client not connected');
+      return () => {};
+    }
+
+    const topics = [`/topic/game/${gameId}/clock`, '/user/queue/clock'];
+    for (const topic of topics) {
+      if (this.subscriptions.has(topic)) {
+        continue;
+      }
+      const subscription = this.client.subscribe(topic, (message) => {
+        try {
+          const sync: ClockSync = JSON.parse(message.body);
+          if (sync.gameId === gameId) {
+            callback(sync);
+          }
+        } catch (error) {
+          console.error('Error parsing clock sync:', error);
+        }
+      });
+      this.subscriptions.set(topic, subscription);
+    }
+
+    return () => {
+      for (const topic of topics) {
+        this.subscriptions.get(topic)?.unsubscribe();
+        this.subscriptions.delete(topic);
+      }
+    };
+  }
+
+  // Ask the server for an authoritative clock snapshot, delivered to subscribeToClock
+  requestClockSync(gameId: string): void {
+    if (!this.client || !this.client.connected) {
+      return;
+    }
+
+    this.client.publish({
+      destination: `/app/game/${gameId}/clock-sync`,
+      body: '',
+    });
+  }
+
   subscribeToGameStarted(callback: (message: { gameId: string; message: string }) => void): () => void {
     const topic = '/user/queue/game-started';
     
@@ -309,10 +394,31 @@ class WebSocketService {
     }
   }
 
+  subscribeToAnalysis(jobId: string, callback: (message: AnalysisProgress) => void): () => void {
+    // Progress of every job the user submitted arrives on this queue
+    const topic = '/user/queue/analysis';
+    if (!this.client || !this.client.connected) {
+      // Callers fall back to polling the job status
+      return () => {};
+    }
+
+    const subscription = this.client.subscribe(topic, (message) => {
+      try {
+        const progress: AnalysisProgress = JSON.parse(message.body);
+        if (progress.jobId === jobId) {
+          callback(progress);
+        }
+      } catch (error) {
+        console.error('Error parsing analysis progress:', error);
+      }
+    });
+    return () => subscription.unsubscribe();
+  }
+
   isConnected(): boolean {
     return this.connected;
   }
 }
 
 export const wsService = new WebSocketService();
-export type { GameUpdate };
+export type { GameUpdate, ClockSync, AnalysisProgress };